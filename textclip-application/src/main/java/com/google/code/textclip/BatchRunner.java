@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip;
+
+import com.google.code.textclip.enums.TextClipError;
+import com.google.code.textclip.exceptions.FormatException;
+import com.google.code.textclip.helpers.ArgumentParser;
+import com.google.code.textclip.helpers.BatchLineParser;
+import com.google.code.textclip.helpers.PathArguments;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs the jobs of a batch manifest (see --batch) in one JVM. Every line of
+ * the manifest is a separate set of options that is parsed by the
+ * ArgumentParser and generated by a fresh {@link TextClip}, so thousands of
+ * fixtures cost one JVM start instead of thousands.
+ * <p/>
+ * The jobs run concurrently on a fixed pool of threads. Each job writes to
+ * its own --out file; its message is captured and the status of every job is
+ * printed in the order of the manifest.
+ */
+public class BatchRunner {
+    private final PrintStream out;
+    private final int threads;
+    private final File directory;
+    private int jobCount = 0;
+    private int failedCount = 0;
+
+    /**
+     * @param theOut     receives one status line per job.
+     * @param theThreads the maximum number of jobs that run at the same time.
+     */
+    public BatchRunner(PrintStream theOut, int theThreads) {
+        this(theOut, theThreads, null);
+    }
+
+    /**
+     * @param theDirectory the directory that the relative paths of the jobs
+     *                     are relative to; null for the working directory
+     *                     of the JVM.
+     */
+    public BatchRunner(PrintStream theOut, int theThreads, File theDirectory) {
+        if (theThreads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed.");
+        }
+        this.out = theOut;
+        this.threads = theThreads;
+        this.directory = theDirectory;
+    }
+
+    /**
+     * Runs all jobs of the manifest and waits until they are finished.
+     *
+     * @return NO_ERROR when every job succeeded, ERROR_BATCH_JOB_FAILED when
+     * at least one job failed and ERROR_READING_BATCH when the manifest is
+     * unreadable.
+     */
+    public TextClipError run(File theManifest) {
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(theManifest.toPath(), Charset.defaultCharset());
+        } catch (IOException e) {
+            return TextClipError.ERROR_READING_BATCH;
+        }
+        final List<Job> jobs = new ArrayList<Job>();
+        for (int i = 0; i < lines.size(); i++) {
+            final String line = lines.get(i).trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                jobs.add(new Job(i + 1, line, directory));
+            }
+        }
+        jobCount = jobs.size();
+        failedCount = 0;
+        if (jobs.isEmpty()) {
+            return TextClipError.NO_ERROR;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(threads, jobs.size()), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "TextClip batch job");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        try {
+            final List<Future<Job>> results = new ArrayList<Future<Job>>(jobs.size());
+            for (Job job : jobs) {
+                results.add(executor.submit(job));
+            }
+            for (int i = 0; i < jobs.size(); i++) {
+                final Job job = jobs.get(i);
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException e) {
+                    job.status = TextClipError.ERROR_WRITING_OUTPUT.toInt();
+                    job.message = String.valueOf(e.getCause());
+                }
+                report(theManifest, job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TextClipError.ERROR_BATCH_JOB_FAILED;
+        } finally {
+            executor.shutdownNow();
+            out.flush();
+        }
+        return failedCount == 0
+                ? TextClipError.NO_ERROR
+                : TextClipError.ERROR_BATCH_JOB_FAILED;
+    }
+
+    /**
+     * @return the number of jobs found in the manifest by the last run.
+     */
+    public int getJobCount() {
+        return jobCount;
+    }
+
+    /**
+     * @return the number of jobs of the last run with a nonzero status.
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    private void report(File theManifest, Job theJob) {
+        if (theJob.status != TextClipError.NO_ERROR.toInt()) {
+            failedCount++;
+        }
+        out.println(theManifest.getName() + ":" + theJob.line + ": status "
+                + theJob.status + ", " + theJob.message);
+    }
+
+    /**
+     * One line of the manifest. The fields are written by the pool thread
+     * and read after {@link Future#get()}, which makes them visible.
+     */
+    private static final class Job implements Callable<Job> {
+        private final int line;
+        private final String text;
+        private final File directory;
+        private int status = TextClipError.NO_ERROR.toInt();
+        private String message = "";
+
+        Job(int theLine, String theText, File theDirectory) {
+            this.line = theLine;
+            this.text = theText;
+            this.directory = theDirectory;
+        }
+
+        @Override
+        public Job call() {
+            String[] arguments;
+            try {
+                arguments = new BatchLineParser(text).getArguments();
+            } catch (FormatException e) {
+                return fail(TextClipError.ERROR_PARSING_ARGUMENT_WRONG_FORMAT, e.getMessage());
+            }
+            if (directory != null) {
+                arguments = PathArguments.resolve(arguments, directory);
+            }
+            /*
+             * TextClip parses the arguments again; checking them here first
+             * keeps a job from falling back to the clipboard or the shared
+             * standard output.
+             */
+            final ArgumentParser options = new ArgumentParser();
+            try {
+                new CmdLineParser(options).parseArgument(arguments);
+            } catch (CmdLineException e) {
+                return fail(TextClipError.ERROR_PARSING_ARGUMENTS, e.getMessage());
+            }
+            if (options.isBatch()) {
+                return fail(TextClipError.ERROR_PARSING_ARGUMENTS, "a batch job cannot run another batch.");
+            }
+            if (!options.isOut() || "-".equals(options.getOut())) {
+                return fail(TextClipError.ERROR_PARSING_ARGUMENTS, "a batch job needs --out <file>.");
+            }
+
+            final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+            final PrintStream console = new PrintStream(captured, true);
+            status = new TextClip(arguments, console, console).run();
+            /* One report line per job, also when the job printed several. */
+            message = captured.toString().trim().replaceAll("\\s*\\R\\s*", " ");
+            return this;
+        }
+
+        private Job fail(TextClipError theStatus, String theMessage) {
+            status = theStatus.toInt();
+            message = theMessage;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip;
+
+import com.google.code.textclip.generators.GeneratorProduct;
+
+import java.awt.HeadlessException;
+import java.awt.Toolkit;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.ClipboardOwner;
+import java.awt.datatransfer.StringSelection;
+import java.awt.datatransfer.Transferable;
+
+/**
+ * Places test strings on the system clipboard. All AWT code of the
+ * application lives here, so the AWT classes are only loaded when the
+ * clipboard is really used; runs with --out or --batch start without them.
+ */
+final class ClipboardSink implements ClipboardOwner {
+
+    /**
+     * Place the string on the clipboard and make this sink the owner of the
+     * clipboard's contents.
+     */
+    void put(String theString) {
+        systemClipboard().setContents(new StringSelection(theString), this);
+    }
+
+    /**
+     * Place the product on the clipboard without generating the test string;
+     * the string is rendered when an application requests the clipboard
+     * contents (see GeneratorSelection).
+     */
+    void put(GeneratorProduct theProduct) {
+        systemClipboard().setContents(new GeneratorSelection(theProduct), this);
+    }
+
+    /**
+     * Like {@link #put(GeneratorProduct)}, but reports a missing or busy
+     * clipboard instead of throwing.
+     *
+     * @return false when there is no display or another application holds
+     * the clipboard.
+     */
+    boolean offer(GeneratorProduct theProduct) {
+        try {
+            put(theProduct);
+            return true;
+        } catch (HeadlessException e) {
+            return false;
+        } catch (IllegalStateException e) {
+            /* The clipboard is in use by another application. */
+            return false;
+        }
+    }
+
+    @Override
+    public void lostOwnership(Clipboard clipboard, Transferable contents) {
+        //Empty implementation of the ClipboardOwner interface. -> do nothing
+    }
+
+    private static Clipboard systemClipboard() {
+        return Toolkit.getDefaultToolkit().getSystemClipboard();
+    }
+}
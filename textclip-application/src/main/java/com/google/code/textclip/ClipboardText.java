@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip;
+
+import com.google.code.textclip.generators.GeneratorProduct;
+import com.google.code.textclip.generators.TextGeneratorProduct;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Generates a test string once before it is placed on the clipboard, so a
+ * text that cannot be generated is reported by the run and not at paste
+ * time. A short text is kept and offered as it is; a longer one is only
+ * counted and rendered again on every request (see GeneratorSelection).
+ */
+final class ClipboardText {
+    /**
+     * The longest text, in characters, that is kept on the heap.
+     */
+    static final int KEEP_LIMIT = 16 * 1024 * 1024;
+    /**
+     * The longest text a String, and so the clipboard, can hold.
+     */
+    static final long MAX_LENGTH = Integer.MAX_VALUE - 8;
+
+    private ClipboardText() {
+    }
+
+    /**
+     * @return the product to place on the clipboard: the generated text
+     * when it is short, otherwise the product itself.
+     * @throws IOException when the text cannot be generated or is too long
+     *                     for a String.
+     */
+    static GeneratorProduct check(GeneratorProduct theProduct) throws IOException {
+        Probe probe = new Probe();
+        theProduct.generate(probe);
+        return probe.text != null ? new TextGeneratorProduct(probe.text.toString()) : theProduct;
+    }
+
+    /**
+     * Counts the characters and keeps them up to the limit.
+     */
+    private static final class Probe extends Writer {
+        private StringBuilder text = new StringBuilder();
+        private long count = 0;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            count += length;
+            if (count > MAX_LENGTH) {
+                throw new IOException("The test string is longer than " + MAX_LENGTH + " characters.");
+            }
+            if (text != null) {
+                if (count > KEEP_LIMIT) {
+                    text = null;
+                } else {
+                    text.append(buffer, offset, length);
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip;
+
+import com.google.code.textclip.generators.GeneratorProduct;
+
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Clipboard contents that are rendered on request.
+ * <p/>
+ * Only the generator product is kept; the text is generated each time a
+ * receiving application asks for it. Besides a String, the text is offered as
+ * a Reader and as a UTF-8 encoded InputStream. Those two are filled by a
+ * background thread while the receiver reads, so the text is never held in
+ * memory as a whole.
+ * <p/>
+ * The product must render the same text on every request; TextClip gives
+ * random products a seed for that.
+ */
+public class GeneratorSelection implements Transferable {
+    public static final DataFlavor READER_FLAVOR =
+            createFlavor("text/plain;class=java.io.Reader");
+    public static final DataFlavor UTF8_STREAM_FLAVOR =
+            createFlavor("text/plain;charset=UTF-8;class=java.io.InputStream");
+
+    private static final int PIPE_SIZE = 4 * GeneratorProduct.CHUNK_SIZE;
+
+    private final GeneratorProduct product;
+
+    /**
+     * @param theProduct the product that renders the text when it is
+     *                   requested.
+     */
+    public GeneratorSelection(final GeneratorProduct theProduct) {
+        this.product = theProduct;
+    }
+
+    @Override
+    public DataFlavor[] getTransferDataFlavors() {
+        return new DataFlavor[]{DataFlavor.stringFlavor, READER_FLAVOR, UTF8_STREAM_FLAVOR};
+    }
+
+    @Override
+    public boolean isDataFlavorSupported(DataFlavor flavor) {
+        for (DataFlavor supported : getTransferDataFlavors()) {
+            if (supported.equals(flavor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object getTransferData(DataFlavor flavor)
+            throws UnsupportedFlavorException, IOException {
+        if (DataFlavor.stringFlavor.equals(flavor)) {
+            return this.product.generate();
+        } else if (READER_FLAVOR.equals(flavor)) {
+            return openReader();
+        } else if (UTF8_STREAM_FLAVOR.equals(flavor)) {
+            return openInputStream();
+        }
+        throw new UnsupportedFlavorException(flavor);
+    }
+
+    private Reader openReader() throws IOException {
+        PipedReader reader = new PipedReader(PIPE_SIZE);
+        startProducer(new PipedWriter(reader));
+        return reader;
+    }
+
+    private InputStream openInputStream() throws IOException {
+        PipedInputStream stream = new PipedInputStream(PIPE_SIZE);
+        startProducer(new OutputStreamWriter(new PipedOutputStream(stream),
+                Charset.forName("UTF-8")));
+        return stream;
+    }
+
+    /**
+     * Generates the text into the writer on a daemon thread. When the
+     * receiver stops reading and closes its end, the write fails and the
+     * thread ends.
+     */
+    private void startProducer(final Writer writer) {
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    product.generate(writer);
+                } catch (IOException e) {
+                    // the receiver closed its end; nothing left to do.
+                } finally {
+                    try {
+                        writer.close();
+                    } catch (IOException e) {
+                        // the receiver closed its end already.
+                    }
+                }
+            }
+        }, "TextClip clipboard transfer");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    private static DataFlavor createFlavor(String mimeType) {
+        try {
+            return new DataFlavor(mimeType);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
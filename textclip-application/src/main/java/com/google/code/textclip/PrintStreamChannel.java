@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes to a PrintStream and turns its error flag into an IOException.
+ * A PrintStream swallows the exceptions of its stream, so without this
+ * check a closed pipe or a client that went away would not stop the
+ * generator.
+ */
+final class PrintStreamChannel implements WritableByteChannel {
+    private final PrintStream stream;
+    private byte[] buffer = new byte[0];
+    private boolean open = true;
+
+    PrintStreamChannel(PrintStream theStream) {
+        this.stream = theStream;
+    }
+
+    /**
+     * Writes and flushes the bytes of the source.
+     *
+     * @throws IOException when the stream failed, now or earlier.
+     */
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        int count = source.remaining();
+        if (source.hasArray()) {
+            stream.write(source.array(), source.arrayOffset() + source.position(), count);
+            source.position(source.limit());
+        } else {
+            if (buffer.length < count) {
+                buffer = new byte[count];
+            }
+            source.get(buffer, 0, count);
+            stream.write(buffer, 0, count);
+        }
+        if (stream.checkError()) {
+            throw new IOException("The output stream failed.");
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Leaves the stream open; it belongs to the caller.
+     */
+    @Override
+    public void close() {
+        open = false;
+    }
+}
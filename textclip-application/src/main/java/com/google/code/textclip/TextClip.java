@@ -31,22 +31,42 @@ import com.google.code.textclip.exceptions.FormatException;
 import com.google.code.textclip.exceptions.InvalidGeneratorProductException;
 import com.google.code.textclip.exceptions.OutOfRangeException;
 import com.google.code.textclip.generators.GeneratorFactory;
+import com.google.code.textclip.generators.GeneratorProduct;
 import com.google.code.textclip.helpers.ArgumentParser;
+import com.google.code.textclip.helpers.PathArguments;
+import com.google.code.textclip.stats.CountingChannel;
+import com.google.code.textclip.stats.RunStatistics;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 
-import java.awt.*;
-import java.awt.datatransfer.Clipboard;
-import java.awt.datatransfer.ClipboardOwner;
-import java.awt.datatransfer.StringSelection;
-import java.awt.datatransfer.Transferable;
+import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
-public class TextClip implements ClipboardOwner {
+/**
+ * The command line application. It refers to no AWT type itself; the
+ * clipboard is reached through ClipboardSink, so runs that write to --out
+ * start without loading AWT.
+ */
+public class TextClip {
     private final ArgumentParser options = new ArgumentParser();
-    private final CmdLineParser parser = new CmdLineParser(options);
+    private final CmdLineParser parser;
+    private final RunStatistics statistics;
     private TextClipError status = TextClipError.NO_ERROR;
+    private String detail = null;
     private GeneratorFactory factory = new GeneratorFactory();
+    private final PrintStream out;
+    private final PrintStream err;
+    private final File directory;
+    private int batchJobCount = 0;
 
 
     /**
@@ -57,12 +77,54 @@ public class TextClip implements ClipboardOwner {
      *                     clipboard.
      */
     public TextClip(String[] argumentList) {
+        this(argumentList, null, null);
+    }
+
+    /**
+     * Creates an application that writes its messages, and the test string
+     * for "--out -", to the given streams instead of System.out and
+     * System.err. This lets a host such as the daemon run many requests in
+     * one JVM.
+     *
+     * @param argumentList see {@link #TextClip(String[])}.
+     * @param theOut       replaces the standard output; null for System.out.
+     * @param theErr       replaces the standard error; null for System.err.
+     */
+    public TextClip(String[] argumentList, PrintStream theOut, PrintStream theErr) {
+        this(argumentList, theOut, theErr, null);
+    }
+
+    /**
+     * Creates an application whose relative paths, also those of the jobs
+     * of a --batch manifest, are relative to the given directory instead of
+     * the working directory of the JVM (see PathArguments). The daemon runs
+     * the requests of its clients this way.
+     *
+     * @param theDirectory the working directory of the request; null for
+     *                     the one of the JVM.
+     */
+    public TextClip(String[] argumentList, PrintStream theOut, PrintStream theErr, File theDirectory) {
+        this.out = theOut;
+        this.err = theErr;
+        this.directory = theDirectory;
+        final String[] arguments = (theDirectory != null)
+                ? PathArguments.resolve(argumentList, theDirectory)
+                : argumentList;
+        /*
+         * The arguments are not parsed yet; a quick look decides whether the
+         * allocations of the parse phase are measured as well.
+         */
+        this.statistics = new RunStatistics(Arrays.asList(arguments).contains("--stats"));
+        RunStatistics.Phase phase = statistics.begin("parse");
+        this.parser = new CmdLineParser(options);
         try {
-            parser.parseArgument(argumentList);
+            parser.parseArgument(arguments);
+            options.validate(parser);
         } catch (CmdLineException e) {
-            System.out.println(e.getMessage());
+            standardOutput().println(e.getMessage());
             this.status = TextClipError.ERROR_PARSING_ARGUMENTS;
         }
+        phase.end(-1);
     }
 
     /**
@@ -78,52 +140,268 @@ public class TextClip implements ClipboardOwner {
 
 
     /**
-     * Place the test string on the clipboard, and generate this class the
-     * owner of the Clipboard's contents.
+     * Place the test string on the clipboard.
      */
     public void toClipboard(String theString) {
-        Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
-        clipboard.setContents(new StringSelection(theString), this);
+        new ClipboardSink().put(theString);
     }
 
-    @Override
-    public void lostOwnership(Clipboard clipboard, Transferable contents) {
-        //Empty implementation of the ClipboardOwner interface. -> do nothing
+    /**
+     * Place the product on the clipboard without generating the test string;
+     * the string is rendered when an application requests the clipboard
+     * contents (see GeneratorSelection).
+     */
+    public void toClipboard(GeneratorProduct theProduct) {
+        RunStatistics.Phase phase = statistics.begin("clipboard");
+        try {
+            new ClipboardSink().put(theProduct);
+        } finally {
+            phase.end(-1);
+        }
+    }
+
+    /**
+     * @return the product to place on the clipboard, or null when its text
+     * cannot be generated (the status tells why).
+     */
+    private GeneratorProduct checkForClipboard(GeneratorProduct theProduct) {
+        RunStatistics.Phase phase = statistics.begin("generate");
+        try {
+            return ClipboardText.check(theProduct);
+        } catch (IOException e) {
+            status = TextClipError.ERROR_FILESIZE;
+            return null;
+        } finally {
+            phase.end(-1);
+        }
+    }
+
+    /**
+     * Like {@link #toClipboard(GeneratorProduct)}, but a missing display or a
+     * busy clipboard is reported in the status instead of thrown.
+     */
+    private void offerToClipboard(GeneratorProduct theProduct) {
+        RunStatistics.Phase phase = statistics.begin("clipboard");
+        try {
+            if (!new ClipboardSink().offer(theProduct)) {
+                status = TextClipError.ERROR_WRITING_OUTPUT;
+            }
+        } finally {
+            phase.end(-1);
+        }
+    }
+
+    /**
+     * Write the test string to a file, or to the standard output when the
+     * name of the output is "-". The clipboard (and AWT) is not used at all,
+     * so this also works on headless systems.
+     *
+     * @param theProduct generates the test string.
+     * @param theOutput  the name of the file, or "-" for the standard output.
+     */
+    public void toOutput(GeneratorProduct theProduct, String theOutput) {
+        RunStatistics.Phase phase = statistics.begin("generate");
+        long bytes = -1;
+        try {
+            if (isStandardOutput(theOutput)) {
+                CountingChannel channel = new CountingChannel(new PrintStreamChannel(standardOutput()));
+                theProduct.generate(channel, Charset.defaultCharset());
+                bytes = channel.getCount();
+            } else {
+                FileChannel channel = FileChannel.open(Paths.get(theOutput),
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE);
+                try {
+                    theProduct.generate(channel, Charset.defaultCharset());
+                    bytes = channel.position();
+                } finally {
+                    channel.close();
+                }
+            }
+        } catch (IOException e) {
+            status = TextClipError.ERROR_WRITING_OUTPUT;
+        } finally {
+            phase.end(bytes);
+        }
     }
 
 
     /**
      * this method delegates the actual work. It processes the read arguments and
-     * constructs the test string. When the test string is constructed it is
-     * copied to the clipboard.
+     * constructs the generator of the test string, which is placed on the
+     * clipboard. The test string is generated once to check it (see
+     * ClipboardText); a long one is generated again when it is pasted.
+     * Random text without --seed gets a seed of its own, so every paste
+     * gives the same text.
      */
     public void textToClipboard() {
         if (!this.options.isHelp()) {
-            this.toClipboard(this.createTestString());
+            GeneratorProduct product = this.createProduct(new SplittableRandom().nextLong());
+            if (product != null) {
+                product = this.checkForClipboard(product);
+            }
+            if (product != null) {
+                this.offerToClipboard(product);
+            }
         } else {
-            parser.printUsage(System.out);
-            System.out.println();
+            parser.printUsage(standardOutput());
+            standardOutput().println();
         }
     }
 
+    /**
+     * Writes the test string to the output given with --out; without that
+     * option the test string is placed on the clipboard. With --batch every
+     * line of the manifest is processed instead (see BatchRunner).
+     */
+    public void textToOutput() {
+        if (!this.options.isHelp() && this.options.isBatch()) {
+            this.runBatch();
+        } else if (this.options.isHelp() || !this.options.isOut()) {
+            this.textToClipboard();
+        } else {
+            GeneratorProduct product = this.createProduct();
+            if (product != null) {
+                this.toOutput(product, this.options.getOut());
+            }
+        }
+    }
+
+    /**
+     * Runs the jobs of the --batch manifest on a pool with one thread per
+     * available processor and prints the status of every job.
+     */
+    public void runBatch() {
+        RunStatistics.Phase phase = statistics.begin("batch");
+        BatchRunner runner = new BatchRunner(standardOutput(),
+                Runtime.getRuntime().availableProcessors(), directory);
+        status = runner.run(this.options.getBatch());
+        batchJobCount = runner.getJobCount();
+        phase.end(-1);
+    }
+
     public String createTestString() {
         String retval = "";
+        GeneratorProduct product = this.createProduct();
+        if (product != null) {
+            try {
+                retval = product.generate();
+            } catch (IOException e) {
+                status = TextClipError.ERROR_FILESIZE;
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * @return the product that generates the test string according to the
+     * arguments, or null when the arguments are invalid (the status tells
+     * why).
+     */
+    public GeneratorProduct createProduct() {
+        return createProduct(null);
+    }
+
+    /**
+     * @param fallbackSeed the seed of random text without --seed; null for a
+     *                     different text on every call.
+     */
+    private GeneratorProduct createProduct(Long fallbackSeed) {
+        GeneratorProduct retval = null;
+        if (status != TextClipError.NO_ERROR) {
+            return retval;
+        }
+        RunStatistics.Phase phase = statistics.begin("make");
         try {
-            retval = this.factory.make(this.options).generate();
+            retval = this.factory.make(this.options, fallbackSeed);
         } catch (IOException e) {
             status = TextClipError.ERROR_FILESIZE;
         } catch (OutOfRangeException e) {
-            status = TextClipError.ERROR_PARSING_ARGUMENT_ASCII_INT_VALUE_OUT_OF_RANGE;
+            status = outOfRangeStatus();
+            detail = e.getMessage();
         } catch (FileSizeException e) {
             status = TextClipError.ERROR_FILESIZE;
         } catch (FormatException e) {
             status = TextClipError.ERROR_PARSING_ARGUMENT_WRONG_FORMAT;
+        } catch (IllegalCharsetNameException e) {
+            status = TextClipError.ERROR_UNKNOWN_ENCODING;
+        } catch (UnsupportedCharsetException e) {
+            status = TextClipError.ERROR_UNKNOWN_ENCODING;
         } catch (InvalidGeneratorProductException e) {
             e.printStackTrace();
+        } finally {
+            phase.end(-1);
         }
         return retval;
     }
 
+    /**
+     * @return the status of a value out of range: the code point and ASCII
+     * generators keep their own status, the others share a general one.
+     */
+    private TextClipError outOfRangeStatus() {
+        if (this.options.isUnicode() || this.options.isWeighted()) {
+            return TextClipError.ERROR_UNICODE_OUT_OF_RANGE;
+        }
+        if (this.options.isAllcharacters() || this.options.isAsciiValue() || this.options.isRandom()) {
+            return TextClipError.ERROR_PARSING_ARGUMENT_ASCII_INT_VALUE_OUT_OF_RANGE;
+        }
+        return TextClipError.ERROR_VALUE_OUT_OF_RANGE;
+    }
+
+    private String getSuccessMessage() {
+        if (this.options.isBatch()) {
+            return "All " + batchJobCount + " jobs of the batch are processed.";
+        }
+        if (!this.options.isOut()) {
+            return "Test string is copied to the clipboard.";
+        }
+        return isStandardOutput(this.options.getOut())
+                ? "Test string is written to the standard output."
+                : "Test string is written to " + this.options.getOut() + ".";
+    }
+
+    private static boolean isStandardOutput(String theOutput) {
+        return "-".equals(theOutput);
+    }
+
+    private PrintStream standardOutput() {
+        return out != null ? out : System.out;
+    }
+
+    private PrintStream standardError() {
+        return err != null ? err : System.err;
+    }
+
+    /**
+     * Processes the arguments like {@link #main(String[])} does, prints the
+     * resulting message and returns the status code instead of terminating
+     * the JVM.
+     *
+     * @return the status code; 0 means success.
+     */
+    public int run() {
+        textToOutput();
+        final String message = (status == TextClipError.NO_ERROR)
+                ? getSuccessMessage()
+                : status.getMessage();
+        /*
+         * Keep the standard output clean when the test string is written to it.
+         */
+        final PrintStream console = isStandardOutput(options.getOut())
+                ? standardError()
+                : standardOutput();
+        if (detail != null) {
+            console.println(detail);
+        }
+        console.println(message);
+        if (options.isStats()) {
+            statistics.print(console);
+        }
+        console.flush();
+        return status.toInt();
+    }
+
     /**
      * The TextClip class implements an application that reads the terminal
      * commandline options. Depending on the arguments text will be copied to
@@ -137,13 +415,7 @@ public class TextClip implements ClipboardOwner {
      *             arguments are parsed with the ArgumentParser class.
      */
     public static void main(String[] args) throws IOException, OutOfRangeException, FormatException, FileSizeException, InvalidGeneratorProductException {
-        final TextClip theApp = new TextClip(args);
-        theApp.textToClipboard();
-        final String message = (theApp.getStatus() == TextClipError.NO_ERROR)
-                ? "Test string is copied to the clipboard."
-                : theApp.getStatus().getMessage();
-        System.out.println(message);
-        System.exit(theApp.getStatus().toInt());
+        System.exit(new TextClip(args).run());
     }
 
 
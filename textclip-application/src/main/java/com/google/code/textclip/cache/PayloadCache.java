@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip.cache;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A directory of generated payloads (option --cache), addressed by the
+ * SHA-256 hash of a normalized generator specification. A payload is
+ * generated once; later requests map the cached file into memory and write
+ * it to the output without generating anything.
+ * <p/>
+ * The total size of the payloads is kept under a quota (option
+ * --cache-quota). A hit updates the modification time of the payload, and
+ * the least recently used payloads are deleted first when the quota is
+ * exceeded.
+ * <p/>
+ * Payloads are written to a temporary file and moved into place, so runs
+ * that share the directory, such as the jobs of a batch, never see a
+ * partly written payload.
+ */
+public class PayloadCache {
+    public static final long DEFAULT_QUOTA = 1024L * 1024 * 1024;
+    static final String SUFFIX = ".payload";
+    private static final int MAP_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final File directory;
+    private final long quota;
+
+    /**
+     * @param theDirectory the cache directory; it is created when needed.
+     * @param theQuota     the maximum total size of the payloads in bytes.
+     */
+    public PayloadCache(File theDirectory, long theQuota) {
+        if (theQuota < 0) {
+            throw new IllegalArgumentException("Quota is negative.");
+        }
+        this.directory = theDirectory;
+        this.quota = theQuota;
+    }
+
+    /**
+     * @return the key of a normalized specification; equal specifications
+     * have equal keys.
+     */
+    public static String key(String specification) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(specification.getBytes(StandardCharsets.UTF_8));
+            char[] key = new char[2 * hash.length];
+            for (int i = 0; i < hash.length; i++) {
+                key[2 * i] = HEX[(hash[i] >> 4) & 0xF];
+                key[2 * i + 1] = HEX[hash[i] & 0xF];
+            }
+            return new String(key);
+        } catch (NoSuchAlgorithmException e) {
+            /* Every Java platform supports SHA-256. */
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the cached payload of the key, or null when it is not cached.
+     * A hit counts as a use for the eviction order.
+     */
+    public File lookup(String key) {
+        File payload = payloadFile(key);
+        if (!payload.isFile()) {
+            return null;
+        }
+        payload.setLastModified(System.currentTimeMillis());
+        return payload;
+    }
+
+    /**
+     * @return a new, empty temporary file in the cache directory to generate
+     * a payload into; hand it to {@link #store}.
+     */
+    public File createTemporaryFile() throws IOException {
+        Files.createDirectories(directory.toPath());
+        return Files.createTempFile(directory.toPath(), "generating-", ".tmp").toFile();
+    }
+
+    /**
+     * Moves a generated payload into the cache under the key.
+     *
+     * @return the cached payload.
+     */
+    public File store(String key, File generated) throws IOException {
+        File payload = payloadFile(key);
+        Files.move(generated.toPath(), payload.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return payload;
+    }
+
+    /**
+     * Deletes the least recently used payloads until the total size is
+     * within the quota. A payload that is larger than the quota on its own
+     * is deleted as well.
+     */
+    public void evict() {
+        File[] payloads = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(SUFFIX);
+            }
+        });
+        if (payloads == null) {
+            return;
+        }
+        long total = 0;
+        for (File payload : payloads) {
+            total += payload.length();
+        }
+        Arrays.sort(payloads, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                return Long.compare(first.lastModified(), second.lastModified());
+            }
+        });
+        for (int i = 0; (i < payloads.length) && (total > quota); i++) {
+            long length = payloads[i].length();
+            if (payloads[i].delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    /**
+     * Writes a payload to the output from memory-mapped windows of the file.
+     */
+    public static void serve(File payload, WritableByteChannel output) throws IOException {
+        FileChannel channel = FileChannel.open(payload.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW_SIZE) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_WINDOW_SIZE, size - position));
+                while (window.hasRemaining()) {
+                    output.write(window);
+                }
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private File payloadFile(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+}
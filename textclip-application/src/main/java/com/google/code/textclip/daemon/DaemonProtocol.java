@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.util.Properties;
+
+/**
+ * The wire format between {@link TextClipClient} and {@link TextClipDaemon}.
+ * <p/>
+ * A request is the token of the daemon, the working directory of the
+ * client, against which the daemon resolves relative paths, and the
+ * argument count and the arguments. The daemon answers with frames: a type byte, and for data
+ * frames a length and that many bytes of the standard output or standard
+ * error of the request. The last frame carries the status code. Strings are
+ * sent as a length followed by their UTF-8 bytes.
+ * <p/>
+ * The daemon listens on the loopback interface only. Its port and token are
+ * kept in a state file that only the owner can read, so other users on the
+ * same machine cannot send requests.
+ */
+final class DaemonProtocol {
+    static final int FRAME_STATUS = 0;
+    static final int FRAME_OUT = 1;
+    static final int FRAME_ERR = 2;
+
+    static final int MAX_ARGUMENTS = 1024;
+    static final int MAX_STRING_LENGTH = 16 * 1024 * 1024;
+    /**
+     * The token is read before the client is known, so only a few bytes
+     * are accepted for it.
+     */
+    static final int MAX_TOKEN_LENGTH = 256;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String STATE_FILE_NAME = ".textclip-daemon";
+    private static final String KEY_PORT = "port";
+    private static final String KEY_TOKEN = "token";
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * @return the state file of the daemon of the current user.
+     */
+    static File defaultStateFile() {
+        return new File(System.getProperty("user.home"), STATE_FILE_NAME);
+    }
+
+    static void writeState(File stateFile, int port, String token) throws IOException {
+        Path path = stateFile.toPath();
+        Files.deleteIfExists(path);
+        try {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(path);
+        }
+        Properties state = new Properties();
+        state.setProperty(KEY_PORT, Integer.toString(port));
+        state.setProperty(KEY_TOKEN, token);
+        OutputStream output = new FileOutputStream(stateFile);
+        try {
+            state.store(output, "TextClip daemon");
+        } finally {
+            output.close();
+        }
+    }
+
+    static Properties readState(File stateFile) throws IOException {
+        Properties state = new Properties();
+        InputStream input = new FileInputStream(stateFile);
+        try {
+            state.load(input);
+        } finally {
+            input.close();
+        }
+        if (state.getProperty(KEY_PORT) == null || state.getProperty(KEY_TOKEN) == null) {
+            throw new IOException("Incomplete daemon state file " + stateFile);
+        }
+        return state;
+    }
+
+    static int getPort(Properties state) throws IOException {
+        try {
+            return Integer.parseInt(state.getProperty(KEY_PORT));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid daemon port " + state.getProperty(KEY_PORT));
+        }
+    }
+
+    static String getToken(Properties state) {
+        return state.getProperty(KEY_TOKEN);
+    }
+
+    /**
+     * Compares two tokens in a time that does not depend on their contents.
+     */
+    static boolean isSameToken(String expected, String actual) {
+        return MessageDigest.isEqual(expected.getBytes(UTF_8), actual.getBytes(UTF_8));
+    }
+
+    static void writeRequest(DataOutputStream output, String token, File directory, String[] arguments)
+            throws IOException {
+        writeString(output, token);
+        writeString(output, directory.getAbsolutePath());
+        output.writeInt(arguments.length);
+        for (String argument : arguments) {
+            writeString(output, argument);
+        }
+        output.flush();
+    }
+
+    /**
+     * Reads the token of a request.
+     */
+    static String readToken(DataInputStream input) throws IOException {
+        return readString(input, MAX_TOKEN_LENGTH);
+    }
+
+    /**
+     * Reads the working directory of a request; the token has already been
+     * read.
+     */
+    static File readDirectory(DataInputStream input) throws IOException {
+        File directory = new File(readString(input));
+        if (!directory.isAbsolute()) {
+            throw new IOException("Invalid working directory " + directory);
+        }
+        return directory;
+    }
+
+    /**
+     * Reads the arguments of a request; the token and the working directory
+     * have already been read.
+     */
+    static String[] readArguments(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            throw new IOException("Invalid argument count " + count);
+        }
+        String[] arguments = new String[count];
+        for (int i = 0; i < count; i++) {
+            arguments[i] = readString(input);
+        }
+        return arguments;
+    }
+
+    static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    static String readString(DataInputStream input) throws IOException {
+        return readString(input, MAX_STRING_LENGTH);
+    }
+
+    private static String readString(DataInputStream input, int maxLength) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > maxLength) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
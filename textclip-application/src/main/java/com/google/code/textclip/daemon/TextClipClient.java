@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.daemon;
+
+import com.google.code.textclip.TextClip;
+import com.google.code.textclip.enums.TextClipError;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Properties;
+
+/**
+ * Sends the command line to a running {@link TextClipDaemon} and replays
+ * its standard output, standard error and status code. It takes the same
+ * arguments as {@link TextClip#main(String[])}:
+ * <pre>
+ * java -cp textclip.jar com.google.code.textclip.daemon.TextClipClient -co 1000:* -o -
+ * </pre>
+ * Relative paths in the arguments are relative to the working directory
+ * of the client, as they would be without the daemon. When no daemon is
+ * running the request is processed in this JVM.
+ */
+public final class TextClipClient {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private TextClipClient() {
+    }
+
+    /**
+     * Connects to the daemon described by the state file.
+     *
+     * @return the connection, or null when no daemon is running.
+     */
+    static Socket connect(File stateFile) {
+        try {
+            Properties state = DaemonProtocol.readState(stateFile);
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), DaemonProtocol.getPort(state));
+            socket.setTcpNoDelay(true);
+            return socket;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Processes the arguments on the daemon.
+     *
+     * @return the status code of the request.
+     * @throws IOException when the daemon cannot be reached or does not
+     *                     answer completely.
+     */
+    public static int run(String[] args, File stateFile, OutputStream out, OutputStream err) throws IOException {
+        return run(args, new File(System.getProperty("user.dir")), stateFile, out, err);
+    }
+
+    /**
+     * Processes the arguments on the daemon, with relative paths relative to
+     * the given directory.
+     *
+     * @return the status code of the request.
+     * @throws IOException when the daemon cannot be reached or does not
+     *                     answer completely.
+     */
+    public static int run(String[] args, File directory, File stateFile, OutputStream out, OutputStream err)
+            throws IOException {
+        Socket socket = connect(stateFile);
+        if (socket == null) {
+            throw new IOException("No TextClip daemon is running.");
+        }
+        return request(socket, stateFile, directory, args, out, err);
+    }
+
+    /**
+     * Sends the request over the connection and closes it afterwards.
+     */
+    private static int request(Socket socket, File stateFile, File directory, String[] args, OutputStream out,
+                               OutputStream err) throws IOException {
+        try {
+            String token = DaemonProtocol.getToken(DaemonProtocol.readState(stateFile));
+            return exchange(socket, token, directory, args, out, err);
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static int exchange(Socket socket, String token, File directory, String[] args, OutputStream out,
+                                OutputStream err) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DaemonProtocol.writeRequest(output, token, directory, args);
+
+        DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (true) {
+            int type = input.readUnsignedByte();
+            if (type == DaemonProtocol.FRAME_STATUS) {
+                out.flush();
+                err.flush();
+                return input.readInt();
+            }
+            OutputStream target = (type == DaemonProtocol.FRAME_OUT) ? out : err;
+            int remaining = input.readInt();
+            while (remaining > 0) {
+                int count = Math.min(buffer.length, remaining);
+                input.readFully(buffer, 0, count);
+                target.write(buffer, 0, count);
+                remaining -= count;
+            }
+        }
+    }
+
+    /**
+     * @param args the arguments of the request; see
+     *             {@link TextClip#main(String[])}.
+     */
+    public static void main(String[] args) {
+        File stateFile = DaemonProtocol.defaultStateFile();
+        Socket socket = connect(stateFile);
+        int status;
+        if (socket == null) {
+            status = new TextClip(args).run();
+        } else {
+            try {
+                status = request(socket, stateFile, new File(System.getProperty("user.dir")), args,
+                        System.out, System.err);
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+                status = TextClipError.ERROR_WRITING_OUTPUT.toInt();
+            }
+        }
+        System.exit(status);
+    }
+}
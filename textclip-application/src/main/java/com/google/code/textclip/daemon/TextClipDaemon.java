@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.daemon;
+
+import com.google.code.textclip.TextClip;
+import com.google.code.textclip.enums.TextClipError;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps TextClip resident in one JVM and serves the requests of
+ * {@link TextClipClient}. A warm daemon skips the JVM startup, the args4j
+ * reflection and the AWT toolkit initialisation that a plain invocation
+ * of {@link TextClip#main(String[])} pays every time.
+ * <p/>
+ * Every request runs as a fresh {@link TextClip} whose standard output and
+ * standard error are sent back to the client, followed by the status code.
+ * Relative paths of a request are resolved against the working directory
+ * that the client sent. At most {@link #MAX_REQUESTS} requests run at once
+ * and {@link #MAX_WAITING_REQUESTS} more wait; further connections are
+ * closed, as are those that do not send their request in time.
+ * Start the daemon with:
+ * <pre>
+ * java -cp textclip.jar com.google.code.textclip.daemon.TextClipDaemon [port]
+ * </pre>
+ * Without a port a free one is chosen; the client finds it in the state
+ * file in the home directory of the user.
+ */
+public class TextClipDaemon implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    static final int MAX_REQUESTS = 16;
+    static final int MAX_WAITING_REQUESTS = 64;
+    /**
+     * Time in milliseconds that a client has for every read of its request.
+     */
+    static final int REQUEST_TIMEOUT = 10 * 1000;
+
+    private final ServerSocket server;
+    private final File stateFile;
+    private final String token = new BigInteger(130, new SecureRandom()).toString(32);
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_REQUESTS, MAX_REQUESTS,
+            60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(MAX_WAITING_REQUESTS), new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "TextClip daemon request");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * Binds the daemon to the loopback interface and writes its state file.
+     *
+     * @param port         the port to listen on; 0 chooses a free port.
+     * @param theStateFile receives the port and token for the clients.
+     */
+    public TextClipDaemon(final int port, final File theStateFile) throws IOException {
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.stateFile = theStateFile;
+        this.executor.allowCoreThreadTimeOut(true);
+        try {
+            DaemonProtocol.writeState(stateFile, getPort(), token);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the port the daemon listens on.
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Accepts requests until the daemon is closed.
+     */
+    public void serve() throws IOException {
+        while (!server.isClosed()) {
+            final Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketException e) {
+                if (server.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(socket);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                /* Too many requests, or closing; the client sees the connection close. */
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * Serves requests on a background thread.
+     */
+    public void start() {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    serve();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "TextClip daemon");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops accepting requests and removes the state file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            server.close();
+            executor.shutdown();
+        } finally {
+            if (!stateFile.delete() && stateFile.exists()) {
+                stateFile.deleteOnExit();
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try {
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(REQUEST_TIMEOUT);
+                DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(),
+                        BUFFER_SIZE));
+                if (!DaemonProtocol.isSameToken(token, DaemonProtocol.readToken(input))) {
+                    return;
+                }
+                File directory = DaemonProtocol.readDirectory(input);
+                String[] arguments = DaemonProtocol.readArguments(input);
+
+                PrintStream out = new PrintStream(new BufferedOutputStream(
+                        new FrameOutputStream(output, DaemonProtocol.FRAME_OUT), BUFFER_SIZE));
+                PrintStream err = new PrintStream(new BufferedOutputStream(
+                        new FrameOutputStream(output, DaemonProtocol.FRAME_ERR), BUFFER_SIZE));
+                int status = process(arguments, directory, out, err);
+                out.flush();
+                err.flush();
+                synchronized (output) {
+                    output.writeByte(DaemonProtocol.FRAME_STATUS);
+                    output.writeInt(status);
+                    output.flush();
+                }
+            } finally {
+                socket.close();
+            }
+        } catch (IOException e) {
+            /* The client went away; nothing left to answer. */
+        }
+    }
+
+    /**
+     * Runs one request. An unexpected exception of the run is reported on
+     * the standard error of the request, so the client still gets a status.
+     *
+     * @return the status code of the request.
+     */
+    int process(String[] arguments, File directory, PrintStream out, PrintStream err) {
+        try {
+            return run(arguments, directory, out, err);
+        } catch (RuntimeException e) {
+            err.println(e);
+            err.println(TextClipError.ERROR_UNEXPECTED.getMessage());
+            return TextClipError.ERROR_UNEXPECTED.toInt();
+        }
+    }
+
+    /**
+     * @return the status code of a fresh TextClip for the request.
+     */
+    int run(String[] arguments, File directory, PrintStream out, PrintStream err) {
+        return new TextClip(arguments, out, err, directory).run();
+    }
+
+    /**
+     * Runs the daemon until the JVM is stopped.
+     *
+     * @param args optionally the port to listen on.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 0;
+        final TextClipDaemon daemon = new TextClipDaemon(port, DaemonProtocol.defaultStateFile());
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    daemon.close();
+                } catch (IOException e) {
+                    /* Shutting down anyway. */
+                }
+            }
+        }));
+        System.out.println("TextClip daemon is listening on port " + daemon.getPort() + ".");
+        daemon.serve();
+    }
+}
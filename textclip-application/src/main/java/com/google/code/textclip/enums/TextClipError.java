@@ -31,7 +31,14 @@ public enum TextClipError {
     ERROR_PARSING_ARGUMENTS(1),
     ERROR_PARSING_ARGUMENT_ASCII_INT_VALUE_OUT_OF_RANGE(2),
     ERROR_PARSING_ARGUMENT_WRONG_FORMAT(3),
-    ERROR_FILESIZE(4);
+    ERROR_FILESIZE(4),
+    ERROR_WRITING_OUTPUT(5),
+    ERROR_READING_BATCH(6),
+    ERROR_BATCH_JOB_FAILED(7),
+    ERROR_UNKNOWN_ENCODING(8),
+    ERROR_UNICODE_OUT_OF_RANGE(9),
+    ERROR_UNEXPECTED(10),
+    ERROR_VALUE_OUT_OF_RANGE(11);
 
     private final int error;
 
@@ -68,6 +75,34 @@ public enum TextClipError {
                 result = "Chosen file is unreadable, has a filesize of zero or is too large.";
                 break;
 
+            case 5:
+                result = "The test string could not be written to the chosen output.";
+                break;
+
+            case 6:
+                result = "The batch manifest is unreadable.";
+                break;
+
+            case 7:
+                result = "One or more jobs of the batch failed; see the status of each job above.";
+                break;
+
+            case 8:
+                result = "The chosen encoding is unknown, e.g. use --encoding UTF-8.";
+                break;
+
+            case 9:
+                result = "The code points are out of range (1..U+10FFFF), or no text of the range has the chosen number of bytes.";
+                break;
+
+            case 10:
+                result = "An unexpected error occurred; see the message above.";
+                break;
+
+            case 11:
+                result = "The chosen value is out of range; see the message above.";
+                break;
+
             case 0:
             default:
                 result = "";
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Walker's alias method: samples an index with probability proportional to
+ * its weight in constant time, whatever the number of weights.
+ * <p/>
+ * Every index owns one column of equal probability. A column keeps its own
+ * index when a 32 bit coin is below its threshold and otherwise gives the
+ * alias; the table is built with Vose's algorithm. The threshold and the
+ * alias of a column share one long, so a sample costs one array load. One
+ * random long picks both the column, from its upper 32 bits, and the coin,
+ * from its lower 32 bits. The choice between the column and its alias is
+ * made without a branch: the coin is as unpredictable as the text.
+ */
+final class AliasTable implements SymbolSampler {
+    private static final double COIN = 1L << 32;
+    private static final long LOWER = 0xFFFFFFFFL;
+
+    /* The threshold in the upper 32 bits, the alias in the lower. */
+    private final long[] columns;
+
+    /**
+     * @param theWeights the non-negative weight of every index; the sum has
+     *                   to be positive.
+     */
+    AliasTable(final double[] theWeights) {
+        this.columns = new long[theWeights.length];
+        build(theWeights, columns);
+    }
+
+    /**
+     * Builds the columns of a table into an array; the Markov model keeps
+     * one table per context in its own buffer.
+     *
+     * @param theWeights the non-negative weight of every index; the sum has
+     *                   to be positive.
+     * @param columns    receives the column of every index.
+     */
+    static void build(final double[] theWeights, final long[] columns) {
+        int n = theWeights.length;
+        double sum = 0;
+        for (double weight : theWeights) {
+            sum += weight;
+        }
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = theWeights[i] * n / sum;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            columns[less] = ((long) (scaled[less] * COIN) << 32) | more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        /*
+         * What is left is a probability of one up to rounding errors: the
+         * column is its own alias.
+         */
+        while (largeCount > 0) {
+            int index = large[--largeCount];
+            columns[index] = (LOWER << 32) | index;
+        }
+        while (smallCount > 0) {
+            int index = small[--smallCount];
+            columns[index] = (LOWER << 32) | index;
+        }
+    }
+
+    /**
+     * @return the number of indexes.
+     */
+    int size() {
+        return columns.length;
+    }
+
+    /**
+     * @param bits a uniformly distributed random long.
+     * @return an index, distributed like the weights.
+     */
+    int sample(final long bits) {
+        int column = column(bits, columns.length);
+        return select(columns[column], column, bits);
+    }
+
+    @Override
+    public void sample(final SplittableRandom random, final int[] symbols, final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            symbols[i] = sample(random.nextLong());
+        }
+    }
+
+    @Override
+    public void sample(final SplittableRandom random, final byte[] bytes, final byte[] table,
+                       final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            bytes[i] = table[sample(random.nextLong())];
+        }
+    }
+
+    /**
+     * @return the column of a table of n indexes that the upper 32 bits
+     * pick.
+     */
+    static int column(final long bits, final int n) {
+        return (int) (((bits >>> 32) * n) >>> 32);
+    }
+
+    /**
+     * @param entry  the threshold and alias of the column.
+     * @param column the column that {@link #column(long, int)} picked.
+     * @return the column or its alias, as the lower 32 bits decide.
+     */
+    static int select(final long entry, final int column, final long bits) {
+        return select((int) (entry >>> 32), (int) entry, column, bits);
+    }
+
+    /**
+     * @param threshold the threshold of the column, an unsigned int.
+     * @param alias     the alias of the column.
+     * @param column    the column that {@link #column(long, int)} picked.
+     * @return the column or its alias, as the lower 32 bits decide.
+     */
+    static int select(final int threshold, final int alias, final int column, final long bits) {
+        int keep = (int) (((bits & LOWER) - (threshold & LOWER)) >> 63);
+        return alias ^ ((column ^ alias) & keep);
+    }
+}
@@ -26,7 +26,25 @@ package com.google.code.textclip.generators;
 
 import com.google.code.textclip.exceptions.OutOfRangeException;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Produces the characters of an ASCII range (options -a and -ch), once or
+ * repeated until a given length is reached (option -l).
+ * <p/>
+ * All ranges are sliced from one shared table of the characters 1 .. 254,
+ * which is built once and never handed out. Longer texts are filled by
+ * copying the range and then doubling the filled part with
+ * System.arraycopy until the length is reached.
+ * <p/>
+ * When the charset encodes every character of the range as one byte, the
+ * text is written to channels as bytes in the same way, without characters.
+ */
 public class AsciiGeneratorProduct implements GeneratorProduct {
+    private static final char[] TABLE = createTable();
+
     private ASCIIDataContainer container;
 
     public AsciiGeneratorProduct(final int theLowerLimit, final int theUpperLimit)
@@ -34,6 +52,15 @@ public class AsciiGeneratorProduct implements GeneratorProduct {
         container = new ASCIIDataContainer(theLowerLimit, theUpperLimit);
     }
 
+    /**
+     * Repeats the range from lower to upper limit until the text is length
+     * characters long; the last repetition may be cut off.
+     */
+    public AsciiGeneratorProduct(final int theLowerLimit, final int theUpperLimit, final int theLength)
+            throws OutOfRangeException {
+        container = new ASCIIDataContainer(theLowerLimit, theUpperLimit, theLength);
+    }
+
     public AsciiGeneratorProduct(final int character) throws OutOfRangeException {
         this(character, character);
     }
@@ -44,11 +71,80 @@ public class AsciiGeneratorProduct implements GeneratorProduct {
 
     @Override
     public String generate() {
-        String ascii = "";
-        for (int i = container.getLowerLimit(); i <= container.getUpperLimit(); i++) {
-            ascii += Character.toString((char) i);
+        if (container.getLength() <= rangeLength()) {
+            return new String(TABLE, tableOffset(), container.getLength());
         }
+        char[] buffer = new char[container.getLength()];
+        fill(buffer);
+        return new String(buffer);
+    }
 
-        return ascii;
+    /**
+     * Streams the text from a chunk that holds one chunk size plus one range
+     * of the repeated text, so every part of the text can be appended from
+     * it at the right position in the range.
+     */
+    @Override
+    public void generate(Appendable output) throws IOException {
+        int range = rangeLength();
+        int length = container.getLength();
+        char[] chunk = new char[Math.min(length, CHUNK_SIZE + range)];
+        fill(chunk);
+        int written = 0;
+        while (written < length) {
+            int count = Math.min(CHUNK_SIZE, length - written);
+            ChunkAppender.append(output, chunk, written % range, count);
+            written += count;
+        }
+    }
+
+    @Override
+    public void generate(WritableByteChannel output, Charset charset) throws IOException {
+        byte[] range = SingleByteEncoding.table(charset, container.getLowerLimit(), container.getUpperLimit());
+        if (range == null) {
+            GeneratorProduct.super.generate(output, charset);
+            return;
+        }
+        int length = container.getLength();
+        byte[] chunk = new byte[Math.min(length, OUTPUT_BUFFER_SIZE + range.length)];
+        int filled = Math.min(range.length, chunk.length);
+        System.arraycopy(range, 0, chunk, 0, filled);
+        while (filled < chunk.length) {
+            int count = Math.min(filled, chunk.length - filled);
+            System.arraycopy(chunk, 0, chunk, filled, count);
+            filled += count;
+        }
+        int written = 0;
+        while (written < length) {
+            int count = Math.min(OUTPUT_BUFFER_SIZE, length - written);
+            SingleByteEncoding.write(output, chunk, written % range.length, count);
+            written += count;
+        }
+    }
+
+    private int rangeLength() {
+        return container.getUpperLimit() - container.getLowerLimit() + 1;
+    }
+
+    private int tableOffset() {
+        return container.getLowerLimit() - ASCIIDataContainer.CONST_LOWER_LIMIT;
+    }
+
+    private void fill(char[] buffer) {
+        int filled = Math.min(rangeLength(), buffer.length);
+        System.arraycopy(TABLE, tableOffset(), buffer, 0, filled);
+        while (filled < buffer.length) {
+            int count = Math.min(filled, buffer.length - filled);
+            System.arraycopy(buffer, 0, buffer, filled, count);
+            filled += count;
+        }
+    }
+
+    private static char[] createTable() {
+        char[] table = new char[ASCIIDataContainer.CONST_UPPER_LIMIT - ASCIIDataContainer.CONST_LOWER_LIMIT + 1];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (char) (ASCIIDataContainer.CONST_LOWER_LIMIT + i);
+        }
+        return table;
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.cache.PayloadCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serves the encoded output of another product from a PayloadCache (option
+ * --cache). The first request generates the payload into the cache; later
+ * requests with the same specification and charset are copied from the
+ * memory-mapped payload. A payload that another run evicts before it is
+ * opened is generated again.
+ * <p/>
+ * Only the channel output is cached; the string and Appendable variants
+ * generate the text as usual.
+ */
+public class CachedGeneratorProduct implements GeneratorProduct {
+    private final GeneratorProduct product;
+    private final PayloadCache cache;
+    private final String specification;
+
+    /**
+     * @param theSpecification the normalized specification of the product;
+     *                         it has to determine the generated text
+     *                         completely.
+     */
+    public CachedGeneratorProduct(final GeneratorProduct theProduct, final PayloadCache theCache,
+                                  final String theSpecification) {
+        this.product = theProduct;
+        this.cache = theCache;
+        this.specification = theSpecification;
+    }
+
+    @Override
+    public String generate() throws IOException {
+        return product.generate();
+    }
+
+    @Override
+    public void generate(Appendable output) throws IOException {
+        product.generate(output);
+    }
+
+    @Override
+    public void generate(WritableByteChannel output, Charset charset) throws IOException {
+        String key = PayloadCache.key(specification + "|charset:" + charset.name());
+        File payload = cache.lookup(key);
+        if (payload != null && serve(payload, output)) {
+            return;
+        }
+        File generated = cache.createTemporaryFile();
+        try {
+            FileChannel channel = FileChannel.open(generated.toPath(), StandardOpenOption.WRITE);
+            try {
+                product.generate(channel, charset);
+            } finally {
+                channel.close();
+            }
+            payload = cache.store(key, generated);
+        } finally {
+            if (generated.exists() && !generated.delete()) {
+                generated.deleteOnExit();
+            }
+        }
+        if (!serve(payload, output)) {
+            product.generate(output, charset);
+        }
+        cache.evict();
+    }
+
+    /**
+     * Serves the payload, unless another run has evicted it since it was
+     * looked up or stored; the file is gone then, and nothing is written.
+     *
+     * @return false when the payload no longer exists.
+     */
+    private static boolean serve(File payload, WritableByteChannel output) throws IOException {
+        try {
+            PayloadCache.serve(payload, output);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the normalized specification of the cached product.
+     */
+    public String getSpecification() {
+        return specification;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts how often every character occurs in the text appended to it, to
+ * derive a frequency table from a sample (option -w with -f) or the
+ * alphabet of a Markov model.
+ */
+final class CodePointCounter extends CodePointSink {
+    private final long[] counts = new long[Character.MIN_SUPPLEMENTARY_CODE_POINT];
+    private final Map<Integer, Long> supplementary = new HashMap<Integer, Long>();
+
+    @Override
+    void codePoint(final int codePoint) {
+        if (codePoint < counts.length) {
+            counts[codePoint]++;
+        } else {
+            Long count = supplementary.get(codePoint);
+            supplementary.put(codePoint, count == null ? 1 : count + 1);
+        }
+    }
+
+    /**
+     * @return every character that occurred, except U+0000, in code point
+     * order.
+     */
+    int[] getCodePoints() {
+        int[] codePoints = new int[size()];
+        int count = 0;
+        for (int c = 1; c < counts.length; c++) {
+            if (counts[c] > 0) {
+                codePoints[count++] = c;
+            }
+        }
+        for (int codePoint : sortedSupplementary()) {
+            codePoints[count++] = codePoint;
+        }
+        return codePoints;
+    }
+
+    /**
+     * @return the number of occurrences of every character of
+     * {@link #getCodePoints()}.
+     */
+    double[] getWeights() {
+        double[] weights = new double[size()];
+        int count = 0;
+        for (int c = 1; c < counts.length; c++) {
+            if (counts[c] > 0) {
+                weights[count++] = counts[c];
+            }
+        }
+        for (int codePoint : sortedSupplementary()) {
+            weights[count++] = supplementary.get(codePoint);
+        }
+        return weights;
+    }
+
+    private int size() {
+        int size = supplementary.size();
+        for (int c = 1; c < counts.length; c++) {
+            if (counts[c] > 0) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private int[] sortedSupplementary() {
+        int[] codePoints = new int[supplementary.size()];
+        int count = 0;
+        for (int codePoint : supplementary.keySet()) {
+            codePoints[count++] = codePoint;
+        }
+        Arrays.sort(codePoints);
+        return codePoints;
+    }
+}
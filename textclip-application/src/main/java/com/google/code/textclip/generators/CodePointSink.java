@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+/**
+ * Hands the text appended to it over as code points, for the products
+ * that learn from a sample. A surrogate pair is one code point; a
+ * surrogate that is not part of a pair is left out.
+ */
+abstract class CodePointSink implements Appendable {
+    private char high = 0;
+
+    /**
+     * Receives the next code point of the text.
+     */
+    abstract void codePoint(int codePoint);
+
+    @Override
+    public CodePointSink append(final CharSequence csq) {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public CodePointSink append(final CharSequence csq, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            append(csq.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public CodePointSink append(final char c) {
+        if (Character.isLowSurrogate(c) && high != 0) {
+            codePoint(Character.toCodePoint(high, c));
+            high = 0;
+        } else if (Character.isHighSurrogate(c)) {
+            high = c;
+        } else {
+            high = 0;
+            if (!Character.isSurrogate(c)) {
+                codePoint(c);
+            }
+        }
+        return this;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+/**
+ * A counter-based random generator: the number at a counter is a hash of
+ * the key and the counter (the SplitMix64 finalizer of key plus counter
+ * times the golden gamma), so any position of a stream is computed
+ * directly, without generating the ones before it. A range of a seeded
+ * text can be generated on its own, and its blocks in any order.
+ */
+final class CounterRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private CounterRandom() {
+    }
+
+    /**
+     * @return the key of the stream of a seed; seeds that differ by a
+     * multiple of the gamma do not give shifted copies of one stream.
+     */
+    static long key(final long seed) {
+        return mix(seed);
+    }
+
+    /**
+     * @return the random long at the counter of the stream of the key.
+     */
+    static long next(final long key, final long counter) {
+        return mix(key + counter * GOLDEN_GAMMA);
+    }
+
+    /**
+     * @return a number between 0 (inclusive) and range (exclusive) from the
+     * upper 32 bits of the long at the counter. The bias is below
+     * range / 2^32, which is nothing for the ranges of one byte that
+     * the characters take.
+     */
+    static int nextInt(final long key, final long counter, final int range) {
+        return (int) (((next(key, counter) >>> 32) * range) >>> 32);
+    }
+
+    private static long mix(final long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
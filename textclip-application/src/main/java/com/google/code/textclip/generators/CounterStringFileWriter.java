@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Writes a counterstring into a file in parallel. The output is divided in
+ * blocks of one megabyte; every block is computed on its own from the
+ * position of its first character (see {@link CounterStringSequence}) and
+ * written at its own offset of the file, so the blocks are processed on all
+ * workers of the common fork-join pool in any order.
+ * <p/>
+ * Offsets in the file equal positions in the counterstring only when the
+ * digits and the character are encoded as one byte each; {@link #create}
+ * returns null for other charsets and the caller writes characters.
+ * {@link #writeSequential} writes the same bytes on one thread, for other
+ * channels and short counterstrings.
+ */
+final class CounterStringFileWriter {
+    static final int BLOCK_SIZE = 1024 * 1024;
+    private static final int BLOCKS_PER_TASK = 8;
+
+    private final CounterStringSequence sequence;
+    private final byte characterByte;
+
+    private CounterStringFileWriter(final CounterStringSequence theSequence, final byte theCharByte) {
+        this.sequence = theSequence;
+        this.characterByte = theCharByte;
+    }
+
+    /**
+     * @return a writer for the counterstring, or null when the charset does
+     * not encode the digits as ASCII and the character as a single byte.
+     */
+    static CounterStringFileWriter create(CounterStringSequence theSequence, char theChar, Charset charset) {
+        byte[] digits = SingleByteEncoding.table(charset, '0', '9');
+        byte[] character = SingleByteEncoding.table(charset, theChar, theChar);
+        if (digits == null || character == null) {
+            return null;
+        }
+        for (int i = 0; i < digits.length; i++) {
+            if (digits[i] != '0' + i) {
+                return null;
+            }
+        }
+        return new CounterStringFileWriter(theSequence, character[0]);
+    }
+
+    /**
+     * Writes the counterstring to the channel block by block on the calling
+     * thread; used for channels without positional writes and for short
+     * counterstrings.
+     */
+    void writeSequential(WritableByteChannel channel) throws IOException {
+        byte[] bytes = new byte[Math.min(GeneratorProduct.OUTPUT_BUFFER_SIZE, sequence.length())];
+        for (int start = 0; start < sequence.length(); start += bytes.length) {
+            int count = Math.min(bytes.length, sequence.length() - start);
+            sequence.getBytes(start, start + count, bytes, 0, characterByte);
+            SingleByteEncoding.write(channel, bytes, 0, count);
+        }
+    }
+
+    /**
+     * Writes the counterstring at the current position of the channel and
+     * moves the position to the end of it, like a sequential write would.
+     */
+    void write(FileChannel channel) throws IOException {
+        long base = channel.position();
+        int blocks = (int) (((long) sequence.length() + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        try {
+            ForkJoinPool.commonPool().invoke(new WriteTask(channel, base, 0, blocks));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        channel.position(base + sequence.length());
+    }
+
+    private final class WriteTask extends RecursiveAction {
+        private final FileChannel channel;
+        private final long base;
+        private final int from;
+        private final int to;
+
+        WriteTask(final FileChannel theChannel, final long theBase, final int theFrom, final int theTo) {
+            this.channel = theChannel;
+            this.base = theBase;
+            this.from = theFrom;
+            this.to = theTo;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BLOCKS_PER_TASK) {
+                try {
+                    writeBlocks();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new WriteTask(channel, base, from, middle), new WriteTask(channel, base, middle, to));
+            }
+        }
+
+        private void writeBlocks() throws IOException {
+            byte[] bytes = new byte[BLOCK_SIZE];
+            for (int block = from; block < to; block++) {
+                int start = block * BLOCK_SIZE;
+                int count = (int) Math.min(BLOCK_SIZE, (long) sequence.length() - start);
+                sequence.getBytes(start, start + count, bytes, 0, characterByte);
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, count);
+                long position = base + start;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+        }
+    }
+}
@@ -26,6 +26,12 @@ package com.google.code.textclip.generators;
 
 import com.google.code.textclip.exceptions.OutOfRangeException;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
 /**
  * Generates a string with with which the test/developer can verify the
  * maximum length of an input field.
@@ -50,37 +56,116 @@ public class CounterStringGeneratorProduct implements GeneratorProduct {
         this.length = theLength;
     }
 
+    /**
+     * Every position and character is written exactly once into a buffer of
+     * the requested length, so the generation time grows linearly with the
+     * length of the counter string.
+     */
     @Override
     public String generate() {
-        String result = Character.toString(this.character);
-        int position = 0;
-        while (position <= this.length) {
-            position = result.length() + 1;
-            result = addPosition(result, position);
-            position = result.length() + 1;
-            result = addCharacter(result, position);
+        char[] buffer = new char[this.length];
+        fill(buffer, 0, this.length, 0);
+        return new String(buffer);
+    }
+
+    /**
+     * @return the counter string as a lazy CharSequence, which computes the
+     * characters of any window without generating the ones in front of it.
+     */
+    public CounterStringSequence asCharSequence() {
+        try {
+            return new CounterStringSequence(this.character, this.length);
+        } catch (OutOfRangeException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void generate(Appendable output) throws IOException {
+        char[] chunk = new char[Math.min(CHUNK_SIZE, this.length)];
+        int written = 0;
+        while (written < this.length) {
+            int count = fill(chunk, 0, chunk.length, written);
+            ChunkAppender.append(output, chunk, 0, count);
+            written += count;
+        }
+    }
+
+    /**
+     * Writes bytes directly when the charset encodes the digits and the
+     * character as one byte each (see CounterStringFileWriter): long counter
+     * strings go into files in parallel, anything else block by block.
+     * Other charsets go through the character path.
+     */
+    @Override
+    public void generate(WritableByteChannel output, Charset charset) throws IOException {
+        CounterStringFileWriter writer = CounterStringFileWriter.create(asCharSequence(), this.character, charset);
+        if (writer == null) {
+            GeneratorProduct.super.generate(output, charset);
+        } else if ((output instanceof FileChannel) && (this.length > 4 * CounterStringFileWriter.BLOCK_SIZE)) {
+            writer.write((FileChannel) output);
+        } else {
+            writer.writeSequential(output);
+        }
+    }
+
+    /**
+     * Writes the continuation of the counter string, following the first
+     * 'written' characters, into the buffer. A number and the character
+     * after it are never split, so fewer than count characters may be
+     * written.
+     *
+     * @return the number of characters written into the buffer.
+     */
+    private int fill(char[] buffer, int offset, int count, int written) {
+        int index = offset;
+        int end = offset + Math.min(count, this.length - written);
+        if ((written == 0) && (index < end)) {
+            buffer[index++] = this.character;
+            written = 1;
+        }
+        while (index < end) {
+            int position = written + 1;
+            int digits = digitCount(position);
+            if ((position + digits) > this.length) {
+                /*
+                 * The position no longer fits (and never will again); the
+                 * remainder of the string consists of the character only.
+                 */
+                Arrays.fill(buffer, index, end, this.character);
+                index = end;
+            } else if ((end - index) > digits) {
+                writeNumber(buffer, index, position, digits);
+                index += digits;
+                buffer[index++] = this.character;
+                written += digits + 1;
+            } else {
+                break;
+            }
         }
-        return result;
+        return index - offset;
     }
 
     /**
-     * If there is still room for a single character, than add it.
+     * Writes the decimal representation of number (digits wide) into the
+     * buffer starting at offset, without creating intermediate strings.
      */
-    private String addCharacter(String result, int position) {
-        return (position <= this.length)
-                ? result + Character.toString(this.character)
-                : result;
+    private static void writeNumber(char[] buffer, int offset, int number, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + (number % 10));
+            number /= 10;
+        }
     }
 
     /**
-     * If there is still enough position in the result string left,
-     * then add position in text to the result string
+     * @return the number of decimal digits of a positive number.
      */
-    private String addPosition(String result, int position) {
-        String position_in_text = Integer.toString(position);
-        if ((position + position_in_text.length()) <= this.length) {
-            result += position_in_text;
+    private static int digitCount(int number) {
+        int digits = 1;
+        while (number >= 10) {
+            number /= 10;
+            digits++;
         }
-        return result;
+        return digits;
     }
 }
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.OutOfRangeException;
+
+import java.util.Arrays;
+
+/**
+ * A counterstring as a lazy CharSequence: every character is computed from
+ * its position, so windows of a counterstring of any length can be read
+ * without generating the characters in front of them.
+ * <p/>
+ * A counterstring starts with the character, followed by tokens: a number
+ * that equals the (1-based) position at which it starts and the character.
+ * All numbers with the same count of digits d form a segment; in a segment
+ * every token is d + 1 characters wide, so the token of a position follows
+ * from the first position of its segment with one division. The first
+ * positions of the segments are computed once; finding the segment of a
+ * position takes at most one step per digit. When a number and its
+ * character no longer fit in the length, the rest of the string is the
+ * character only.
+ */
+public class CounterStringSequence implements CharSequence {
+    /**
+     * SEGMENT_START[d] is the position of the first number with d digits.
+     */
+    private static final long[] SEGMENT_START = createSegmentStarts();
+    private static final long[] POWERS_OF_TEN = createPowersOfTen();
+
+    private final char character;
+    private final int total;
+    private final int start;
+    private final int end;
+
+    /**
+     * @param theChar   the character between the numbers.
+     * @param theLength the length of the counterstring.
+     */
+    public CounterStringSequence(final char theChar, final int theLength) throws OutOfRangeException {
+        if (theLength < 1) {
+            throw new OutOfRangeException("length value is smaller than 1");
+        }
+        this.character = theChar;
+        this.total = theLength;
+        this.start = 0;
+        this.end = theLength;
+    }
+
+    private CounterStringSequence(final CounterStringSequence theSequence, final int theStart, final int theEnd) {
+        this.character = theSequence.character;
+        this.total = theSequence.total;
+        this.start = theStart;
+        this.end = theEnd;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length());
+        }
+        long position = start + index + 1L;
+        if (position == 1) {
+            return character;
+        }
+        int digits = segmentOf(position);
+        long number = tokenOf(position, digits);
+        int digit = (int) (position - number);
+        if (number + digits > total || digit == digits) {
+            return character;
+        }
+        return (char) ('0' + (number / POWERS_OF_TEN[digits - 1 - digit]) % 10);
+    }
+
+    /**
+     * @return a view of the characters from start (inclusive) to end
+     * (exclusive); no characters are generated.
+     */
+    @Override
+    public CounterStringSequence subSequence(int theStart, int theEnd) {
+        if (theStart < 0 || theEnd > length() || theStart > theEnd) {
+            throw new IndexOutOfBoundsException("start " + theStart + ", end " + theEnd + ", length " + length());
+        }
+        return new CounterStringSequence(this, start + theStart, start + theEnd);
+    }
+
+    /**
+     * Copies the characters from srcBegin (inclusive) to srcEnd (exclusive)
+     * into the destination; see {@link #walk(int, int, int, TokenWriter)}.
+     */
+    public void getChars(int srcBegin, int srcEnd, final char[] dst, int dstBegin) {
+        walk(srcBegin, srcEnd, dstBegin, new TokenWriter() {
+            @Override
+            void digits(byte[] ascii, int from, int count, int index) {
+                for (int i = 0; i < count; i++) {
+                    dst[index + i] = (char) ascii[from + i];
+                }
+            }
+
+            @Override
+            void marker(int index) {
+                dst[index] = character;
+            }
+
+            @Override
+            void fill(int from, int to) {
+                Arrays.fill(dst, from, to, character);
+            }
+        });
+    }
+
+    /**
+     * Copies the characters from srcBegin (inclusive) to srcEnd (exclusive)
+     * into the destination as bytes: digits as ASCII and the character as
+     * the given byte. Used to write files without encoding the characters;
+     * works like {@link #getChars(int, int, char[], int)}.
+     */
+    void getBytes(int srcBegin, int srcEnd, final byte[] dst, int dstBegin, final byte characterByte) {
+        walk(srcBegin, srcEnd, dstBegin, new TokenWriter() {
+            @Override
+            void digits(byte[] ascii, int from, int count, int index) {
+                System.arraycopy(ascii, from, dst, index, count);
+            }
+
+            @Override
+            void marker(int index) {
+                dst[index] = characterByte;
+            }
+
+            @Override
+            void fill(int from, int to) {
+                Arrays.fill(dst, from, to, characterByte);
+            }
+        });
+    }
+
+    /**
+     * Walks the characters from srcBegin (inclusive) to srcEnd (exclusive)
+     * token by token after locating the first one, and hands the digits and
+     * characters to the writer at their index in the destination, starting
+     * at dstBegin. The number of the current token is kept as ASCII digits;
+     * moving to the next token adds the token width to those digits, so only
+     * the rare change of segment needs divisions.
+     */
+    private void walk(int srcBegin, int srcEnd, int dstBegin, TokenWriter writer) {
+        checkRange(srcBegin, srcEnd);
+        int index = dstBegin;
+        int stop = dstBegin + (srcEnd - srcBegin);
+        long position = start + srcBegin + 1L;
+        if (position == 1 && index < stop) {
+            writer.marker(index++);
+            position++;
+        }
+        if (index == stop) {
+            return;
+        }
+        int digits = segmentOf(position);
+        long number = tokenOf(position, digits);
+        int digit = (int) (position - number);
+        long segmentEnd = SEGMENT_START[digits + 1];
+        byte[] ascii = new byte[POWERS_OF_TEN.length];
+        render(ascii, number, digits);
+        while (index < stop) {
+            if (number + digits > total) {
+                writer.fill(index, stop);
+                return;
+            }
+            int count = Math.min(digits - digit, stop - index);
+            writer.digits(ascii, digit, count, index);
+            index += count;
+            if (index < stop) {
+                writer.marker(index++);
+            }
+            digit = 0;
+            number += digits + 1;
+            if (number >= segmentEnd) {
+                digits++;
+                segmentEnd = SEGMENT_START[digits + 1];
+                render(ascii, number, digits);
+            } else {
+                add(ascii, digits, digits + 1);
+            }
+        }
+    }
+
+    private void checkRange(int srcBegin, int srcEnd) {
+        if (srcBegin < 0 || srcEnd > length() || srcBegin > srcEnd) {
+            throw new IndexOutOfBoundsException("begin " + srcBegin + ", end " + srcEnd + ", length " + length());
+        }
+    }
+
+    /**
+     * @return the characters of this sequence as a string.
+     */
+    @Override
+    public String toString() {
+        char[] buffer = new char[length()];
+        getChars(0, buffer.length, buffer, 0);
+        return new String(buffer);
+    }
+
+    /**
+     * @return the position of the number of the token that holds the
+     * position.
+     */
+    private static long tokenOf(long position, int digits) {
+        return SEGMENT_START[digits] + ((position - SEGMENT_START[digits]) / (digits + 1)) * (digits + 1);
+    }
+
+    private static void render(byte[] ascii, long number, int digits) {
+        long remainder = number;
+        for (int i = digits - 1; i >= 0; i--) {
+            ascii[i] = (byte) ('0' + remainder % 10);
+            remainder /= 10;
+        }
+    }
+
+    /**
+     * Adds a small amount to the number in the ASCII digits; the caller
+     * guarantees that the result has the same count of digits.
+     */
+    private static void add(byte[] ascii, int digits, int amount) {
+        int carry = amount;
+        for (int i = digits - 1; carry > 0; i--) {
+            int sum = ascii[i] + carry;
+            carry = 0;
+            while (sum > '9') {
+                sum -= 10;
+                carry++;
+            }
+            ascii[i] = (byte) sum;
+        }
+    }
+
+    /**
+     * @return the number of digits of the numbers in the segment of the
+     * position (position > 1).
+     */
+    private static int segmentOf(long position) {
+        int digits = 1;
+        while (position >= SEGMENT_START[digits + 1]) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static long[] createSegmentStarts() {
+        /*
+         * Segments up to 11 digits cover every position an int length can
+         * reach; one more entry bounds the last segment.
+         */
+        long[] starts = new long[13];
+        starts[1] = 2;
+        long power = 10;
+        for (int digits = 1; digits < starts.length - 1; digits++) {
+            long count = (power - starts[digits] + digits) / (digits + 1);
+            starts[digits + 1] = starts[digits] + count * (digits + 1);
+            power *= 10;
+        }
+        return starts;
+    }
+
+    private static long[] createPowersOfTen() {
+        long[] powers = new long[12];
+        powers[0] = 1;
+        for (int i = 1; i < powers.length; i++) {
+            powers[i] = powers[i - 1] * 10;
+        }
+        return powers;
+    }
+
+    /**
+     * Stores the parts of the counterstring that {@link #walk} finds in a
+     * destination array of its own element type.
+     */
+    private abstract static class TokenWriter {
+        /**
+         * Stores count digits of the ASCII number, starting at from, at the
+         * index.
+         */
+        abstract void digits(byte[] ascii, int from, int count, int index);
+
+        /**
+         * Stores the character at the index.
+         */
+        abstract void marker(int index);
+
+        /**
+         * Stores the character from (inclusive) to (exclusive).
+         */
+        abstract void fill(int from, int to);
+    }
+}
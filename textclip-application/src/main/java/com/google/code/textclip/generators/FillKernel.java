@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+/**
+ * Fills a range of a buffer with the random characters of -ra. A kernel
+ * may compute several characters at a time, e.g. with SIMD instructions,
+ * but must give exactly the characters of ScalarFillKernel: position
+ * <code>from + j</code> gets
+ * <pre>
+ *     z = mix(key + (counter + j) * 0x9E3779B97F4A7C15L)
+ *     lower + (int) (((z &gt;&gt;&gt; 32) * range) &gt;&gt;&gt; 32)
+ * </pre>
+ * where mix is the SplitMix64 finalizer (see CounterRandom). Kernels are
+ * found with ServiceLoader; see FillKernels.
+ */
+public interface FillKernel {
+
+    /**
+     * Fills bytes from up to to with the characters from lower, each in
+     * one byte, as charsets such as ISO-8859-1 encode them.
+     *
+     * @param counter the counter of the character at from.
+     */
+    void random(byte[] bytes, int from, int to, long key, long counter, int lower, int range);
+
+    /**
+     * Fills chars from up to to with the characters from lower.
+     *
+     * @param counter the counter of the character at from.
+     */
+    void random(char[] chars, int from, int to, long key, long counter, int lower, int range);
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Holds the FillKernel that -ra uses: the first one that ServiceLoader
+ * finds on the class path, such as the Vector API kernel of the
+ * textclip-vector module, or else ScalarFillKernel. A kernel that cannot
+ * run on this JVM (e.g. without --add-modules jdk.incubator.vector) is
+ * passed over.
+ */
+public final class FillKernels {
+    private static final FillKernel KERNEL = load();
+
+    private FillKernels() {
+    }
+
+    /**
+     * @return the kernel, found once per JVM.
+     */
+    public static FillKernel get() {
+        return KERNEL;
+    }
+
+    private static FillKernel load() {
+        try {
+            Iterator<FillKernel> kernels = ServiceLoader.load(FillKernel.class, FillKernel.class.getClassLoader())
+                    .iterator();
+            while (kernels.hasNext()) {
+                try {
+                    return kernels.next();
+                } catch (ServiceConfigurationError e) {
+                    /* This kernel cannot be made here; try the next one. */
+                } catch (LinkageError e) {
+                    /* This kernel needs classes that this JVM does not have. */
+                }
+            }
+        } catch (ServiceConfigurationError e) {
+            /* The kernels cannot be listed; use the scalar one. */
+        }
+        return new ScalarFillKernel();
+    }
+}
@@ -3,52 +3,207 @@ package com.google.code.textclip.generators;
 import com.google.code.textclip.exceptions.FileSizeException;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 
 
 /**
- * Generates a string with one ASCII character indicated by character_value.
+ * Generates a string with the content of a file.
  * <p/>
- * Example:
- * .generateASCIIChar(65) returns string "A".
- *
- * @param character_value integer character value in the range from 1 up
- *                        to 254.
- * @return generated one ascii character string
+ * The file is memory-mapped in windows of a fixed size and decoded window by
+ * window, so neither the raw bytes nor the decoded text of the complete file
+ * have to be held on the heap when streaming. There is no limit on the size
+ * of the file other than the one given to the constructor. The file is
+ * decoded with the given charset (option --encoding) or else with the
+ * default charset of the platform; characters that continue in the next
+ * window, such as UTF-16 surrogate pairs, are carried over by the decoder.
+ * <p/>
+ * When the file is decoded and the output is encoded with ISO-8859-1, every
+ * byte stands for itself; the file is then copied to the channel with
+ * FileChannel.transferTo, without decoding it at all.
  */
 public class FromFileGeneratorProduct implements GeneratorProduct {
+    final static int CONST_WINDOW_SIZE = 16 * 1024 * 1024;
+
     private File fromFile;
+    private int windowSize = CONST_WINDOW_SIZE;
+    private Charset fileCharset = Charset.defaultCharset();
+    private CharsetDecoder decoder = null;
+    private CharBuffer chunk = null;
+
+    public FromFileGeneratorProduct(final File theFile, long size)
+            throws FileNotFoundException, FileSizeException {
+        this(theFile, size, Charset.defaultCharset());
+    }
 
-    public FromFileGeneratorProduct(final File theFile, int size)
+    /**
+     * @param theCharset the encoding of the file (option --encoding).
+     */
+    public FromFileGeneratorProduct(final File theFile, long size, final Charset theCharset)
             throws FileNotFoundException, FileSizeException {
         if (!theFile.exists()) {
             throw new FileNotFoundException("Could not find file (" + theFile.getName() + ").");
         }
 
         /*
-         * The file exists; proceed testing the size (0 or >=2^31)
+         * The file exists; proceed testing the size (0 or >= size)
          */
         if ((theFile.length() == 0) || (theFile.length() >= size)) {
             throw new FileSizeException(theFile);
         }
 
         this.fromFile = theFile;
+        this.fileCharset = theCharset;
     }
 
     public FromFileGeneratorProduct(final File theFile)
             throws FileNotFoundException, FileSizeException {
-        this(theFile, (int) Math.pow(2, 31));
+        this(theFile, Long.MAX_VALUE);
     }
 
+    public FromFileGeneratorProduct(final File theFile, final Charset theCharset)
+            throws FileNotFoundException, FileSizeException {
+        this(theFile, Long.MAX_VALUE, theCharset);
+    }
+
+    /**
+     * Package private; allows tests to use windows smaller than a character.
+     */
+    FromFileGeneratorProduct(final File theFile, long size, final int theWindowSize)
+            throws FileNotFoundException, FileSizeException {
+        this(theFile, size);
+        this.windowSize = theWindowSize;
+    }
 
+    /**
+     * Package private; allows tests to use small windows with multi byte
+     * encodings.
+     */
+    FromFileGeneratorProduct(final File theFile, long size, final int theWindowSize, final Charset theCharset)
+            throws FileNotFoundException, FileSizeException {
+        this(theFile, size, theCharset);
+        this.windowSize = theWindowSize;
+    }
+
+    /**
+     * Reads the complete file into one string. The file has to fit in a
+     * string; use the streaming variant for larger files. The buffer is
+     * sized from the average number of characters per byte of the encoding,
+     * so a UTF-16 file does not reserve twice the characters it holds.
+     */
     @Override
     public String generate() throws IOException {
-        FileInputStream fis = new FileInputStream(this.fromFile.toString());
-        byte[] buffer = new byte[(int) this.fromFile.length()];
-        fis.read(buffer);
-        fis.close();
-        return new String(buffer);
+        double characters = this.fromFile.length() * (double) decoder().averageCharsPerByte();
+        StringBuilder buffer = new StringBuilder((int) Math.min(characters, Integer.MAX_VALUE - 8));
+        generate(buffer);
+        return buffer.toString();
+    }
+
+    @Override
+    public void generate(WritableByteChannel output, Charset charset) throws IOException {
+        if (!isByteTransparent(charset)) {
+            GeneratorProduct.super.generate(output, charset);
+            return;
+        }
+        FileChannel channel = FileChannel.open(this.fromFile.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, output);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Decodes the file window by window into a chunk of at most
+     * {@link #CHUNK_SIZE} characters. The decoder and the chunk are created
+     * once and reused by every call, so a product is not meant to be used by
+     * several threads at the same time.
+     */
+    @Override
+    public void generate(Appendable output) throws IOException {
+        CharsetDecoder decoder = decoder().reset();
+        if (this.chunk == null) {
+            this.chunk = CharBuffer.allocate(CHUNK_SIZE);
+        }
+        CharBuffer chunk = this.chunk;
+        chunk.clear();
+
+        FileChannel channel = FileChannel.open(this.fromFile.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long window = Math.min(this.windowSize, size - position);
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, window);
+                boolean endOfInput = (position + window) == size;
+                decode(decoder, bytes, chunk, output, endOfInput);
+                /*
+                 * Bytes of a character that continues in the next window are
+                 * left in the buffer; the next window starts with them.
+                 */
+                if (!endOfInput && (bytes.position() == 0)) {
+                    throw new IOException("Window of " + window +
+                            " bytes is too small to decode a character.");
+                }
+                position += endOfInput ? window : bytes.position();
+            }
+        } finally {
+            channel.close();
+        }
+
+        while (decoder.flush(chunk).isOverflow()) {
+            drain(chunk, output);
+        }
+        drain(chunk, output);
+    }
+
+    /**
+     * Decodes the bytes into the chunk; every time the chunk is full it is
+     * handed over to the output.
+     */
+    private void decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chunk,
+                        Appendable output, boolean endOfInput) throws IOException {
+        while (decoder.decode(bytes, chunk, endOfInput).isOverflow()) {
+            drain(chunk, output);
+        }
+        drain(chunk, output);
+    }
+
+    private void drain(CharBuffer chunk, Appendable output) throws IOException {
+        if (chunk.position() > 0) {
+            ChunkAppender.append(output, chunk.array(), 0, chunk.position());
+            chunk.clear();
+        }
+    }
+
+    private CharsetDecoder decoder() {
+        if (this.decoder == null) {
+            this.decoder = this.fileCharset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        return this.decoder;
+    }
+
+    /**
+     * @return <code>true</code> if decoding the file and encoding the result
+     * with the charset gives back the bytes of the file, whatever they are.
+     */
+    private boolean isByteTransparent(Charset theCharset) {
+        return StandardCharsets.ISO_8859_1.equals(theCharset)
+                && StandardCharsets.ISO_8859_1.equals(this.fileCharset);
     }
 }
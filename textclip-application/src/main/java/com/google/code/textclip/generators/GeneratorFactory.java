@@ -24,6 +24,7 @@
  */
 package com.google.code.textclip.generators;
 
+import com.google.code.textclip.cache.PayloadCache;
 import com.google.code.textclip.exceptions.FileSizeException;
 import com.google.code.textclip.exceptions.FormatException;
 import com.google.code.textclip.exceptions.InvalidGeneratorProductException;
@@ -31,35 +32,209 @@ import com.google.code.textclip.exceptions.OutOfRangeException;
 import com.google.code.textclip.helpers.ASCIIStringArgumentParser;
 import com.google.code.textclip.helpers.ArgumentParser;
 import com.google.code.textclip.helpers.CounterStringArgumentParser;
+import com.google.code.textclip.helpers.FrequencyTableParser;
 import com.google.code.textclip.helpers.RandomStringArgumentParser;
+import com.google.code.textclip.helpers.UnicodeArgumentParser;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.SplittableRandom;
 
 public class GeneratorFactory {
     /**
-     *
+     * Part of every cache specification; raise it when a generator starts
+     * producing other output for the same options.
+     */
+    static final int CACHE_FORMAT = 2;
+    /**
+     * Creates the product for the options. An unknown --encoding results in
+     * an IllegalCharsetNameException or UnsupportedCharsetException.
      */
     public GeneratorProduct make(ArgumentParser options)
             throws OutOfRangeException, FileNotFoundException, FileSizeException, FormatException, InvalidGeneratorProductException {
+        return make(options, null);
+    }
+
+    /**
+     * Creates the product for the options, like {@link #make(ArgumentParser)},
+     * with a seed for random products when --seed is not given. Such a
+     * product renders the same text every time it generates, without being
+     * cached.
+     *
+     * @param fallbackSeed the seed of -ra, -u, -w, -mk and --template without
+     *                     --seed; null for a different text on every call,
+     *                     except with -m, whose repetitions always get one
+     *                     seed.
+     */
+    public GeneratorProduct make(ArgumentParser options, Long fallbackSeed)
+            throws OutOfRangeException, FileNotFoundException, FileSizeException, FormatException, InvalidGeneratorProductException {
+        Long seed = options.isSeed() ? Long.valueOf(options.getSeed()) : fallbackSeed;
+        if (seed == null && options.getMultiply() != 1) {
+            /*
+             * -m generates a text too long to replay again for every
+             * repetition; a pinned seed keeps the repetitions the same.
+             */
+            seed = new SplittableRandom().nextLong();
+        }
         GeneratorProduct generatorProduct;
         if (options.isAllcharacters()) {
-            generatorProduct = new AsciiGeneratorProduct();
+            generatorProduct = createAllCharactersProduct(options);
         } else if (options.isAsciiValue()) {
             generatorProduct = createASCIIProductFromInputString(options);
+        } else if (options.isWeighted()) {
+            generatorProduct = createWeightedProduct(options, seed);
+        } else if (options.isMarkov()) {
+            generatorProduct = createMarkovProduct(options, seed);
         } else if (options.isFile()) {
-            generatorProduct = new FromFileGeneratorProduct(options.getFile());
+            generatorProduct = createFromFileProduct(options);
         } else if (options.isCounterstring()) {
             generatorProduct = createCounterStringFromInputString(options);
         } else if (options.isRandom()) {
-            generatorProduct = createRandomProductFromInputString(options);
+            generatorProduct = createRandomProductFromInputString(options, seed);
+        } else if (options.isText()) {
+            generatorProduct = new TextGeneratorProduct(options.getText());
+        } else if (options.isUnicode()) {
+            UnicodeArgumentParser uap = new UnicodeArgumentParser(options.getUnicode());
+            generatorProduct = new UnicodeGeneratorProduct(uap.getLowerLimit(), uap.getUpperLimit(), uap.getLength(),
+                    seed);
+        } else if (options.isTemplate()) {
+            generatorProduct = new TemplateGeneratorProduct(options.getTemplate(), options.getRecords(),
+                    seed);
         } else {
             throw new InvalidGeneratorProductException("Specify correct option");
         }
+
+        if (options.getMultiply() != 1) {
+            generatorProduct = new RepeatedGeneratorProduct(generatorProduct, options.getMultiply());
+        }
+
+        if (options.isCache()) {
+            /* ArgumentParser.validate has checked that the quota fits in a long as bytes. */
+            long quota = options.getCacheQuota() << 20;
+            String specification = cacheSpecification(options);
+            if (specification != null) {
+                generatorProduct = new CachedGeneratorProduct(generatorProduct,
+                        new PayloadCache(options.getCache(), quota), specification);
+            }
+        }
         return generatorProduct;
     }
 
-    private GeneratorProduct createRandomProductFromInputString(ArgumentParser options) throws FormatException, OutOfRangeException {
+    /**
+     * @return the options that determine the generated text, written in
+     * one normal form (e.g. "-a" and "-ch 1:254" give the same
+     * specification), or null when the text is not determined by the
+     * options alone: random strings (-ra and -u) without a seed and files,
+     * which includes the table or sample of -w and the model or corpus of
+     * -mk.
+     * Templates are treated the same way: one with "{file:" is never cached,
+     * one with "{random:" only with a seed.
+     */
+    String cacheSpecification(ArgumentParser options) throws FormatException {
+        String specification;
+        if (options.isAllcharacters()) {
+            specification = asciiSpecification(ASCIIDataContainer.CONST_LOWER_LIMIT,
+                    ASCIIDataContainer.CONST_UPPER_LIMIT, options);
+        } else if (options.isAsciiValue()) {
+            ASCIIStringArgumentParser asap = new ASCIIStringArgumentParser(options.getAscii_value());
+            specification = asciiSpecification(asap.getLowerLimit(), asap.getUpperLimit(), options);
+        } else if (options.isCounterstring()) {
+            CounterStringArgumentParser csar = new CounterStringArgumentParser(options.getCounterstring());
+            specification = "counterstring:" + csar.getLength() + ":" + (int) csar.getCharacter();
+        } else if (options.isRandom() && options.isSeed()) {
+            RandomStringArgumentParser rsap = new RandomStringArgumentParser(options.getRandom());
+            specification = "random:" + rsap.getLowerLimit() + ":" + rsap.getUpperLimit() + ":"
+                    + rsap.getLength() + ":" + options.getSeed() + ":" + options.getOffset();
+        } else if (options.isText()) {
+            specification = "text:" + options.getText();
+        } else if (options.isUnicode() && options.isSeed()) {
+            UnicodeArgumentParser uap = new UnicodeArgumentParser(options.getUnicode());
+            specification = "unicode:" + uap.getLowerLimit() + ":" + uap.getUpperLimit() + ":"
+                    + uap.getLength() + ":" + options.getSeed();
+        } else if (options.isTemplate() && !options.getTemplate().contains("{file:")
+                && (options.isSeed() || !options.getTemplate().contains("{random:"))) {
+            specification = "template:" + options.getRecords() + ":"
+                    + (options.isSeed() ? options.getSeed() : "") + ":" + options.getTemplate();
+        } else {
+            return null;
+        }
+        return "format:" + CACHE_FORMAT + "|" + specification + "|multiply:" + options.getMultiply();
+    }
+
+    private static String asciiSpecification(int lower, int upper, ArgumentParser options) {
+        int length = options.isLength() ? options.getLength() : (upper - lower + 1);
+        return "ascii:" + lower + ":" + upper + ":" + length;
+    }
+
+    private GeneratorProduct createFromFileProduct(ArgumentParser options)
+            throws FileNotFoundException, FileSizeException {
+        if (options.isEncoding()) {
+            return new FromFileGeneratorProduct(options.getFile(), Charset.forName(options.getEncoding()));
+        }
+        return new FromFileGeneratorProduct(options.getFile());
+    }
+
+    /**
+     * The frequencies of -w come from the --table, or else are counted in
+     * the file of -f.
+     */
+    private GeneratorProduct createWeightedProduct(ArgumentParser options, Long seed)
+            throws FileNotFoundException, FileSizeException, FormatException, OutOfRangeException {
+        if (options.isTable()) {
+            FrequencyTableParser ftp = new FrequencyTableParser(options.getTable());
+            return new WeightedRandomGeneratorProduct(ftp.getCodePoints(), ftp.getWeights(),
+                    options.getWeighted(), seed);
+        }
+        if (!options.isFile()) {
+            throw new FormatException("Option -w needs a --table or a sample (-f)");
+        }
+        CodePointCounter counter = new CodePointCounter();
+        try {
+            createFromFileProduct(options).generate(counter);
+        } catch (IOException e) {
+            throw new FileSizeException(options.getFile());
+        }
+        return new WeightedRandomGeneratorProduct(counter.getCodePoints(), counter.getWeights(),
+                options.getWeighted(), seed);
+    }
+
+    /**
+     * The model of -mk is memory-mapped from the --model, or else trained on
+     * the file of -f and saved when --save-model asks for it.
+     */
+    private GeneratorProduct createMarkovProduct(ArgumentParser options, Long seed)
+            throws FileNotFoundException, FileSizeException, FormatException, OutOfRangeException {
+        if (options.isModel()) {
+            return new MarkovGeneratorProduct(MarkovModel.load(options.getModel()), options.getMarkov(), seed);
+        }
+        if (!options.isFile()) {
+            throw new FormatException("Option -mk needs a --model or a corpus (-f)");
+        }
+        GeneratorProduct corpus = createFromFileProduct(options);
+        final MarkovModel model;
+        try {
+            model = MarkovModel.train(corpus, options.getOrder());
+        } catch (IOException e) {
+            throw new FileSizeException(options.getFile());
+        }
+        if (options.isSaveModel()) {
+            try {
+                model.save(options.getSaveModel());
+            } catch (IOException e) {
+                throw new FileSizeException(options.getSaveModel());
+            }
+        }
+        return new MarkovGeneratorProduct(model, options.getMarkov(), seed);
+    }
+
+    private GeneratorProduct createRandomProductFromInputString(ArgumentParser options, Long seed)
+            throws FormatException, OutOfRangeException {
         RandomStringArgumentParser rsap = new RandomStringArgumentParser(options.getRandom());
+        if (seed != null) {
+            return new RandomGeneratorProduct(rsap.getLowerLimit(), rsap.getUpperLimit(), rsap.getLength(),
+                    seed, options.getOffset());
+        }
         return new RandomGeneratorProduct(rsap.getLowerLimit(), rsap.getUpperLimit(), rsap.getLength());
     }
 
@@ -70,8 +245,19 @@ public class GeneratorFactory {
 
     private GeneratorProduct createASCIIProductFromInputString(ArgumentParser options) throws FormatException, OutOfRangeException {
         ASCIIStringArgumentParser asap = new ASCIIStringArgumentParser(options.getAscii_value());
+        if (options.isLength()) {
+            return new AsciiGeneratorProduct(asap.getLowerLimit(), asap.getUpperLimit(), options.getLength());
+        }
         return new AsciiGeneratorProduct(asap.getLowerLimit(), asap.getUpperLimit());
     }
 
+    private GeneratorProduct createAllCharactersProduct(ArgumentParser options) throws OutOfRangeException {
+        if (options.isLength()) {
+            return new AsciiGeneratorProduct(ASCIIDataContainer.CONST_LOWER_LIMIT,
+                    ASCIIDataContainer.CONST_UPPER_LIMIT, options.getLength());
+        }
+        return new AsciiGeneratorProduct();
+    }
+
 
 }
@@ -26,11 +26,28 @@
 package com.google.code.textclip.generators;
 
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 
 /**
  * Interface of the products; functioning in the factory pattern.
  */
 public interface GeneratorProduct {
+    /**
+     * Number of characters the products hand over to an output at once when
+     * streaming.
+     */
+    public static final int CHUNK_SIZE = 8192;
+
+    /**
+     * Number of bytes collected before they are written to a channel; large
+     * writes keep the number of system calls low.
+     */
+    public static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
 
     /**
      * Generates a string with ASCII characters according to the characteristics
@@ -42,4 +59,32 @@ public interface GeneratorProduct {
      * @return generated ascii character string
      */
     public String generate() throws IOException;
+
+    /**
+     * Generates the same characters as {@link #generate()}, but pushes them
+     * into the output in chunks of at most {@link #CHUNK_SIZE} characters.
+     * The complete string is never held in memory, so the size of the
+     * generated text is not limited by the heap.
+     *
+     * @param output receives the generated characters.
+     */
+    public void generate(Appendable output) throws IOException;
+
+    /**
+     * Streams the generated characters into a channel, encoded with the
+     * given charset. Characters that cannot be encoded are replaced. The
+     * encoded bytes are written in blocks of {@link #OUTPUT_BUFFER_SIZE}.
+     *
+     * @param output  receives the encoded characters.
+     * @param charset the charset used to encode the characters.
+     */
+    public default void generate(WritableByteChannel output, Charset charset)
+            throws IOException {
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        Writer writer = Channels.newWriter(output, encoder, OUTPUT_BUFFER_SIZE);
+        generate(writer);
+        writer.flush();
+    }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.OutOfRangeException;
+
+/**
+ * Produces random text that follows the character statistics of a corpus
+ * (option -mk), with an order-k Markov model (see MarkovModel). The model
+ * is trained on the file of -f or memory-mapped from a saved model (option
+ * --model); the blocks and the byte paths are those of
+ * SymbolGeneratorProduct.
+ */
+public class MarkovGeneratorProduct extends SymbolGeneratorProduct {
+
+    /**
+     * @param theModel  the model that draws the characters.
+     * @param theLength the number of characters (code points) of the text.
+     * @param theSeed   seed of the text; null for a different text on every
+     *                  call.
+     * @throws OutOfRangeException when the length is not positive.
+     */
+    public MarkovGeneratorProduct(final MarkovModel theModel, final long theLength, final Long theSeed)
+            throws OutOfRangeException {
+        super(theModel.getAlphabet(), theModel, validate(theLength), theSeed);
+    }
+
+    private static long validate(final long theLength) throws OutOfRangeException {
+        if (theLength <= 0) {
+            throw new OutOfRangeException("length is out of range (1 .. " + Long.MAX_VALUE + ").");
+        }
+        return theLength;
+    }
+}
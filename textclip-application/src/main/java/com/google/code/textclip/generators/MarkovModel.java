@@ -0,0 +1,563 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.FileSizeException;
+import com.google.code.textclip.exceptions.FormatException;
+import com.google.code.textclip.exceptions.OutOfRangeException;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * An order-k character Markov model (option -mk): the next character
+ * depends on the k characters before it, with the frequencies of a
+ * training corpus.
+ * <p/>
+ * Every context, k characters that occur in the corpus, is a record of its
+ * transitions: the character that followed it and the record of the
+ * context that this makes. The frequencies of a record are an alias table
+ * (see AliasTable), so the next character takes one random long whatever
+ * the number of transitions. A step is a few loads from one record, mostly
+ * from one cache line; the model has no map of contexts at all. The corpus
+ * is treated as a cycle, its start following its end, so every context has
+ * a transition.
+ * <p/>
+ * A chain has to wait for every record before it can load the next one.
+ * A block of SymbolGeneratorProduct is therefore divided over a few chains
+ * that take their steps together, so the processor fetches their records
+ * at the same time. Every chain starts at a random context, from its own
+ * generator split from the one of the block.
+ * <p/>
+ * The model lives in one little-endian buffer, outside the heap: a direct
+ * buffer when it is trained, or the memory-mapped file when it is loaded.
+ * The file is the buffer as it is, so loading a model costs one pass that
+ * checks every record, after which generating needs no checks. The layout, in ints, is a header
+ * of 8 (magic, version, order, alphabet size, contexts, transitions and 2
+ * unused) followed by:
+ * <ul>
+ * <li>the alphabet, the code points of the symbols;</li>
+ * <li>the start of the record of every context;</li>
+ * <li>the records: the number of transitions, followed by the threshold,
+ * alias, symbol and next record of every transition.</li>
+ * </ul>
+ */
+public final class MarkovModel implements SymbolSampler {
+    public static final int MAX_ORDER = 16;
+
+    private static final int MAGIC = 0x314B4D54;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int CHAINS = 8;
+    private static final int TRANSITION_SIZE = 4;
+
+    private final ByteBuffer buffer;
+    private final int order;
+    private final int contexts;
+    private final int[] alphabet;
+    private final IntBuffer starts;
+    private final IntBuffer records;
+
+    private MarkovModel(final ByteBuffer theBuffer) throws FormatException {
+        ByteBuffer header = theBuffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (header.limit() < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new FormatException("Not a Markov model of this version");
+        }
+        this.order = header.getInt(8);
+        int alphabetSize = header.getInt(12);
+        this.contexts = header.getInt(16);
+        int transitionCount = header.getInt(20);
+        if (order < 1 || order > MAX_ORDER || alphabetSize < 1 || contexts < 1 || transitionCount < contexts
+                || size(alphabetSize, contexts, transitionCount) != header.limit()) {
+            throw new FormatException("The Markov model is damaged");
+        }
+        this.buffer = theBuffer;
+        int position = HEADER_SIZE;
+        this.alphabet = new int[alphabetSize];
+        view(position, 4L * alphabetSize).asIntBuffer().get(alphabet);
+        position += 4 * alphabetSize;
+        this.starts = view(position, 4L * contexts).asIntBuffer();
+        position += 4 * contexts;
+        this.records = view(position, 4L * (contexts + (long) TRANSITION_SIZE * transitionCount)).asIntBuffer();
+    }
+
+    /**
+     * Trains a model of the given order on the text of the corpus, which is
+     * generated twice: once for the alphabet and once for the transitions.
+     *
+     * @param corpus the training text, e.g. a FromFileGeneratorProduct.
+     * @param order  the number of characters that a character depends on.
+     * @throws OutOfRangeException when the order is out of range, the corpus
+     *                             is shorter than the order, or the model
+     *                             would not fit in one buffer (2 GB).
+     */
+    public static MarkovModel train(final GeneratorProduct corpus, final int order)
+            throws IOException, OutOfRangeException {
+        if (order < 1 || order > MAX_ORDER) {
+            throw new OutOfRangeException("order is out of range (1 .. " + MAX_ORDER + ").");
+        }
+        CodePointCounter counter = new CodePointCounter();
+        corpus.generate(counter);
+        int[] alphabet = counter.getCodePoints();
+        TransitionCounter transitions = new TransitionCounter(alphabet, order);
+        corpus.generate(transitions);
+        transitions.wrap();
+        return build(alphabet, order, transitions);
+    }
+
+    /**
+     * Memory-maps a model that {@link #save(File)} wrote.
+     *
+     * @throws FormatException when the file is not a model of this version,
+     *                         or a record of it is damaged.
+     */
+    public static MarkovModel load(final File theFile)
+            throws FileNotFoundException, FileSizeException, FormatException {
+        if (!theFile.exists()) {
+            throw new FileNotFoundException("Could not find file (" + theFile.getName() + ").");
+        }
+        if ((theFile.length() == 0) || (theFile.length() > Integer.MAX_VALUE)) {
+            throw new FileSizeException(theFile);
+        }
+        try {
+            FileChannel channel = FileChannel.open(theFile.toPath(), StandardOpenOption.READ);
+            try {
+                MarkovModel model = new MarkovModel(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                model.checkRecords();
+                return model;
+            } finally {
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new FileSizeException(theFile);
+        }
+    }
+
+    /**
+     * Writes the model to a file, which {@link #load(File)} maps again.
+     */
+    public void save(final File theFile) throws IOException {
+        FileChannel channel = FileChannel.open(theFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer content = buffer.duplicate();
+            content.clear();
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return the number of characters that a character depends on.
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * @return the number of contexts, the different runs of order
+     * characters in the corpus.
+     */
+    public int getContexts() {
+        return contexts;
+    }
+
+    /**
+     * @return the code points of the corpus, which the symbols index.
+     */
+    int[] getAlphabet() {
+        return alphabet;
+    }
+
+    @Override
+    public void sample(final SplittableRandom random, final int[] symbols, final int from, final int to) {
+        run(random, symbols, null, null, from, to);
+    }
+
+    @Override
+    public void sample(final SplittableRandom random, final byte[] bytes, final byte[] table,
+                       final int from, final int to) {
+        run(random, null, bytes, table, from, to);
+    }
+
+    /**
+     * Fills from up to to with CHAINS chains; chain c fills the c-th part.
+     * A step is taken by all chains at once in three rounds, each of which
+     * does one load per chain: the number of transitions, the alias column
+     * and the chosen transition. These loads miss the cache more often than
+     * not; within a round they do not wait for each other.
+     */
+    private void run(final SplittableRandom random, final int[] symbols, final byte[] bytes, final byte[] table,
+                     final int from, final int to) {
+        int length = (to - from + CHAINS - 1) / CHAINS;
+        SplittableRandom[] generators = new SplittableRandom[CHAINS];
+        int[] positions = new int[CHAINS];
+        int[] counts = new int[CHAINS];
+        for (int chain = 0; chain < CHAINS; chain++) {
+            generators[chain] = random.split();
+            positions[chain] = starts.get(generators[chain].nextInt(contexts));
+        }
+        for (int step = 0; step < length; step++) {
+            for (int chain = 0; chain < CHAINS; chain++) {
+                counts[chain] = records.get(positions[chain]);
+            }
+            for (int chain = 0; chain < CHAINS; chain++) {
+                int first = positions[chain] + 1;
+                long bits = generators[chain].nextLong();
+                int column = AliasTable.column(bits, counts[chain]);
+                int position = first + TRANSITION_SIZE * column;
+                positions[chain] = first + TRANSITION_SIZE
+                        * AliasTable.select(records.get(position), records.get(position + 1), column, bits);
+            }
+            for (int chain = 0; chain < CHAINS; chain++) {
+                int transition = positions[chain];
+                int symbol = records.get(transition + 2);
+                positions[chain] = records.get(transition + 3);
+                int i = from + chain * length + step;
+                if (i < to) {
+                    if (bytes != null) {
+                        bytes[i] = table[symbol];
+                    } else {
+                        symbols[i] = symbol;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the records follow each other in the order of their
+     * contexts and that every transition stays inside its record, the
+     * alphabet and the records, so that {@link #run} cannot read outside
+     * the buffer.
+     *
+     * @throws FormatException when a record is damaged.
+     */
+    private void checkRecords() throws FormatException {
+        int[] recordStarts = new int[contexts];
+        starts.duplicate().get(recordStarts);
+        int limit = records.limit();
+        int position = 0;
+        for (int context = 0; context < contexts; context++) {
+            if (recordStarts[context] != position) {
+                throw new FormatException("The Markov model is damaged");
+            }
+            int count = records.get(position);
+            if (count < 1 || count > (limit - position - 1) / TRANSITION_SIZE) {
+                throw new FormatException("The Markov model is damaged");
+            }
+            int transition = position + 1;
+            for (int column = 0; column < count; column++, transition += TRANSITION_SIZE) {
+                int alias = records.get(transition + 1);
+                int symbol = records.get(transition + 2);
+                int next = records.get(transition + 3);
+                if (alias < 0 || alias >= count || symbol < 0 || symbol >= alphabet.length
+                        || Arrays.binarySearch(recordStarts, next) < 0) {
+                    throw new FormatException("The Markov model is damaged");
+                }
+            }
+            position = transition;
+        }
+        if (position != limit) {
+            throw new FormatException("The Markov model is damaged");
+        }
+    }
+
+    private ByteBuffer view(final int position, final long length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.limit((int) (position + length));
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long size(final int alphabetSize, final int contextCount, final int transitionCount) {
+        return HEADER_SIZE + 4L * alphabetSize + 8L * contextCount + 4L * TRANSITION_SIZE * transitionCount;
+    }
+
+    /**
+     * Lays the counted transitions out in a new direct buffer.
+     */
+    private static MarkovModel build(final int[] alphabet, final int order, final TransitionCounter counter)
+            throws OutOfRangeException {
+        long[] keys = counter.keys();
+        long base = alphabet.length;
+        LongIntTable contextIndexes = new LongIntTable();
+        for (long key : keys) {
+            long context = key / base;
+            if (contextIndexes.get(context) < 0) {
+                contextIndexes.put(context, contextIndexes.size());
+            }
+        }
+        int contextCount = contextIndexes.size();
+        long size = size(alphabet.length, contextCount, keys.length);
+        if (size > Integer.MAX_VALUE) {
+            throw new OutOfRangeException("the model is larger than 2 GB; use a lower order.");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, order).putInt(12, alphabet.length)
+                .putInt(16, contextCount).putInt(20, keys.length);
+        for (int symbol = 0; symbol < alphabet.length; symbol++) {
+            buffer.putInt(HEADER_SIZE + 4 * symbol, alphabet[symbol]);
+        }
+        final MarkovModel model;
+        try {
+            model = new MarkovModel(buffer);
+        } catch (FormatException e) {
+            throw new IllegalStateException(e);
+        }
+
+        /*
+         * The keys are sorted, so the transitions of a context are one run
+         * and the contexts are numbered in the order of their runs; the
+         * record of a context starts after those of the contexts before it.
+         */
+        int[] recordStarts = new int[contextCount];
+        int context = -1;
+        for (int transition = 0; transition < keys.length; transition++) {
+            if (transition == 0 || keys[transition] / base != keys[transition - 1] / base) {
+                context++;
+                recordStarts[context] = context + TRANSITION_SIZE * transition;
+                model.starts.put(context, recordStarts[context]);
+            }
+        }
+        long prefix = counter.prefix();
+        int first = 0;
+        for (int transition = 1; transition <= keys.length; transition++) {
+            if (transition < keys.length && keys[transition] / base == keys[first] / base) {
+                continue;
+            }
+            int record = recordStarts[contextIndexes.get(keys[first] / base)];
+            double[] weights = new double[transition - first];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = counter.count(keys[first + i]);
+            }
+            long[] columns = new long[weights.length];
+            AliasTable.build(weights, columns);
+            model.records.put(record, weights.length);
+            for (int i = 0; i < weights.length; i++) {
+                long key = keys[first + i];
+                int symbol = (int) (key % base);
+                long nextContext = ((key / base) % prefix) * base + symbol;
+                int position = record + 1 + TRANSITION_SIZE * i;
+                model.records.put(position, (int) (columns[i] >>> 32));
+                model.records.put(position + 1, (int) columns[i]);
+                model.records.put(position + 2, symbol);
+                model.records.put(position + 3, recordStarts[contextIndexes.get(nextContext)]);
+            }
+            first = transition;
+        }
+        return model;
+    }
+
+    /**
+     * Counts every transition of the corpus by its key: the context, as a
+     * number with the symbols as digits, followed by the next symbol.
+     */
+    private static final class TransitionCounter extends CodePointSink {
+        private final int[] alphabet;
+        private final int[] bmpSymbols = new int[Character.MIN_SUPPLEMENTARY_CODE_POINT];
+        private final int order;
+        private final long base;
+        private final long prefix;
+        private final int[] first;
+        private final LongIntTable counts = new LongIntTable();
+        private long context = 0;
+        private long seen = 0;
+
+        TransitionCounter(final int[] theAlphabet, final int theOrder) throws OutOfRangeException {
+            this.alphabet = theAlphabet;
+            this.order = theOrder;
+            this.base = theAlphabet.length;
+            this.first = new int[theOrder];
+            Arrays.fill(bmpSymbols, -1);
+            for (int symbol = 0; symbol < theAlphabet.length; symbol++) {
+                if (theAlphabet[symbol] < bmpSymbols.length) {
+                    bmpSymbols[theAlphabet[symbol]] = symbol;
+                }
+            }
+            /*
+             * The key of a transition has order + 1 digits; it has to fit in
+             * a long.
+             */
+            long power = 1;
+            for (int i = 0; i < theOrder; i++) {
+                if (base > 1 && power > Long.MAX_VALUE / base / base) {
+                    throw new OutOfRangeException("the order is too high for the " + base + " characters of the corpus.");
+                }
+                power *= base;
+            }
+            this.prefix = power / Math.max(1, base);
+        }
+
+        @Override
+        void codePoint(final int codePoint) {
+            int symbol = codePoint < bmpSymbols.length
+                    ? bmpSymbols[codePoint]
+                    : Arrays.binarySearch(alphabet, codePoint);
+            if (symbol >= 0) {
+                add(symbol);
+            }
+        }
+
+        private void add(final int symbol) {
+            if (seen < order) {
+                first[(int) seen] = symbol;
+            } else {
+                counts.increment(context * base + symbol);
+            }
+            context = (context % prefix) * base + symbol;
+            seen++;
+        }
+
+        /**
+         * Lets the start of the corpus follow its end.
+         */
+        void wrap() throws OutOfRangeException {
+            if (seen < order) {
+                throw new OutOfRangeException("the corpus is shorter than the order.");
+            }
+            for (int symbol : first) {
+                add(symbol);
+            }
+        }
+
+        long prefix() {
+            return prefix;
+        }
+
+        long[] keys() {
+            long[] keys = counts.keys();
+            Arrays.sort(keys);
+            return keys;
+        }
+
+        int count(final long key) {
+            return counts.get(key);
+        }
+    }
+
+    /**
+     * Maps non-negative longs to ints with open addressing, without boxing.
+     */
+    private static final class LongIntTable {
+        private long[] keys = newKeys(1024);
+        private int[] values = new int[1024];
+        private int size = 0;
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return the value of the key, or -1 when it has none.
+         */
+        int get(final long key) {
+            int slot = slot(keys, key);
+            return keys[slot] == key ? values[slot] : -1;
+        }
+
+        void put(final long key, final int value) {
+            int slot = slot(keys, key);
+            if (keys[slot] != key) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+            grow();
+        }
+
+        /**
+         * Adds one to the value of the key, which starts at 0; the value
+         * stops at Integer.MAX_VALUE.
+         */
+        void increment(final long key) {
+            int slot = slot(keys, key);
+            if (keys[slot] != key) {
+                keys[slot] = key;
+                values[slot] = 1;
+                size++;
+                grow();
+            } else if (values[slot] < Integer.MAX_VALUE) {
+                values[slot]++;
+            }
+        }
+
+        long[] keys() {
+            long[] result = new long[size];
+            int count = 0;
+            for (long key : keys) {
+                if (key >= 0) {
+                    result[count++] = key;
+                }
+            }
+            return result;
+        }
+
+        private void grow() {
+            if (2 * size <= keys.length) {
+                return;
+            }
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = newKeys(2 * oldKeys.length);
+            values = new int[2 * oldKeys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] >= 0) {
+                    int slot = slot(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static long[] newKeys(final int length) {
+            long[] keys = new long[length];
+            Arrays.fill(keys, -1L);
+            return keys;
+        }
+
+        private static int slot(final long[] keys, final long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            int mask = keys.length - 1;
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            while (keys[slot] != key && keys[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fills a buffer with random characters, block by block, on a fork-join
+ * pool. Block <i>i</i> starts at <code>i * BLOCK_SIZE</code>. The character
+ * at position <i>p</i> of the buffer is the number of the CounterRandom key
+ * at counter <code>offset + p</code>, so the result does not depend on
+ * which thread fills which block.
+ * <p/>
+ * The buffer is either a char array or a byte array with a table that holds
+ * the encoded byte of every character of the range; both draw the same
+ * random numbers. Char arrays, and byte arrays without a table, are filled
+ * by the FillKernel of FillKernels.
+ */
+final class RandomFillTask extends RecursiveAction {
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private final char[] buffer;
+    private final byte[] bytes;
+    private final byte[] table;
+    private final int count;
+    private final long key;
+    private final long offset;
+    private final int lowerLimit;
+    private final int range;
+    private final int from;
+    private final int to;
+
+    /**
+     * @param theKey    the CounterRandom key of the text.
+     * @param theOffset the position in the text of the first character of
+     *                  the buffer.
+     */
+    RandomFillTask(final char[] theBuffer, final int theCount, final long theKey, final long theOffset,
+                   final int theLowerLimit, final int theRange) {
+        this(theBuffer, null, null, theCount, theKey, theOffset, theLowerLimit, theRange, 0, blockCount(theCount));
+    }
+
+    /**
+     * @param theTable the encoded byte of every character of the range,
+     *                 starting with the lower limit; null when every
+     *                 character is encoded as its own number.
+     */
+    RandomFillTask(final byte[] theBuffer, final byte[] theTable, final int theCount, final long theKey,
+                   final long theOffset, final int theLowerLimit, final int theRange) {
+        this(null, theBuffer, theTable, theCount, theKey, theOffset, theLowerLimit, theRange, 0,
+                blockCount(theCount));
+    }
+
+    private RandomFillTask(final char[] theBuffer, final byte[] theBytes, final byte[] theTable, final int theCount,
+                           final long theKey, final long theOffset, final int theLowerLimit, final int theRange,
+                           final int theFrom, final int theTo) {
+        this.buffer = theBuffer;
+        this.bytes = theBytes;
+        this.table = theTable;
+        this.count = theCount;
+        this.key = theKey;
+        this.offset = theOffset;
+        this.lowerLimit = theLowerLimit;
+        this.range = theRange;
+        this.from = theFrom;
+        this.to = theTo;
+    }
+
+    /**
+     * @return the number of blocks needed for <code>count</code> characters
+     */
+    static int blockCount(final int count) {
+        return (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from == 1) {
+            fillBlock(from);
+        } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(new RandomFillTask(buffer, bytes, table, count, key, offset, lowerLimit, range, from, middle),
+                    new RandomFillTask(buffer, bytes, table, count, key, offset, lowerLimit, range, middle, to));
+        }
+    }
+
+    private void fillBlock(final int block) {
+        int start = block * BLOCK_SIZE;
+        int end = Math.min(count, start + BLOCK_SIZE);
+        if (bytes == null) {
+            FillKernels.get().random(buffer, start, end, key, offset + start, lowerLimit, range);
+        } else if (table == null) {
+            FillKernels.get().random(bytes, start, end, key, offset + start, lowerLimit, range);
+        } else {
+            for (int i = start; i < end; i++) {
+                bytes[i] = table[CounterRandom.nextInt(key, offset + i, range)];
+            }
+        }
+    }
+}
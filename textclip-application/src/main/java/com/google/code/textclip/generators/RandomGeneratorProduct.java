@@ -27,29 +27,172 @@ package com.google.code.textclip.generators;
 import com.google.code.textclip.exceptions.OutOfRangeException;
 
 import java.io.IOException;
-import java.util.Random;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+/**
+ * Produces a string of random characters between a lower and upper limit
+ * (option -ra).
+ * <p/>
+ * The character at position <i>p</i> of the text is drawn from the number
+ * at counter <code>offset + p</code> of a CounterRandom stream, whose key is
+ * the seed (option --seed) or, without a seed, a new random number on every
+ * call. With a seed the output is therefore the same on every run, whatever
+ * the number of cores, and for both generate methods; and with an offset
+ * (option --offset) the product gives any range of that text on its own,
+ * so a huge text can be generated in parts by different workers and any
+ * part regenerated later.
+ * <p/>
+ * The text is divided in blocks of 64K characters that are filled in
+ * parallel on the common fork-join pool. When the charset encodes every
+ * character of the range as one byte, the blocks are filled with those
+ * bytes directly; the random numbers, and so the text, are the same as on
+ * the character path. The blocks are filled by the FillKernel of
+ * FillKernels, which may be a SIMD kernel of the textclip-vector module.
+ */
 public class RandomGeneratorProduct implements GeneratorProduct {
     private ASCIIDataContainer container;
+    private Long seed = null;
+    private long offset = 0;
 
     public RandomGeneratorProduct(final int lower_limit, final int upper_limit, final int length)
             throws OutOfRangeException {
         container = new ASCIIDataContainer(lower_limit, upper_limit, length);
     }
 
+    public RandomGeneratorProduct(final int lower_limit, final int upper_limit, final int length,
+                                  final long theSeed)
+            throws OutOfRangeException {
+        this(lower_limit, upper_limit, length);
+        this.seed = theSeed;
+    }
+
+    /**
+     * @param theOffset the position, in the text of the seed, of the first
+     *                  character; the product gives the characters
+     *                  theOffset up to theOffset + length of that text.
+     * @throws OutOfRangeException when the offset is negative.
+     */
+    public RandomGeneratorProduct(final int lower_limit, final int upper_limit, final int length,
+                                  final long theSeed, final long theOffset)
+            throws OutOfRangeException {
+        this(lower_limit, upper_limit, length, theSeed);
+        if (theOffset < 0) {
+            throw new OutOfRangeException("offset is out of range (0 .. " + Long.MAX_VALUE + ").");
+        }
+        this.offset = theOffset;
+    }
+
     public RandomGeneratorProduct(final int length) throws OutOfRangeException {
         container = new ASCIIDataContainer(length);
     }
 
     @Override
     public String generate() throws IOException {
-        StringBuilder buffer = new StringBuilder(container.getLength());
-        Random rand = new Random();
-        for (int i = 0; i < container.getLength(); i++) {
-            int randomNum = rand.nextInt((container.getUpperLimit() - container.getLowerLimit()) + 1) + container.getLowerLimit();
-            buffer.append((char) randomNum);
+        char[] buffer = new char[container.getLength()];
+        fill(buffer, buffer.length, newKey(), offset);
+        return new String(buffer);
+    }
+
+    /**
+     * Fills a batch of blocks at a time, large enough to keep every worker
+     * of the pool busy, and appends the batch to the output.
+     */
+    @Override
+    public void generate(Appendable output) throws IOException {
+        long key = newKey();
+        long position = offset;
+        char[] batch = new char[batchSize()];
+        int remaining = container.getLength();
+        while (remaining > 0) {
+            int count = Math.min(batch.length, remaining);
+            fill(batch, count, key, position);
+            ChunkAppender.append(output, batch, 0, count);
+            position += count;
+            remaining -= count;
+        }
+    }
+
+    @Override
+    public void generate(WritableByteChannel output, Charset charset) throws IOException {
+        byte[] table = SingleByteEncoding.table(charset, container.getLowerLimit(), container.getUpperLimit());
+        if (table == null) {
+            GeneratorProduct.super.generate(output, charset);
+            return;
+        }
+        if (isOwnNumbers(table, container.getLowerLimit())) {
+            table = null;
+        }
+        long key = newKey();
+        long position = offset;
+        byte[] batch = new byte[batchSize()];
+        int remaining = container.getLength();
+        while (remaining > 0) {
+            int count = Math.min(batch.length, remaining);
+            run(new RandomFillTask(batch, table, count, key, position, container.getLowerLimit(), rangeLength()),
+                    RandomFillTask.blockCount(count));
+            SingleByteEncoding.write(output, batch, 0, count);
+            position += count;
+            remaining -= count;
         }
+    }
+
+    private int batchSize() {
+        return batchSize(container.getLength());
+    }
+
+    /**
+     * @return the number of characters filled at a time: enough blocks to
+     * keep every worker of the pool busy, but no more than length.
+     */
+    static int batchSize(final long length) {
+        int batchBlocks = 4 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        return (int) Math.min(length, (long) batchBlocks * RandomFillTask.BLOCK_SIZE);
+    }
 
-        return buffer.toString();
+    /**
+     * @return true when the table encodes every character as its own
+     * number, e.g. for ISO-8859-1, so the kernel can write the numbers.
+     */
+    private static boolean isOwnNumbers(final byte[] table, final int lower) {
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != (byte) (lower + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int rangeLength() {
+        return (container.getUpperLimit() - container.getLowerLimit()) + 1;
+    }
+
+    /**
+     * @return the character at a position of the text of the seed, which
+     * the product gives at position - offset, computed on its own. Without
+     * a seed every call draws a new character.
+     */
+    public char charAt(final long position) {
+        return (char) (CounterRandom.nextInt(newKey(), position, rangeLength()) + container.getLowerLimit());
+    }
+
+    private long newKey() {
+        return seed == null ? new SplittableRandom().nextLong() : CounterRandom.key(seed);
+    }
+
+    private void fill(final char[] buffer, final int count, final long key, final long position) {
+        run(new RandomFillTask(buffer, count, key, position, container.getLowerLimit(), rangeLength()),
+                RandomFillTask.blockCount(count));
+    }
+
+    static void run(final RecursiveAction task, final int blocks) {
+        if (blocks == 1) {
+            task.invoke();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
     }
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.OutOfRangeException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Repeats the text of another product a number of times (option -m).
+ * <p/>
+ * When streaming, the text of the repeated product is generated once and
+ * kept while it is written; the other repetitions are replayed from that
+ * copy. Multiplying a 1 MB file 10,000 times therefore keeps about 1 MB on
+ * the heap. A text longer than {@link #REPLAY_LIMIT} characters is not kept;
+ * the repeated product generates it again for every repetition instead, so
+ * it must render the same text every time; {@link GeneratorFactory} gives
+ * random products a seed for that.
+ */
+public class RepeatedGeneratorProduct implements GeneratorProduct {
+    /**
+     * Maximum number of characters of the repeated text kept for replay.
+     */
+    static final int REPLAY_LIMIT = 16 * 1024 * 1024;
+
+    private GeneratorProduct product;
+    private long times = 1;
+
+    public RepeatedGeneratorProduct(final GeneratorProduct theProduct, final long theTimes)
+            throws OutOfRangeException {
+        if (theTimes < 1) {
+            throw new OutOfRangeException("multiply factor is smaller than 1");
+        }
+        this.product = theProduct;
+        this.times = theTimes;
+    }
+
+    /**
+     * Builds the repeated text as one string; fails with an IOException when
+     * the result does not fit in a string. Use the streaming variant for
+     * those sizes.
+     */
+    @Override
+    public String generate() throws IOException {
+        String text = this.product.generate();
+        if (text.isEmpty()) {
+            return text;
+        }
+        if (this.times > (Integer.MAX_VALUE - 8) / text.length()) {
+            throw new IOException("Repeated text (" + text.length() + " characters " + this.times +
+                    " times) is too large for a string.");
+        }
+        long total = text.length() * this.times;
+
+        /*
+         * Copy the text once and then double the filled part until the
+         * buffer is full; every copy is a bulk array copy.
+         */
+        char[] buffer = new char[(int) total];
+        text.getChars(0, text.length(), buffer, 0);
+        int filled = text.length();
+        while (filled < buffer.length) {
+            int count = Math.min(filled, buffer.length - filled);
+            System.arraycopy(buffer, 0, buffer, filled, count);
+            filled += count;
+        }
+        return new String(buffer);
+    }
+
+    @Override
+    public void generate(Appendable output) throws IOException {
+        ReplayWriter first = new ReplayWriter(output, REPLAY_LIMIT);
+        this.product.generate(first);
+        for (long i = 1; i < this.times; i++) {
+            if (first.isKept()) {
+                first.replay(output);
+            } else {
+                this.product.generate(output);
+            }
+        }
+    }
+
+    /**
+     * Passes the characters on to the output and keeps a copy of them, as
+     * long as they fit within the limit.
+     */
+    private static final class ReplayWriter extends Writer {
+        private final Appendable output;
+        private final int limit;
+        private char[] kept = new char[CHUNK_SIZE];
+        private int length = 0;
+
+        ReplayWriter(Appendable theOutput, int theLimit) {
+            this.output = theOutput;
+            this.limit = theLimit;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int count) throws IOException {
+            ChunkAppender.append(output, buffer, offset, count);
+            if (kept == null) {
+                return;
+            }
+            if (count > limit - length) {
+                kept = null;
+                return;
+            }
+            if (length + count > kept.length) {
+                kept = Arrays.copyOf(kept, (int) Math.min(limit, Math.max(2L * kept.length, length + count)));
+            }
+            System.arraycopy(buffer, offset, kept, length, count);
+            length += count;
+        }
+
+        /**
+         * @return true when every character written so far is kept.
+         */
+        boolean isKept() {
+            return kept != null;
+        }
+
+        /**
+         * Writes the kept characters to the output again.
+         */
+        void replay(Appendable target) throws IOException {
+            for (int offset = 0; offset < length; offset += CHUNK_SIZE) {
+                ChunkAppender.append(target, kept, offset, Math.min(CHUNK_SIZE, length - offset));
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip.generators;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Supports the byte path of the products: when every character of a range
+ * is encoded as exactly one byte, the product writes those bytes straight
+ * into a byte array instead of generating characters and encoding them.
+ * <p/>
+ * The table is built with the same encoder settings as the character path
+ * (unmappable characters are replaced), so both paths write the same bytes.
+ * ISO-8859-1 qualifies for the complete range 1 .. 254; ASCII compatible
+ * charsets such as UTF-8 qualify for ranges below 128.
+ */
+final class SingleByteEncoding {
+
+    private SingleByteEncoding() {
+    }
+
+    /**
+     * @return the encoded byte of every character from lower up to and
+     * including upper (index 0 holds the byte of lower), or null when one
+     * of them is not encoded as exactly one byte.
+     */
+    static byte[] table(final Charset charset, final int lower, final int upper) {
+        final CharsetEncoder encoder;
+        try {
+            encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+        byte[] table = new byte[upper - lower + 1];
+        char[] character = new char[1];
+        for (int i = 0; i < table.length; i++) {
+            character[0] = (char) (lower + i);
+            try {
+                ByteBuffer encoded = encoder.encode(CharBuffer.wrap(character));
+                if (encoded.remaining() != 1) {
+                    return null;
+                }
+                table[i] = encoded.get();
+            } catch (CharacterCodingException e) {
+                return null;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return the encoded byte of every code point of the array, in the
+     * same order, or null when one of them is not encoded as exactly one
+     * byte.
+     */
+    static byte[] table(final Charset charset, final int[] codePoints) {
+        final CharsetEncoder encoder;
+        try {
+            encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+        byte[] table = new byte[codePoints.length];
+        for (int i = 0; i < table.length; i++) {
+            try {
+                ByteBuffer encoded = encoder.encode(CharBuffer.wrap(Character.toChars(codePoints[i])));
+                if (encoded.remaining() != 1) {
+                    return null;
+                }
+                table[i] = encoded.get();
+            } catch (CharacterCodingException e) {
+                return null;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Writes count bytes of the array, starting at offset, to the channel.
+     */
+    static void write(final WritableByteChannel channel, final byte[] bytes, final int offset, final int count)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, count);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fills a buffer with the symbols of a sampler, block by block, on a
+ * fork-join pool; the blocks are those of RandomFillTask, and every block
+ * is filled from its own generator.
+ * <p/>
+ * The buffer is either an int array that receives the index of every
+ * symbol, or a byte array with a table that holds the encoded byte of every
+ * symbol.
+ */
+final class SymbolFillTask extends RecursiveAction {
+    private final int[] symbols;
+    private final byte[] bytes;
+    private final byte[] table;
+    private final int count;
+    private final SplittableRandom[] generators;
+    private final SymbolSampler sampler;
+    private final int from;
+    private final int to;
+
+    SymbolFillTask(final int[] theSymbols, final int theCount, final SplittableRandom[] theGenerators,
+                   final SymbolSampler theSampler) {
+        this(theSymbols, null, null, theCount, theGenerators, theSampler, 0, theGenerators.length);
+    }
+
+    /**
+     * @param theTable the encoded byte of every symbol.
+     */
+    SymbolFillTask(final byte[] theBuffer, final byte[] theTable, final int theCount,
+                   final SplittableRandom[] theGenerators, final SymbolSampler theSampler) {
+        this(null, theBuffer, theTable, theCount, theGenerators, theSampler, 0, theGenerators.length);
+    }
+
+    private SymbolFillTask(final int[] theSymbols, final byte[] theBytes, final byte[] theTable,
+                           final int theCount, final SplittableRandom[] theGenerators,
+                           final SymbolSampler theSampler, final int theFrom, final int theTo) {
+        this.symbols = theSymbols;
+        this.bytes = theBytes;
+        this.table = theTable;
+        this.count = theCount;
+        this.generators = theGenerators;
+        this.sampler = theSampler;
+        this.from = theFrom;
+        this.to = theTo;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from == 1) {
+            fillBlock(from);
+        } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(new SymbolFillTask(symbols, bytes, table, count, generators, sampler, from, middle),
+                    new SymbolFillTask(symbols, bytes, table, count, generators, sampler, middle, to));
+        }
+    }
+
+    private void fillBlock(final int block) {
+        int start = block * RandomFillTask.BLOCK_SIZE;
+        int end = Math.min(count, start + RandomFillTask.BLOCK_SIZE);
+        if (bytes != null) {
+            sampler.sample(generators[block], bytes, table, start, end);
+        } else {
+            sampler.sample(generators[block], symbols, start, end);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * Produces text from a table of code points and a sampler that draws
+ * indexes into it: the weighted random characters of -w and the Markov
+ * chains of -mk.
+ * <p/>
+ * The blocks are those of RandomGeneratorProduct: they are filled in
+ * parallel, every block from its own generator, so with a seed (option
+ * --seed) the output is the same on every run and for every generate
+ * method.
+ * <p/>
+ * When the charset encodes every code point of the table as one byte, the
+ * blocks are filled with those bytes directly. For UTF-8 the blocks hold
+ * the index of every character, which is then encoded straight into the
+ * output buffer. Other charsets encode the characters of
+ * {@link #generate(Appendable)}.
+ */
+public abstract class SymbolGeneratorProduct implements GeneratorProduct {
+    private final int[] codePoints;
+    private final SymbolSampler sampler;
+    private final long length;
+    private final Long seed;
+
+    /**
+     * @param theCodePoints the code points the sampler draws from.
+     * @param theLength     the number of characters (code points) of the text.
+     * @param theSeed       seed of the text; null for a different text on
+     *                      every call.
+     */
+    SymbolGeneratorProduct(final int[] theCodePoints, final SymbolSampler theSampler, final long theLength,
+                           final Long theSeed) {
+        this.codePoints = theCodePoints;
+        this.sampler = theSampler;
+        this.length = theLength;
+        this.seed = theSeed;
+    }
+
+    @Override
+    public String generate() throws IOException {
+        StringBuilder builder = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+        generate(builder);
+        return builder.toString();
+    }
+
+    @Override
+    public void generate(Appendable output) throws IOException {
+        SplittableRandom root = newRoot();
+        int[] batch = new int[RandomGeneratorProduct.batchSize(length)];
+        char[] chunk = new char[CHUNK_SIZE];
+        int position = 0;
+        long remaining = length;
+        while (remaining > 0) {
+            int count = (int) Math.min(batch.length, remaining);
+            fill(batch, count, root);
+            for (int i = 0; i < count; i++) {
+                if (position > chunk.length - 2) {
+                    ChunkAppender.append(output, chunk, 0, position);
+                    position = 0;
+                }
+                int codePoint = codePoints[batch[i]];
+                if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                    chunk[position++] = (char) codePoint;
+                } else {
+                    position += Character.toChars(codePoint, chunk, position);
+                }
+            }
+            remaining -= count;
+        }
+        ChunkAppender.append(output, chunk, 0, position);
+    }
+
+    @Override
+    public void generate(WritableByteChannel output, Charset charset) throws IOException {
+        byte[] table = SingleByteEncoding.table(charset, codePoints);
+        if (table != null) {
+            generateBytes(output, table);
+        } else if (StandardCharsets.UTF_8.equals(charset)) {
+            generateUtf8(output);
+        } else {
+            GeneratorProduct.super.generate(output, charset);
+        }
+    }
+
+    private void generateBytes(final WritableByteChannel output, final byte[] table) throws IOException {
+        SplittableRandom root = newRoot();
+        byte[] batch = new byte[RandomGeneratorProduct.batchSize(length)];
+        long remaining = length;
+        while (remaining > 0) {
+            int count = (int) Math.min(batch.length, remaining);
+            SplittableRandom[] generators = split(root, count);
+            RandomGeneratorProduct.run(new SymbolFillTask(batch, table, count, generators, sampler),
+                    generators.length);
+            SingleByteEncoding.write(output, batch, 0, count);
+            remaining -= count;
+        }
+    }
+
+    private void generateUtf8(final WritableByteChannel output) throws IOException {
+        SplittableRandom root = newRoot();
+        int[] batch = new int[RandomGeneratorProduct.batchSize(length)];
+        byte[] buffer = new byte[OUTPUT_BUFFER_SIZE];
+        int position = 0;
+        long remaining = length;
+        while (remaining > 0) {
+            int count = (int) Math.min(batch.length, remaining);
+            fill(batch, count, root);
+            for (int i = 0; i < count; i++) {
+                if (position > buffer.length - 4) {
+                    SingleByteEncoding.write(output, buffer, 0, position);
+                    position = 0;
+                }
+                position = UnicodeGeneratorProduct.encode(codePoints[batch[i]], buffer, position);
+            }
+            remaining -= count;
+        }
+        SingleByteEncoding.write(output, buffer, 0, position);
+    }
+
+    private void fill(final int[] batch, final int count, final SplittableRandom root) {
+        SplittableRandom[] generators = split(root, count);
+        RandomGeneratorProduct.run(new SymbolFillTask(batch, count, generators, sampler), generators.length);
+    }
+
+    /**
+     * @return one generator per block of count characters, split in block
+     * order from the root.
+     */
+    private static SplittableRandom[] split(final SplittableRandom root, final int count) {
+        SplittableRandom[] generators = new SplittableRandom[RandomFillTask.blockCount(count)];
+        for (int i = 0; i < generators.length; i++) {
+            generators[i] = root.split();
+        }
+        return generators;
+    }
+
+    private SplittableRandom newRoot() {
+        return seed == null ? new SplittableRandom() : new SplittableRandom(seed);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.FileSizeException;
+import com.google.code.textclip.exceptions.FormatException;
+import com.google.code.textclip.exceptions.OutOfRangeException;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Produces records from a template (options --template and --records), e.g.
+ * "ID-{counter:8}-{random:65:90:4}" gives "ID-00000001-QZKA", "ID-00000002-
+ * BDTW" and so on, one record per line. See TemplateProgram for the
+ * placeholders.
+ * <p/>
+ * The template is compiled once. The records are then written one after the
+ * other into one reused buffer, which is handed over to the output when the
+ * next record might not fit; producing a record allocates nothing. With a
+ * seed (option --seed) the random characters are the same on every run.
+ */
+public class TemplateGeneratorProduct implements GeneratorProduct {
+    private final TemplateProgram program;
+    private final long records;
+    private final Long seed;
+
+    /**
+     * @param template   the template of a record.
+     * @param theRecords the number of records.
+     * @param theSeed    seed of the random characters; null for a different
+     *                   text on every call.
+     */
+    public TemplateGeneratorProduct(final String template, final long theRecords, final Long theSeed)
+            throws FormatException, OutOfRangeException, FileNotFoundException, FileSizeException {
+        if (theRecords < 1) {
+            throw new OutOfRangeException("number of records is out of range (1 .. "
+                    + Long.MAX_VALUE + ").");
+        }
+        this.program = TemplateProgram.compile(template);
+        this.records = theRecords;
+        this.seed = theSeed;
+    }
+
+    @Override
+    public String generate() throws IOException {
+        StringBuilder builder = new StringBuilder((int) Math.min(
+                (long) program.maxRecordLength(records) * records, Integer.MAX_VALUE - 8));
+        generate(builder);
+        return builder.toString();
+    }
+
+    @Override
+    public void generate(Appendable output) throws IOException {
+        int recordLength = program.maxRecordLength(records);
+        char[] buffer = new char[Math.max(CHUNK_SIZE, recordLength)];
+        SplittableRandom generator = seed == null ? new SplittableRandom() : new SplittableRandom(seed);
+        int position = 0;
+        for (long record = 1; record <= records; record++) {
+            if (buffer.length - position < recordLength) {
+                ChunkAppender.append(output, buffer, 0, position);
+                position = 0;
+            }
+            position = program.execute(record, generator, buffer, position);
+        }
+        ChunkAppender.append(output, buffer, 0, position);
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.FileSizeException;
+import com.google.code.textclip.exceptions.FormatException;
+import com.google.code.textclip.exceptions.OutOfRangeException;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A record template (option --template) compiled into a flat array of
+ * instructions. The placeholders are
+ * <ul>
+ * <li>{@code {counter}} or {@code {counter:width}}: the number of the
+ * record, starting at 1, padded with zeros to at least width digits;</li>
+ * <li>{@code {random:lower:upper:number}}: number random characters between
+ * the lower and upper ASCII value, like -ra;</li>
+ * <li>{@code {file:name}}: the content of the file, read once when the
+ * template is compiled.</li>
+ * </ul>
+ * {@code {{} and {@code }}} stand for the braces themselves; all other text is
+ * copied as it is. Every record ends with a line feed.
+ * <p/>
+ * Literal text and file contents are kept in one character array, so that
+ * {@link #execute} only copies, counts and draws random numbers; it does not
+ * allocate.
+ */
+final class TemplateProgram {
+    /**
+     * Files are inlined in the program, so they must stay small.
+     */
+    static final long MAX_FILE_SIZE = 16 * 1024 * 1024;
+    /**
+     * A record is written into one character array, so it cannot be longer
+     * than the largest array.
+     */
+    static final int MAX_RECORD_LENGTH = Integer.MAX_VALUE - 8;
+
+    /* LITERAL offset length: copies characters of the constants. */
+    private static final int LITERAL = 0;
+    /* COUNTER width: writes the record number. */
+    private static final int COUNTER = 1;
+    /* RANDOM lower range number: writes random characters. */
+    private static final int RANDOM = 2;
+
+    private static final int MAX_COUNTER_WIDTH = 19;
+    private static final Pattern COUNTER_PATTERN = Pattern.compile("^counter(?::(\\d{1,2}))?$");
+    private static final Pattern RANDOM_PATTERN = Pattern.compile("^random:(\\d{1,9}):(\\d{1,9}):(\\d{1,9})$");
+    private static final Pattern FILE_PATTERN = Pattern.compile("^file:(.+)$");
+
+    private final int[] code;
+    private final char[] constants;
+    private final int fixedLength;
+    private final int counterWidth;
+    private final int counterCount;
+
+    private TemplateProgram(int[] theCode, char[] theConstants, int theFixedLength, int theCounterWidth,
+                            int theCounterCount) {
+        this.code = theCode;
+        this.constants = theConstants;
+        this.fixedLength = theFixedLength;
+        this.counterWidth = theCounterWidth;
+        this.counterCount = theCounterCount;
+    }
+
+    /**
+     * @param template the template, e.g. "ID-{counter:8}-{random:65:90:4}".
+     * @return the compiled template.
+     * @throws FormatException       when a brace is not closed or escaped,
+     *                               or a placeholder is unknown.
+     * @throws OutOfRangeException   when the limits of a random placeholder
+     *                               are out of range, or a record can be
+     *                               longer than {@link #MAX_RECORD_LENGTH}.
+     * @throws FileNotFoundException when a file does not exist.
+     * @throws FileSizeException     when a file is empty, unreadable or not
+     *                               smaller than {@link #MAX_FILE_SIZE}.
+     */
+    static TemplateProgram compile(String template)
+            throws FormatException, OutOfRangeException, FileNotFoundException, FileSizeException {
+        Builder builder = new Builder();
+        int index = 0;
+        while (index < template.length()) {
+            char character = template.charAt(index);
+            if (character == '{' && template.startsWith("{{", index)) {
+                builder.literal("{");
+                index += 2;
+            } else if (character == '}' && template.startsWith("}}", index)) {
+                builder.literal("}");
+                index += 2;
+            } else if (character == '}') {
+                throw new FormatException("Unescaped } at position " + index + ", use }}.");
+            } else if (character == '{') {
+                int end = template.indexOf('}', index);
+                if (end < 0) {
+                    throw new FormatException("The placeholder at position " + index + " is not closed.");
+                }
+                builder.placeholder(template.substring(index + 1, end));
+                index = end + 1;
+            } else {
+                int end = nextBrace(template, index);
+                builder.literal(template.substring(index, end));
+                index = end;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the largest number of characters of a record up to the given
+     * record number, line feed included.
+     */
+    int maxRecordLength(long lastRecord) {
+        return (int) maxRecordLength(fixedLength, counterCount, Math.max(counterWidth, digits(lastRecord)));
+    }
+
+    private static long maxRecordLength(long fixedLength, int counterCount, int counterDigits) {
+        return fixedLength + (long) counterCount * counterDigits;
+    }
+
+    /**
+     * Writes one record into the buffer, which must have room for
+     * {@link #maxRecordLength} characters from the position on.
+     *
+     * @return the position after the record.
+     */
+    int execute(long record, SplittableRandom generator, char[] buffer, int position) {
+        final int[] instructions = code;
+        int pc = 0;
+        while (pc < instructions.length) {
+            switch (instructions[pc]) {
+                case LITERAL:
+                    System.arraycopy(constants, instructions[pc + 1], buffer, position, instructions[pc + 2]);
+                    position += instructions[pc + 2];
+                    pc += 3;
+                    break;
+                case COUNTER:
+                    position = writeNumber(record, instructions[pc + 1], buffer, position);
+                    pc += 2;
+                    break;
+                default:
+                    int lower = instructions[pc + 1];
+                    int range = instructions[pc + 2];
+                    for (int end = position + instructions[pc + 3]; position < end; position++) {
+                        buffer[position] = (char) (lower + generator.nextInt(range));
+                    }
+                    pc += 4;
+                    break;
+            }
+        }
+        buffer[position] = '\n';
+        return position + 1;
+    }
+
+    private static int writeNumber(long number, int width, char[] buffer, int position) {
+        int end = position + Math.max(width, digits(number));
+        for (int index = end - 1; index >= position; index--) {
+            buffer[index] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        return end;
+    }
+
+    private static int digits(long number) {
+        int digits = 1;
+        while (number >= 10) {
+            number /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static int nextBrace(String template, int from) {
+        for (int index = from; index < template.length(); index++) {
+            if (template.charAt(index) == '{' || template.charAt(index) == '}') {
+                return index;
+            }
+        }
+        return template.length();
+    }
+
+    /**
+     * Collects the instructions; adjacent literal text is merged into one
+     * instruction.
+     */
+    private static final class Builder {
+        private int[] code = new int[16];
+        private int size = 0;
+        private final StringBuilder constants = new StringBuilder();
+        private int literalStart = -1;
+        private long fixedLength = 1;
+        private int counterWidth = 1;
+        private int counterCount = 0;
+
+        void literal(String text) {
+            if (literalStart < 0) {
+                literalStart = constants.length();
+            }
+            constants.append(text);
+            fixedLength += text.length();
+        }
+
+        void placeholder(String placeholder)
+                throws FormatException, OutOfRangeException, FileNotFoundException, FileSizeException {
+            Matcher counter = COUNTER_PATTERN.matcher(placeholder);
+            Matcher randomCharacters = RANDOM_PATTERN.matcher(placeholder);
+            Matcher file = FILE_PATTERN.matcher(placeholder);
+            if (counter.matches()) {
+                int width = counter.group(1) == null ? 1 : Integer.parseInt(counter.group(1));
+                if (width < 1 || width > MAX_COUNTER_WIDTH) {
+                    throw new OutOfRangeException("counter width is out of range (1 .. "
+                            + MAX_COUNTER_WIDTH + ").");
+                }
+                counterWidth = Math.max(counterWidth, width);
+                counterCount++;
+                emit(COUNTER, width);
+            } else if (randomCharacters.matches()) {
+                ASCIIDataContainer container = new ASCIIDataContainer(Integer.parseInt(randomCharacters.group(1)),
+                        Integer.parseInt(randomCharacters.group(2)), Integer.parseInt(randomCharacters.group(3)));
+                fixedLength += container.getLength();
+                emit(RANDOM, container.getLowerLimit(), container.getUpperLimit() - container.getLowerLimit() + 1,
+                        container.getLength());
+            } else if (file.matches()) {
+                literal(read(new File(file.group(1))));
+            } else {
+                throw new FormatException("Unknown placeholder {" + placeholder
+                        + "}, e.g. {counter:8}, {random:65:90:4} or {file:header.txt}.");
+            }
+        }
+
+        TemplateProgram build() throws OutOfRangeException {
+            if (maxRecordLength(fixedLength, counterCount, MAX_COUNTER_WIDTH) > MAX_RECORD_LENGTH) {
+                throw new OutOfRangeException("a record can be longer than " + MAX_RECORD_LENGTH
+                        + " characters.");
+            }
+            endLiteral();
+            char[] characters = new char[constants.length()];
+            constants.getChars(0, characters.length, characters, 0);
+            return new TemplateProgram(Arrays.copyOf(code, size), characters, (int) fixedLength, counterWidth,
+                    counterCount);
+        }
+
+        private void emit(int... instruction) {
+            endLiteral();
+            append(instruction);
+        }
+
+        private void endLiteral() {
+            if (literalStart >= 0) {
+                append(LITERAL, literalStart, constants.length() - literalStart);
+                literalStart = -1;
+            }
+        }
+
+        private void append(int... values) {
+            if (size + values.length > code.length) {
+                code = Arrays.copyOf(code, 2 * code.length + values.length);
+            }
+            System.arraycopy(values, 0, code, size, values.length);
+            size += values.length;
+        }
+
+        private static String read(File file) throws FileNotFoundException, FileSizeException {
+            FromFileGeneratorProduct product = new FromFileGeneratorProduct(file, MAX_FILE_SIZE);
+            try {
+                return product.generate();
+            } catch (IOException e) {
+                throw new FileSizeException(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.OutOfRangeException;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Produces random Unicode characters between a lower and upper code point
+ * (option -u), beyond the ASCII limits of -ra: multi-byte UTF-8 sequences
+ * and, above U+FFFF, surrogate pairs. The surrogate code points themselves
+ * are never produced.
+ * <p/>
+ * The length is the exact number of bytes of the text in UTF-8. Near the
+ * end only characters are drawn whose UTF-8 length leaves a remainder that
+ * the range can still fill. For UTF-8 output the characters are encoded
+ * straight into the output buffer; a buffer is handed over before it could
+ * split a sequence, and the character path never splits a surrogate pair
+ * over two chunks. All paths draw the same random numbers, so with a seed
+ * (option --seed) they give the same text.
+ * <p/>
+ * Away from the end, every random long gives two characters: each half is
+ * scaled to the number of code points by a multiplication instead of a
+ * division. The result is uniform to within the range size / 2^32, at most
+ * 0.03%, which is plenty for test input.
+ */
+public class UnicodeGeneratorProduct implements GeneratorProduct {
+    public static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+
+    /* Below this remainder the UTF-8 length of the next character matters. */
+    private static final int TAIL = 16;
+    private static final int MAX_UTF8_LENGTH = 4;
+    private static final int[][] UTF8_SEGMENTS = {
+            {0x0, 0x7F, 1}, {0x80, 0x7FF, 2}, {0x800, 0xD7FF, 3}, {0xE000, 0xFFFF, 3}, {0x10000, 0x10FFFF, 4}};
+
+    private final long length;
+    private final Long seed;
+    private final int[] starts;
+    private final int[] sizes;
+    private final int[] utf8Lengths;
+    private final int[] ends;
+    private final int total;
+    private final boolean[] reachable = new boolean[TAIL];
+    private final int lengthDivisor;
+
+    /**
+     * @param lower     the lowest code point, at least 1.
+     * @param upper     the highest code point, at most U+10FFFF.
+     * @param theLength the length of the text in UTF-8 bytes.
+     * @param theSeed   seed of the random characters; null for a different
+     *                  text on every call.
+     * @throws OutOfRangeException when a limit is out of range, the range
+     *                             holds surrogates only, or no text of the
+     *                             range is exactly theLength bytes long.
+     */
+    public UnicodeGeneratorProduct(final int lower, final int upper, final long theLength, final Long theSeed)
+            throws OutOfRangeException {
+        if (lower < 1 || upper > MAX_CODE_POINT) {
+            throw new OutOfRangeException("code point is out of range (1 .. " + MAX_CODE_POINT + ").");
+        }
+        if (lower > upper) {
+            throw new OutOfRangeException("lower value is larger than upper value.");
+        }
+        if (theLength <= 0) {
+            throw new OutOfRangeException("length is out of range (1 .. " + Long.MAX_VALUE + ").");
+        }
+        int[] theStarts = new int[UTF8_SEGMENTS.length];
+        int[] theSizes = new int[UTF8_SEGMENTS.length];
+        int[] theLengths = new int[UTF8_SEGMENTS.length];
+        int segments = 0;
+        int theTotal = 0;
+        int divisor = 0;
+        for (int[] segment : UTF8_SEGMENTS) {
+            int start = Math.max(lower, segment[0]);
+            int end = Math.min(upper, segment[1]);
+            if (start <= end) {
+                theStarts[segments] = start;
+                theSizes[segments] = end - start + 1;
+                theLengths[segments] = segment[2];
+                theTotal += end - start + 1;
+                segments++;
+                divisor = gcd(divisor, segment[2]);
+            }
+        }
+        if (segments == 0) {
+            throw new OutOfRangeException("the range holds surrogate code points only.");
+        }
+        this.starts = Arrays.copyOf(theStarts, segments);
+        this.sizes = Arrays.copyOf(theSizes, segments);
+        this.utf8Lengths = Arrays.copyOf(theLengths, segments);
+        this.ends = new int[segments];
+        for (int segment = 0, end = 0; segment < segments; segment++) {
+            end += sizes[segment];
+            ends[segment] = end;
+        }
+        this.total = theTotal;
+        this.lengthDivisor = divisor;
+        reachable[0] = true;
+        for (int remainder = 1; remainder < TAIL; remainder++) {
+            for (int utf8Length : utf8Lengths) {
+                reachable[remainder] |= utf8Length <= remainder && reachable[remainder - utf8Length];
+            }
+        }
+        if (!isReachable(theLength)) {
+            throw new OutOfRangeException("no text of the range is exactly " + theLength + " bytes long.");
+        }
+        this.length = theLength;
+        this.seed = theSeed;
+    }
+
+    @Override
+    public String generate() throws IOException {
+        StringBuilder builder = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+        generate(builder);
+        return builder.toString();
+    }
+
+    @Override
+    public void generate(Appendable output) throws IOException {
+        SplittableRandom random = newRandom();
+        char[] chunk = new char[CHUNK_SIZE];
+        int position = 0;
+        long remaining = length;
+        while (remaining >= TAIL) {
+            if (position > chunk.length - 4) {
+                ChunkAppender.append(output, chunk, 0, position);
+                position = 0;
+            }
+            long bits = random.nextLong();
+            int first = codePoint((int) bits);
+            int second = codePoint((int) (bits >>> 32));
+            remaining -= utf8Length(first) + utf8Length(second);
+            position += Character.toChars(first, chunk, position);
+            position += Character.toChars(second, chunk, position);
+        }
+        while (remaining > 0) {
+            if (position > chunk.length - 2) {
+                ChunkAppender.append(output, chunk, 0, position);
+                position = 0;
+            }
+            int codePoint = next(random, (int) remaining);
+            remaining -= utf8Length(codePoint);
+            position += Character.toChars(codePoint, chunk, position);
+        }
+        ChunkAppender.append(output, chunk, 0, position);
+    }
+
+    /**
+     * Writes UTF-8 without encoding characters; other charsets encode the
+     * characters of {@link #generate(Appendable)}.
+     */
+    @Override
+    public void generate(WritableByteChannel output, Charset charset) throws IOException {
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            GeneratorProduct.super.generate(output, charset);
+            return;
+        }
+        SplittableRandom random = newRandom();
+        byte[] buffer = new byte[(int) Math.min(OUTPUT_BUFFER_SIZE, length + MAX_UTF8_LENGTH)];
+        int position = 0;
+        long remaining = length;
+        while (remaining >= TAIL) {
+            if (position > buffer.length - 2 * MAX_UTF8_LENGTH) {
+                SingleByteEncoding.write(output, buffer, 0, position);
+                position = 0;
+            }
+            long bits = random.nextLong();
+            int end = encode(codePoint((int) bits), buffer, position);
+            end = encode(codePoint((int) (bits >>> 32)), buffer, end);
+            remaining -= end - position;
+            position = end;
+        }
+        while (remaining > 0) {
+            if (position > buffer.length - MAX_UTF8_LENGTH) {
+                SingleByteEncoding.write(output, buffer, 0, position);
+                position = 0;
+            }
+            int end = encode(next(random, (int) remaining), buffer, position);
+            remaining -= end - position;
+            position = end;
+        }
+        SingleByteEncoding.write(output, buffer, 0, position);
+    }
+
+    /**
+     * @return the code point that 32 random bits select from the range.
+     */
+    private int codePoint(final int bits) {
+        int index = (int) (((bits & 0xFFFFFFFFL) * total) >>> 32);
+        int segment = 0;
+        while (index >= ends[segment]) {
+            segment++;
+        }
+        return starts[segment] + index - (ends[segment] - sizes[segment]);
+    }
+
+    /**
+     * @return a random code point, for the last bytes, whose UTF-8 length
+     * leaves a remainder that can be filled.
+     */
+    private int next(final SplittableRandom random, final int remaining) {
+        int candidates = 0;
+        for (int segment = 0; segment < sizes.length; segment++) {
+            if (fits(segment, remaining)) {
+                candidates += sizes[segment];
+            }
+        }
+        int index = random.nextInt(candidates);
+        for (int segment = 0; ; segment++) {
+            if (fits(segment, remaining)) {
+                if (index < sizes[segment]) {
+                    return starts[segment] + index;
+                }
+                index -= sizes[segment];
+            }
+        }
+    }
+
+    private boolean fits(final int segment, final int remaining) {
+        return utf8Lengths[segment] <= remaining && reachable[remaining - utf8Lengths[segment]];
+    }
+
+    private boolean isReachable(final long remainder) {
+        return remainder < TAIL ? reachable[(int) remainder] : remainder % lengthDivisor == 0;
+    }
+
+    private SplittableRandom newRandom() {
+        return seed == null ? new SplittableRandom() : new SplittableRandom(seed);
+    }
+
+    private static int utf8Length(final int codePoint) {
+        return codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+    }
+
+    /**
+     * Encodes the code point as UTF-8 into the buffer.
+     *
+     * @return the position after the last byte.
+     */
+    static int encode(final int codePoint, final byte[] buffer, int position) {
+        if (codePoint < 0x80) {
+            buffer[position++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (codePoint >>> 6));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            buffer[position++] = (byte) (0xE0 | (codePoint >>> 12));
+            buffer[position++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        } else {
+            buffer[position++] = (byte) (0xF0 | (codePoint >>> 18));
+            buffer[position++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+        }
+        return position;
+    }
+
+    private static int gcd(final int a, final int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
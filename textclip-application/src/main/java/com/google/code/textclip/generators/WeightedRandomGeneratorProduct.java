@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.OutOfRangeException;
+
+/**
+ * Produces random characters with the frequencies of a table (option -w),
+ * for text that looks like real text instead of the uniform characters of
+ * -ra. The table comes from a file (option --table) or is counted in a
+ * sample (option -f).
+ * <p/>
+ * Every character is sampled in constant time with the alias method (see
+ * AliasTable), however many characters the table holds; the blocks and the
+ * byte paths are those of SymbolGeneratorProduct.
+ */
+public class WeightedRandomGeneratorProduct extends SymbolGeneratorProduct {
+
+    /**
+     * @param theCodePoints the characters of the table.
+     * @param theWeights    the weight of every character; a character is
+     *                      drawn with a probability of its weight divided by
+     *                      the sum of the weights.
+     * @param theLength     the number of characters (code points) of the text.
+     * @param theSeed       seed of the random characters; null for a
+     *                      different text on every call.
+     * @throws OutOfRangeException when the table is empty, holds a code point
+     *                             that is out of range or a surrogate, holds a
+     *                             negative weight or weighs nothing at all, or
+     *                             when the length is not positive.
+     */
+    public WeightedRandomGeneratorProduct(final int[] theCodePoints, final double[] theWeights,
+                                          final long theLength, final Long theSeed)
+            throws OutOfRangeException {
+        super(theCodePoints.clone(), new AliasTable(validate(theCodePoints, theWeights, theLength)),
+                theLength, theSeed);
+    }
+
+    /**
+     * @return the weights, once they are valid.
+     */
+    private static double[] validate(final int[] theCodePoints, final double[] theWeights, final long theLength)
+            throws OutOfRangeException {
+        if (theCodePoints.length != theWeights.length) {
+            throw new IllegalArgumentException("every code point needs one weight.");
+        }
+        if (theCodePoints.length == 0) {
+            throw new OutOfRangeException("the table holds no characters.");
+        }
+        double sum = 0;
+        for (int i = 0; i < theCodePoints.length; i++) {
+            int codePoint = theCodePoints[i];
+            if (codePoint < 1 || codePoint > Character.MAX_CODE_POINT
+                    || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                throw new OutOfRangeException("code point is out of range (1 .. "
+                        + Character.MAX_CODE_POINT + ", no surrogates).");
+            }
+            if (!(theWeights[i] >= 0) || Double.isInfinite(theWeights[i])) {
+                throw new OutOfRangeException("weight is out of range (0 .. " + Double.MAX_VALUE + ").");
+            }
+            sum += theWeights[i];
+        }
+        if (!(sum > 0) || Double.isInfinite(sum)) {
+            throw new OutOfRangeException("the weights do not add up to a positive number.");
+        }
+        if (theLength <= 0) {
+            throw new OutOfRangeException("length is out of range (1 .. " + Long.MAX_VALUE + ").");
+        }
+        return theWeights;
+    }
+}
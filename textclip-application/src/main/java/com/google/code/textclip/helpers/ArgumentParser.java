@@ -26,6 +26,8 @@
 package com.google.code.textclip.helpers;
 
 
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
 
 import java.io.File;
@@ -39,6 +41,12 @@ import java.io.File;
  * com.google.code.textclip.
  */
 public class ArgumentParser {
+    /**
+     * The largest --cache-quota, in megabytes, whose number of bytes fits in
+     * a long.
+     */
+    public static final long MAX_CACHE_QUOTA = Long.MAX_VALUE >> 20;
+
     @Option(name = "-h", aliases = "--help", usage = "print this message")
     private boolean help = false;
 
@@ -51,17 +59,25 @@ public class ArgumentParser {
     @Option(name = "-a", aliases = {"--allchars"},
             usage = "produces a string that includes all character codes from" +
                     " 1 to 255 ",
-            forbids = {"-ch", "-co", "-t", "-f", "-ra"})
+            forbids = {"-ch", "-co", "-t", "-f", "-ra", "-tp", "-u", "-w", "-mk"})
     private boolean allcharacters = false;
 
 
     @Option(name = "-ch", aliases = {"--char"}, metaVar = "<ASCII value>",
             usage = "produces a character from given ASCII value; \"-ch 32\" " +
                     "will produce a space character",
-            forbids = {"-a", "-co", "-t", "-f", "-ra"})
+            forbids = {"-a", "-co", "-t", "-f", "-ra", "-tp", "-u", "-w", "-mk"})
     private String ascii_value = "";
 
 
+    @Option(name = "-l", aliases = {"--length"}, metaVar = "<number>",
+            usage = "repeats the characters of -a or -ch until the string " +
+                    "is <number> characters long; \"-ch 65:67 -l 7\" " +
+                    "produces \"ABCABCA\"",
+            forbids = {"-co", "-t", "-f", "-ra", "-tp", "-u", "-w", "-mk"})
+    private Integer length = null;
+
+
     @Option(name = "-co", aliases = {"--counterstring"},
             metaVar = "number:character",
             usage = "\"-co 25:*\" would produce \"1*3*5*7*9*11*14*17*20*23*\"" +
@@ -71,29 +87,155 @@ public class ArgumentParser {
                     "the string. This is useful for pasting into fields that " +
                     "cut off text, so that you can tell how many characters" +
                     " were actually pasted.",
-            forbids = {"-ch", "-a", "-t", "-f", "-ra"})
+            forbids = {"-ch", "-a", "-t", "-f", "-ra", "-tp", "-u", "-w", "-mk"})
     private String counterstring = "";
 
 
     @Option(name = "-t", aliases = {"--text"}, metaVar = "<text>",
             usage = "<text> will be copied to the clipboard (hint: use quotes \")",
-            forbids = {"-ch", "co", "-a", "-f", "-ra"})
+            forbids = {"-ch", "co", "-a", "-f", "-ra", "-tp", "-u", "-w", "-mk"})
     private String text = "";
 
 
     @Option(name = "-f", aliases = {"--filename"}, metaVar = "<file>",
-            usage = "this text will be copied to the clipboard",
-            forbids = {"-ch", "co", "-a", "-t", "-ra"})
+            usage = "this text will be copied to the clipboard; with -w the " +
+                    "sample that gives the character frequencies, with -mk " +
+                    "the corpus of the model",
+            forbids = {"-ch", "co", "-a", "-t", "-ra", "-tp", "-u"})
     private File file = null;
 
+    @Option(name = "-e", aliases = {"--encoding"}, metaVar = "<charset>",
+            usage = "the encoding of the file given with -f, e.g. UTF-8, " +
+                    "UTF-16 or ISO-8859-1; standard is the encoding of the " +
+                    "platform",
+            depends = {"-f"})
+    private String encoding = "";
+
     /* RANDOM */
     @Option(name = "-ra", aliases = {"--random"},
             metaVar = "lower:upper:number",
             usage = "\"-ra 65:66:4\" could produce \"ABBA\". In this case the" +
                     "ASCII characters A(65) & B(66) are randomly chosen creating" +
                     "a string of 4 characters.",
-            forbids = {"-co", "-ch", "-a", "-t", "-f"})
+            forbids = {"-co", "-ch", "-a", "-t", "-f", "-tp", "-u", "-w", "-mk"})
     private String random_string = "";
+
+    @Option(name = "-s", aliases = {"--seed"}, metaVar = "<number>",
+            usage = "seed for the random characters of -ra, -u, -w, -mk or " +
+                    "--template; the same seed and options produce the same text",
+            forbids = {"-a", "-ch", "-co", "-t"})
+    private Long seed = null;
+
+    @Option(name = "--offset", metaVar = "<number>",
+            usage = "starts the seeded characters of -ra at this position " +
+                    "of the text of the seed, e.g. \"-ra 65:90:1000 -s 42 " +
+                    "--offset 5000\" gives the characters 5000 to 5999; " +
+                    "standard value is 0",
+            depends = {"-ra", "-s"})
+    private long offset = 0;
+
+    /* UNICODE */
+    @Option(name = "-u", aliases = {"--unicode"},
+            metaVar = "lower:upper:bytes",
+            usage = "produces random Unicode characters between two code " +
+                    "points, e.g. \"-u U+0080:U+10FFFF:1000\" gives 1000 " +
+                    "bytes of multi-byte UTF-8 with surrogate pairs; the " +
+                    "code points are decimal or hexadecimal (0x or U+)",
+            forbids = {"-a", "-ch", "-co", "-t", "-f", "-ra", "-tp", "-w", "-mk"})
+    private String unicode = "";
+
+    /* TEMPLATE */
+    @Option(name = "-tp", aliases = {"--template"}, metaVar = "<template>",
+            usage = "produces one record per line from <template>, e.g. " +
+                    "\"ID-{counter:8}-{random:65:90:4}{file:tail.txt}\": " +
+                    "{counter:width} is the record number padded with zeros, " +
+                    "{random:lower:upper:number} random characters like -ra " +
+                    "and {file:name} the content of a file. Use {{ and }} " +
+                    "for braces.",
+            forbids = {"-a", "-ch", "-co", "-t", "-f", "-ra", "-u", "-w", "-mk"})
+    private String template = "";
+
+    @Option(name = "-n", aliases = {"--records"}, metaVar = "<number>",
+            usage = "number of records of --template; standard value is 1",
+            depends = {"-tp"})
+    private long records = 1;
+
+    /* WEIGHTED */
+    @Option(name = "-w", aliases = {"--weighted"}, metaVar = "<number>",
+            usage = "produces <number> random characters with the " +
+                    "frequencies of the --table, or of the file given with " +
+                    "-f (a sample of real text)",
+            forbids = {"-a", "-ch", "-co", "-t", "-ra", "-tp", "-u", "-mk"})
+    private Long weighted = null;
+
+    @Option(name = "--table", metaVar = "<file>",
+            usage = "character-frequency table of -w: one code point and " +
+                    "weight per line, e.g. \"U+0065 12.7\"",
+            depends = {"-w"},
+            forbids = {"-f"})
+    private File table = null;
+
+    /* MARKOV */
+    @Option(name = "-mk", aliases = {"--markov"}, metaVar = "<number>",
+            usage = "produces <number> characters of random text with the " +
+                    "character statistics of the corpus given with -f, or " +
+                    "of a --model",
+            forbids = {"-a", "-ch", "-co", "-t", "-ra", "-tp", "-u", "-w"})
+    private Long markov = null;
+
+    @Option(name = "-k", aliases = {"--order"}, metaVar = "<number>",
+            usage = "number of characters that a character of -mk depends " +
+                    "on; standard value is 4",
+            depends = {"-mk"},
+            forbids = {"--model"})
+    private int order = 4;
+
+    @Option(name = "--model", metaVar = "<file>",
+            usage = "the model of -mk, saved earlier with --save-model, " +
+                    "instead of a corpus",
+            depends = {"-mk"},
+            forbids = {"-f"})
+    private File model = null;
+
+    @Option(name = "--save-model", metaVar = "<file>",
+            usage = "saves the model that -mk trained on the corpus of -f",
+            depends = {"-mk", "-f"})
+    private File saveModel = null;
+
+    /* OUTPUT */
+    @Option(name = "-o", aliases = {"--out"}, metaVar = "<file>",
+            usage = "writes the text to <file> instead of the clipboard; " +
+                    "\"-o -\" writes it to the standard output. The " +
+                    "clipboard is not used, so this works on headless systems.")
+    private String out = "";
+
+    /* CACHE */
+    @Option(name = "--cache", metaVar = "<directory>",
+            usage = "keeps the generated output in <directory> and serves " +
+                    "identical requests from there; random strings are only " +
+                    "cached with --seed and files are never cached")
+    private File cache = null;
+
+    @Option(name = "--cache-quota", metaVar = "<megabytes>",
+            usage = "maximum size of the cache; the least recently used " +
+                    "output is removed first. Standard value is 1024",
+            depends = {"--cache"})
+    private long cacheQuota = 1024;
+
+    /* STATISTICS */
+    @Option(name = "--stats",
+            usage = "prints the time, the bytes generated, the throughput " +
+                    "and the bytes allocated of every phase of the run")
+    private boolean stats = false;
+
+    /* BATCH */
+    @Option(name = "-b", aliases = {"--batch"}, metaVar = "<manifest>",
+            usage = "runs every line of <manifest> as a separate set of " +
+                    "options, e.g. \"-co 5000:* --out a.txt\"; each line " +
+                    "needs --out <file>. Empty lines and lines starting " +
+                    "with # are skipped.",
+            forbids = {"-a", "-ch", "-co", "-t", "-f", "-ra", "-tp", "-u", "-w", "-mk", "-o", "-m", "-l"})
+    private File batch = null;
     /*
     |---------------------------------------------------------------------------
     | Getter functions only.
@@ -104,6 +246,37 @@ public class ArgumentParser {
     | getter methods are provided.
     */
 
+    /**
+     * Checks the ranges of the numbers that apply to every kind of text;
+     * args4j only checks that they are numbers.
+     *
+     * @param parser the parser that filled the options.
+     * @throws CmdLineException when a number is out of range; the message
+     *                          names the option.
+     */
+    public void validate(CmdLineParser parser) throws CmdLineException {
+        if (multiply < 1) {
+            throw new CmdLineException(parser, "-m (--multiply) is out of range (1 .. "
+                    + Long.MAX_VALUE + "): " + multiply);
+        }
+        if (length != null && length < 1) {
+            throw new CmdLineException(parser, "-l (--length) is out of range (1 .. "
+                    + Integer.MAX_VALUE + "): " + length);
+        }
+        if (offset < 0) {
+            throw new CmdLineException(parser, "--offset is out of range (0 .. "
+                    + Long.MAX_VALUE + "): " + offset);
+        }
+        if (records < 1) {
+            throw new CmdLineException(parser, "-n (--records) is out of range (1 .. "
+                    + Long.MAX_VALUE + "): " + records);
+        }
+        if (cacheQuota < 0 || cacheQuota > MAX_CACHE_QUOTA) {
+            throw new CmdLineException(parser, "--cache-quota is out of range (0 .. "
+                    + MAX_CACHE_QUOTA + "): " + cacheQuota);
+        }
+    }
+
     /**
      * @return <code>true</code> if the user is requesting for help text
      * (-h | --help on the command line);
@@ -143,6 +316,22 @@ public class ArgumentParser {
         return ascii_value;
     }
 
+    /**
+     * @return <code>true</code> if a length is given for the ASCII string
+     * (-l | --length on the command line).
+     */
+    public boolean isLength() {
+        return length != null;
+    }
+
+    /**
+     * @return the length of the repeated ASCII string; only valid if
+     * {@link #isLength()} returns <code>true</code>.
+     */
+    public int getLength() {
+        return length;
+    }
+
     /**
      * @return
      */
@@ -186,6 +375,20 @@ public class ArgumentParser {
         return file != null;
     }
 
+    /**
+     * @return <code>true</code> if an encoding is given for the file.
+     */
+    public boolean isEncoding() {
+        return !encoding.isEmpty();
+    }
+
+    /**
+     * @return the name of the encoding of the file, e.g. "UTF-8".
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
 
     public boolean isRandom() {
         return !random_string.isEmpty();
@@ -194,4 +397,197 @@ public class ArgumentParser {
     public String getRandom() {
         return random_string;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return <code>true</code> if a seed is given for the random generator.
+     */
+    public boolean isSeed() {
+        return seed != null;
+    }
+
+    /**
+     * @return the seed for the random generator; only valid if
+     * {@link #isSeed()} returns <code>true</code>.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the position, in the text of the seed, of the first random
+     * character of -ra (--offset on the command line); 0 when not given.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return <code>true</code> if random Unicode characters are requested
+     * (-u | --unicode on the command line).
+     */
+    public boolean isUnicode() {
+        return !unicode.isEmpty();
+    }
+
+    /**
+     * @return the "lower:upper:bytes" of the Unicode characters.
+     */
+    public String getUnicode() {
+        return unicode;
+    }
+
+    /**
+     * @return <code>true</code> if records are produced from a template
+     * (-tp | --template on the command line).
+     */
+    public boolean isTemplate() {
+        return !template.isEmpty();
+    }
+
+    /**
+     * @return the template of a record.
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return the number of records produced from the template.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * @return <code>true</code> if weighted random characters are produced
+     * (-w | --weighted on the command line).
+     */
+    public boolean isWeighted() {
+        return weighted != null;
+    }
+
+    /**
+     * @return the number of weighted random characters.
+     */
+    public long getWeighted() {
+        return weighted;
+    }
+
+    /**
+     * @return <code>true</code> if the frequencies of -w come from a table
+     * (--table on the command line) instead of a sample.
+     */
+    public boolean isTable() {
+        return table != null;
+    }
+
+    public File getTable() {
+        return table;
+    }
+
+    /**
+     * @return <code>true</code> if Markov text is produced (-mk | --markov
+     * on the command line).
+     */
+    public boolean isMarkov() {
+        return markov != null;
+    }
+
+    /**
+     * @return the number of characters of the Markov text.
+     */
+    public long getMarkov() {
+        return markov;
+    }
+
+    /**
+     * @return the order of the Markov model that is trained.
+     */
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * @return <code>true</code> if the Markov model is loaded from a file
+     * (--model on the command line) instead of trained.
+     */
+    public boolean isModel() {
+        return model != null;
+    }
+
+    public File getModel() {
+        return model;
+    }
+
+    /**
+     * @return <code>true</code> if the trained Markov model is saved
+     * (--save-model on the command line).
+     */
+    public boolean isSaveModel() {
+        return saveModel != null;
+    }
+
+    public File getSaveModel() {
+        return saveModel;
+    }
+
+    /**
+     * @return <code>true</code> if the text is written to a file or the
+     * standard output instead of the clipboard.
+     */
+    public boolean isOut() {
+        return !out.isEmpty();
+    }
+
+    /**
+     * @return the name of the output file; "-" is the standard output.
+     */
+    public String getOut() {
+        return out;
+    }
+
+    /**
+     * @return <code>true</code> if the options are read from a batch
+     * manifest instead of the command line.
+     */
+    public boolean isBatch() {
+        return batch != null;
+    }
+
+    /**
+     * @return the batch manifest; only valid if {@link #isBatch()} returns
+     * <code>true</code>.
+     */
+    public File getBatch() {
+        return batch;
+    }
+
+    /**
+     * @return <code>true</code> if the statistics of the run are printed.
+     */
+    public boolean isStats() {
+        return stats;
+    }
+
+    /**
+     * @return <code>true</code> if the output is cached.
+     */
+    public boolean isCache() {
+        return cache != null;
+    }
+
+    /**
+     * @return the cache directory; only valid if {@link #isCache()} returns
+     * <code>true</code>.
+     */
+    public File getCache() {
+        return cache;
+    }
+
+    /**
+     * @return the maximum size of the cache in megabytes.
+     */
+    public long getCacheQuota() {
+        return cacheQuota;
+    }
+}
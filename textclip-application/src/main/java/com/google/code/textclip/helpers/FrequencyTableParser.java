@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.helpers;
+
+import com.google.code.textclip.exceptions.FileSizeException;
+import com.google.code.textclip.exceptions.FormatException;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the character-frequency table of option --table: one character per
+ * line, a code point (as with -u) and its weight, e.g. "U+0065 12.7".
+ * Blank lines and lines that start with # are skipped, a character that is
+ * listed twice gets the sum of its weights and characters that weigh 0 are
+ * left out.
+ */
+public class FrequencyTableParser {
+    static final long MAX_FILE_SIZE = 16 * 1024 * 1024;
+
+    private static final Pattern LINE = Pattern.compile(
+            "^\\s*" + UnicodeArgumentParser.CODE_POINT + "\\s+(\\d{1,15}(?:\\.\\d{1,15})?)\\s*$");
+
+    private int[] codePoints;
+    private double[] weights;
+
+    public FrequencyTableParser(final File theFile)
+            throws FileNotFoundException, FileSizeException, FormatException {
+        if (!theFile.exists()) {
+            throw new FileNotFoundException("Could not find file (" + theFile.getName() + ").");
+        }
+        if ((theFile.length() == 0) || (theFile.length() >= MAX_FILE_SIZE)) {
+            throw new FileSizeException(theFile);
+        }
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(theFile.toPath(), StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            throw new FileSizeException(theFile);
+        }
+
+        Map<Integer, Integer> indexes = new HashMap<Integer, Integer>();
+        int[] theCodePoints = new int[lines.size()];
+        double[] theWeights = new double[lines.size()];
+        int count = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = LINE.matcher(line);
+            if (!matcher.matches()) {
+                throw new FormatException("Line " + (i + 1) + " does not meet requirements, e.g. U+0065 12.7");
+            }
+            double weight = Double.parseDouble(matcher.group(2));
+            if (weight == 0) {
+                continue;
+            }
+            int codePoint = UnicodeArgumentParser.parseCodePoint(matcher.group(1));
+            Integer index = indexes.get(codePoint);
+            if (index == null) {
+                indexes.put(codePoint, count);
+                theCodePoints[count] = codePoint;
+                theWeights[count++] = weight;
+            } else {
+                theWeights[index] += weight;
+            }
+        }
+        this.codePoints = Arrays.copyOf(theCodePoints, count);
+        this.weights = Arrays.copyOf(theWeights, count);
+    }
+
+    /**
+     * @return the characters of the table, in the order of the file.
+     */
+    public int[] getCodePoints() {
+        return codePoints;
+    }
+
+    /**
+     * @return the weight of every character of {@link #getCodePoints()}.
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.helpers;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Resolves the relative paths of an argument list against a working
+ * directory, for runs whose paths were typed in another directory than
+ * the one of the JVM (the daemon, and the jobs of its batches). The values
+ * of the options that name a file or directory are made absolute, both as
+ * "-o name" and as "-o=name"; "-o -" (the standard output) is kept.
+ */
+public final class PathArguments {
+    private static final Set<String> PATH_OPTIONS = new HashSet<String>(Arrays.asList(
+            "-f", "--filename", "-o", "--out", "--cache", "--table", "--model", "--save-model", "-b", "--batch"));
+    private static final Set<String> TEMPLATE_OPTIONS = new HashSet<String>(Arrays.asList("-tp", "--template"));
+    private static final Set<String> FLAG_OPTIONS = new HashSet<String>(Arrays.asList(
+            "-h", "--help", "-a", "--allchars", "--stats"));
+
+    private PathArguments() {
+    }
+
+    /**
+     * @param arguments the argument list, e.g. {@code {"-f", "in.txt"}}.
+     * @param directory the directory that relative paths are relative to.
+     * @return a copy of the arguments with absolute paths.
+     */
+    public static String[] resolve(final String[] arguments, final File directory) {
+        String[] resolved = arguments.clone();
+        for (int i = 0; i < resolved.length; i++) {
+            String argument = resolved[i];
+            int equals = argument.indexOf('=');
+            if (argument.startsWith("-") && equals > 0 && PATH_OPTIONS.contains(argument.substring(0, equals))) {
+                resolved[i] = argument.substring(0, equals + 1) + resolve(argument.substring(equals + 1), directory);
+            } else if (PATH_OPTIONS.contains(argument) && i + 1 < resolved.length) {
+                i++;
+                resolved[i] = resolve(resolved[i], directory);
+            } else if (argument.startsWith("-") && equals > 0
+                    && TEMPLATE_OPTIONS.contains(argument.substring(0, equals))) {
+                resolved[i] = argument.substring(0, equals + 1)
+                        + resolveTemplate(argument.substring(equals + 1), directory);
+            } else if (TEMPLATE_OPTIONS.contains(argument) && i + 1 < resolved.length) {
+                i++;
+                resolved[i] = resolveTemplate(resolved[i], directory);
+            } else if (argument.startsWith("-") && !FLAG_OPTIONS.contains(argument) && equals < 0) {
+                /* The value of this option is not a path, whatever it looks like. */
+                i++;
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * @return the template with the names of its {file:name} placeholders
+     * made absolute; the braces are read as TemplateProgram reads them.
+     */
+    private static String resolveTemplate(final String template, final File directory) {
+        StringBuilder resolved = new StringBuilder(template.length());
+        int index = 0;
+        while (index < template.length()) {
+            int end = template.indexOf('}', index);
+            if (template.startsWith("{{", index) || template.startsWith("}}", index)) {
+                resolved.append(template, index, index + 2);
+                index += 2;
+            } else if (template.charAt(index) == '{' && end > 0 && template.startsWith("{file:", index)) {
+                String path = resolve(template.substring(index + "{file:".length(), end), directory);
+                if (path.indexOf('}') >= 0) {
+                    path = template.substring(index + "{file:".length(), end);
+                }
+                resolved.append("{file:").append(path).append('}');
+                index = end + 1;
+            } else if (template.charAt(index) == '{' && end > 0) {
+                resolved.append(template, index, end + 1);
+                index = end + 1;
+            } else {
+                resolved.append(template.charAt(index));
+                index++;
+            }
+        }
+        return resolved.toString();
+    }
+
+    private static String resolve(final String path, final File directory) {
+        if ("-".equals(path) || path.isEmpty() || new File(path).isAbsolute()) {
+            return path;
+        }
+        return new File(directory, path).getPath();
+    }
+}
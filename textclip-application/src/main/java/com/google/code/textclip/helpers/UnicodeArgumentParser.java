@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.helpers;
+
+import com.google.code.textclip.exceptions.FormatException;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses "lower:upper:bytes" of option -u. The code points are decimal or
+ * hexadecimal with a 0x or U+ prefix, e.g. "U+0080:U+10FFFF:1000".
+ */
+public class UnicodeArgumentParser {
+    static final String CODE_POINT = "((?:0[xX]|[uU]\\+)[0-9A-Fa-f]{1,6}|\\d{1,7})";
+
+    private int lowerLimit = 0;
+    private int upperLimit = 0;
+    private long length = 0;
+
+    public UnicodeArgumentParser(final String optionString)
+            throws FormatException {
+        Pattern pattern = Pattern.compile("^" + CODE_POINT + ":" + CODE_POINT + ":(\\d{1,18})$");
+        Matcher matcher = pattern.matcher(optionString);
+
+        if (matcher.matches()) {
+            this.lowerLimit = parseCodePoint(matcher.group(1));
+            this.upperLimit = parseCodePoint(matcher.group(2));
+            this.length = Long.parseLong(matcher.group(3));
+        } else {
+            throw new FormatException("String does not meet requirements, e.g. U+0080:U+10FFFF:1000");
+        }
+    }
+
+    public int getLowerLimit() {
+        return lowerLimit;
+    }
+
+    public int getUpperLimit() {
+        return upperLimit;
+    }
+
+    /**
+     * @return the length of the text in UTF-8 bytes.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    static int parseCodePoint(String value) {
+        if (value.length() > 2 && (value.charAt(1) == 'x' || value.charAt(1) == 'X' || value.charAt(1) == '+')) {
+            return Integer.parseInt(value.substring(2), 16);
+        }
+        return Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip.stats;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one phase of a run; see RunStatistics. Record
+ * it with, for instance, "java -XX:StartFlightRecording=filename=run.jfr
+ * -jar textclip.jar ..." and look for com.google.code.textclip.Phase.
+ * <p/>
+ * Only RunStatistics refers to this class, and only when Flight Recorder is
+ * running, so runs without it never load the Flight Recorder event classes.
+ */
+@Name("com.google.code.textclip.Phase")
+@Label("TextClip Phase")
+@Category("TextClip")
+@Description("A phase of a TextClip run: parse, make, generate, clipboard or batch.")
+final class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Bytes")
+    @Description("Bytes generated in the phase; -1 when it does not generate any.")
+    @DataAmount
+    long bytes;
+
+    static Object begin(String thePhase) {
+        PhaseEvent event = new PhaseEvent();
+        event.phase = thePhase;
+        event.begin();
+        return event;
+    }
+
+    static void commit(Object theEvent, long theBytes) {
+        PhaseEvent event = (PhaseEvent) theEvent;
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = theBytes;
+            event.commit();
+        }
+    }
+}
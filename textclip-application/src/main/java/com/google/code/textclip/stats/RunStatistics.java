@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip.stats;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the phases of a run (parsing the arguments, making the product,
+ * generating the output) for the --stats option: the wall time, the number
+ * of bytes generated and the bytes allocated by the calling thread.
+ * <p/>
+ * Every phase is also committed as a {@link PhaseEvent} to JDK Flight
+ * Recorder when it is running, with or without --stats. The event class is
+ * only loaded in that case; loading it starts parts of Flight Recorder,
+ * which would add a few hundred milliseconds to every other run.
+ * <p/>
+ * Allocations are those of the calling thread; products that generate on a
+ * fork-join pool allocate part of their memory on the workers of the pool.
+ */
+public class RunStatistics {
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private final boolean measureAllocations;
+    private final boolean flightRecorder;
+    private final List<Phase> phases = new ArrayList<Phase>();
+
+    /**
+     * @param theMeasureAllocations also measure the bytes allocated by the
+     *                              thread; this loads the management classes,
+     *                              so it is only done for --stats.
+     */
+    public RunStatistics(boolean theMeasureAllocations) {
+        this.measureAllocations = theMeasureAllocations && (allocatedBytes() >= 0);
+        this.flightRecorder = isFlightRecorderRunning();
+    }
+
+    /**
+     * Starts measuring a phase; end it with {@link Phase#end(long)}.
+     */
+    public Phase begin(String theName) {
+        return new Phase(theName);
+    }
+
+    /**
+     * @return the ended phases, in the order in which they ended.
+     */
+    public List<Phase> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    /**
+     * Prints one line per phase and a total.
+     */
+    public void print(PrintStream out) {
+        out.println(String.format(Locale.ROOT, "%-10s %12s %15s %10s %15s",
+                "phase", "time (ms)", "bytes", "MB/s", "allocated (KB)"));
+        long totalNanos = 0;
+        long totalAllocated = 0;
+        for (Phase phase : phases) {
+            totalNanos += phase.getNanos();
+            totalAllocated += Math.max(0, phase.getAllocatedBytes());
+            out.println(String.format(Locale.ROOT, "%-10s %12.3f %15s %10s %15s",
+                    phase.getName(), phase.getNanos() / NANOS_PER_MILLI,
+                    phase.getBytes() < 0 ? "-" : String.format(Locale.ROOT, "%,d", phase.getBytes()),
+                    phase.getBytes() < 0 ? "-" : String.format(Locale.ROOT, "%.1f", phase.getThroughput()),
+                    phase.getAllocatedBytes() < 0 ? "-" : String.format(Locale.ROOT, "%,d", phase.getAllocatedBytes() / 1024)));
+        }
+        out.println(String.format(Locale.ROOT, "%-10s %12.3f %15s %10s %15s",
+                "total", totalNanos / NANOS_PER_MILLI, "", "",
+                measureAllocations ? String.format(Locale.ROOT, "%,d", totalAllocated / 1024) : "-"));
+    }
+
+    /**
+     * @return the bytes allocated by the calling thread so far, or -1 when
+     * the JVM does not support measuring it.
+     */
+    private static long allocatedBytes() {
+        try {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if ((threads instanceof com.sun.management.ThreadMXBean)
+                    && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemoryEnabled()) {
+                return ((com.sun.management.ThreadMXBean) threads)
+                        .getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        } catch (LinkageError e) {
+            /* No com.sun.management on this JVM. */
+        } catch (UnsupportedOperationException e) {
+            /* Not supported by this JVM. */
+        }
+        return -1;
+    }
+
+    private static boolean isFlightRecorderRunning() {
+        try {
+            return jdk.jfr.FlightRecorder.isInitialized();
+        } catch (LinkageError e) {
+            /* A Java 8 runtime without Flight Recorder. */
+            return false;
+        }
+    }
+
+    /**
+     * One measured phase.
+     */
+    public final class Phase {
+        private final String name;
+        private final long start;
+        private final long startAllocated;
+        private final Object event;
+        private long nanos = -1;
+        private long bytes = -1;
+        private long allocated = -1;
+
+        private Phase(String theName) {
+            this.name = theName;
+            this.event = flightRecorder ? PhaseEvent.begin(theName) : null;
+            this.startAllocated = measureAllocations ? allocatedBytes() : -1;
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * Ends the phase.
+         *
+         * @param theBytes the number of bytes generated in the phase, or -1
+         *                 when the phase does not generate any.
+         */
+        public void end(long theBytes) {
+            this.nanos = System.nanoTime() - start;
+            this.bytes = theBytes;
+            if (measureAllocations) {
+                this.allocated = allocatedBytes() - startAllocated;
+            }
+            if (event != null) {
+                PhaseEvent.commit(event, theBytes);
+            }
+            phases.add(this);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the wall time of the phase in nanoseconds.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return the bytes generated in the phase, or -1 if not known.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the bytes allocated by the thread in the phase, or -1 if
+         * not measured.
+         */
+        public long getAllocatedBytes() {
+            return allocated;
+        }
+
+        /**
+         * @return the generated megabytes per second.
+         */
+        public double getThroughput() {
+            return nanos > 0 ? (bytes / BYTES_PER_MEGABYTE) / (nanos / 1e9) : 0;
+        }
+    }
+}
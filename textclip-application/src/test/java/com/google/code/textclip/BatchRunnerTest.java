@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip;
+
+import com.google.code.textclip.enums.TextClipError;
+import junit.framework.TestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class BatchRunnerTest {
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+    @Test
+    public void run_validJobs_allFilesWritten() throws IOException {
+        /* ARRANGE */
+        File first = new File(testFolder.getRoot(), "first.txt");
+        File second = new File(testFolder.getRoot(), "second file.txt");
+        File manifest = createManifest(
+                "# fixtures",
+                "-co 10:* --out " + first.getPath(),
+                "",
+                "-t \"two words\" -m 2 --out \"" + second.getPath() + "\"");
+        BatchRunner runner = new BatchRunner(new PrintStream(report, true), 2);
+
+        /* ACT */
+        TextClipError status = runner.run(manifest);
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", TextClipError.NO_ERROR, status);
+        TestCase.assertEquals("Jobs", 2, runner.getJobCount());
+        TestCase.assertEquals("Failed jobs", 0, runner.getFailedCount());
+        TestCase.assertEquals("First file", "*2*4*6*8**", read(first));
+        TestCase.assertEquals("Second file", "two wordstwo words", read(second));
+        String[] lines = report.toString().split("\\r?\\n");
+        TestCase.assertEquals("Report lines", 2, lines.length);
+        TestCase.assertTrue("Report of line 2: " + lines[0], lines[0].startsWith("manifest.txt:2: status 0, "));
+        TestCase.assertTrue("Report of line 4: " + lines[1], lines[1].startsWith("manifest.txt:4: status 0, "));
+    }
+
+    @Test
+    public void run_failingJobs_statusPerJob() throws IOException {
+        /* ARRANGE */
+        File written = new File(testFolder.getRoot(), "written.txt");
+        File manifest = createManifest(
+                "-ch 300 --out " + new File(testFolder.getRoot(), "range.txt").getPath(),
+                "-co 10:*",
+                "-t \"unclosed --out x.txt",
+                "--unknown",
+                "-a --out " + written.getPath());
+        BatchRunner runner = new BatchRunner(new PrintStream(report, true), 3);
+
+        /* ACT */
+        TextClipError status = runner.run(manifest);
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", TextClipError.ERROR_BATCH_JOB_FAILED, status);
+        TestCase.assertEquals("Jobs", 5, runner.getJobCount());
+        TestCase.assertEquals("Failed jobs", 4, runner.getFailedCount());
+        String[] lines = report.toString().split("\\r?\\n");
+        TestCase.assertEquals("Report lines", 5, lines.length);
+        TestCase.assertTrue(lines[0], lines[0].startsWith("manifest.txt:1: status 2, "));
+        TestCase.assertEquals("manifest.txt:2: status 1, a batch job needs --out <file>.", lines[1]);
+        TestCase.assertTrue(lines[2], lines[2].startsWith("manifest.txt:3: status 3, "));
+        TestCase.assertTrue(lines[3], lines[3].startsWith("manifest.txt:4: status 1, "));
+        TestCase.assertTrue(lines[4], lines[4].startsWith("manifest.txt:5: status 0, "));
+        TestCase.assertEquals("Last job still ran", 254, written.length());
+    }
+
+    @Test
+    public void run_missingManifest_ERROR_READING_BATCH() {
+        /* ARRANGE */
+        BatchRunner runner = new BatchRunner(new PrintStream(report, true), 1);
+
+        /* ACT */
+        TextClipError status = runner.run(new File(testFolder.getRoot(), "missing.txt"));
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", TextClipError.ERROR_READING_BATCH, status);
+        TestCase.assertEquals("No report", 0, report.size());
+    }
+
+    @Test
+    public void run_manyJobs_reportInManifestOrder() throws IOException {
+        /* ARRANGE */
+        String[] jobs = new String[200];
+        for (int i = 0; i < jobs.length; i++) {
+            jobs[i] = "-co " + (i + 1) + ":* --out " + new File(testFolder.getRoot(), i + ".txt").getPath();
+        }
+        File manifest = createManifest(jobs);
+        BatchRunner runner = new BatchRunner(new PrintStream(report, true), 4);
+
+        /* ACT */
+        TextClipError status = runner.run(manifest);
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", TextClipError.NO_ERROR, status);
+        String[] lines = report.toString().split("\\r?\\n");
+        TestCase.assertEquals("Report lines", jobs.length, lines.length);
+        for (int i = 0; i < jobs.length; i++) {
+            TestCase.assertTrue(lines[i], lines[i].startsWith("manifest.txt:" + (i + 1) + ": status 0, "));
+            TestCase.assertEquals("Length of " + i, i + 1, new File(testFolder.getRoot(), i + ".txt").length());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_noThreads_IllegalArgumentException() {
+        new BatchRunner(new PrintStream(report), 0);
+    }
+
+    private File createManifest(String... lines) throws IOException {
+        File manifest = new File(testFolder.getRoot(), "manifest.txt");
+        Files.write(manifest.toPath(), Arrays.asList(lines), Charset.defaultCharset());
+        return manifest;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip;
+
+import com.google.code.textclip.generators.FromFileGeneratorProduct;
+import com.google.code.textclip.generators.GeneratorProduct;
+import com.google.code.textclip.generators.RepeatedGeneratorProduct;
+import com.google.code.textclip.generators.TextGeneratorProduct;
+import junit.framework.TestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class ClipboardTextTest {
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    /**
+     * Validates that a short text is generated and kept.
+     */
+    @Test
+    public void check_ShortText_Kept() throws Exception {
+        /* ARRANGE */
+        GeneratorProduct product = new RepeatedGeneratorProduct(new TextGeneratorProduct("AB"), 3);
+
+        /* ACT */
+        GeneratorProduct checked = ClipboardText.check(product);
+
+        /* ASSERT */
+        TestCase.assertTrue("Kept", checked instanceof TextGeneratorProduct);
+        TestCase.assertEquals("Text", "ABABAB", checked.generate());
+    }
+
+    /**
+     * Validates that a text longer than the keep limit is not kept.
+     */
+    @Test
+    public void check_LongText_Product() throws Exception {
+        /* ARRANGE */
+        GeneratorProduct product = new RepeatedGeneratorProduct(new TextGeneratorProduct("AB"),
+                ClipboardText.KEEP_LIMIT);
+
+        /* ACT */
+        GeneratorProduct checked = ClipboardText.check(product);
+
+        /* ASSERT */
+        TestCase.assertSame("Product", product, checked);
+    }
+
+    /**
+     * Validates that a text too long for a String is refused.
+     */
+    @Test(expected = IOException.class)
+    public void check_TooLongForString_IOException() throws Exception {
+        /* ARRANGE, ACT & ASSERT */
+        ClipboardText.check(new RepeatedGeneratorProduct(
+                new TextGeneratorProduct(new String(new char[1024 * 1024])), 2048));
+    }
+
+    /**
+     * Validates that a file that can no longer be read is refused.
+     */
+    @Test(expected = IOException.class)
+    public void check_FileRemoved_IOException() throws Exception {
+        /* ARRANGE */
+        File file = testFolder.newFile("removed.txt");
+        Files.write(file.toPath(), "content".getBytes("US-ASCII"));
+        GeneratorProduct product = new FromFileGeneratorProduct(file);
+        TestCase.assertTrue("Deleted", file.delete());
+
+        /* ACT & ASSERT */
+        ClipboardText.check(product);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip;
+
+import com.google.code.textclip.generators.CounterStringGeneratorProduct;
+import com.google.code.textclip.generators.GeneratorProduct;
+import com.google.code.textclip.generators.TextGeneratorProduct;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+public class GeneratorSelectionTest {
+
+    /**
+     * Validates that the text is not generated before it is requested.
+     */
+    @Test
+    public void constructor_DoesNotGenerate() {
+        /*
+        ARRANGE
+         */
+        CountingProduct product = new CountingProduct("Don't care");
+
+        /*
+        ACT
+         */
+        GeneratorSelection selection = new GeneratorSelection(product);
+
+        /*
+        ASSERT
+         */
+        TestCase.assertTrue("String flavor", selection.isDataFlavorSupported(DataFlavor.stringFlavor));
+        TestCase.assertEquals("Generated before request", 0, product.count);
+    }
+
+    /**
+     * Validates the string flavor.
+     */
+    @Test
+    public void getTransferData_StringFlavor() throws Exception {
+        /*
+        ARRANGE
+         */
+        CountingProduct product = new CountingProduct("Some text");
+        GeneratorSelection selection = new GeneratorSelection(product);
+
+        /*
+        ACT
+         */
+        Object data = selection.getTransferData(DataFlavor.stringFlavor);
+
+        /*
+        ASSERT
+         */
+        TestCase.assertEquals("String flavor", "Some text", data);
+        TestCase.assertEquals("Generated on request", 1, product.count);
+    }
+
+    /**
+     * Validates the reader flavor with a text larger than the pipe.
+     */
+    @Test
+    public void getTransferData_ReaderFlavor() throws Exception {
+        /*
+        ARRANGE
+         */
+        GeneratorProduct product = new CounterStringGeneratorProduct('*', 100000);
+        GeneratorSelection selection = new GeneratorSelection(product);
+
+        /*
+        ACT
+         */
+        Reader reader = (Reader) selection.getTransferData(GeneratorSelection.READER_FLAVOR);
+        StringBuilder actual = new StringBuilder();
+        char[] buffer = new char[1000];
+        int count;
+        while ((count = reader.read(buffer)) != -1) {
+            actual.append(buffer, 0, count);
+        }
+        reader.close();
+
+        /*
+        ASSERT
+         */
+        TestCase.assertEquals("Reader flavor", product.generate(), actual.toString());
+    }
+
+    /**
+     * Validates the UTF-8 input stream flavor.
+     */
+    @Test
+    public void getTransferData_InputStreamFlavor() throws Exception {
+        /*
+        ARRANGE
+         */
+        final String text = "Aë€";
+        GeneratorSelection selection = new GeneratorSelection(new TextGeneratorProduct(text));
+
+        /*
+        ACT
+         */
+        InputStream stream = (InputStream) selection.getTransferData(GeneratorSelection.UTF8_STREAM_FLAVOR);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        int value;
+        while ((value = stream.read()) != -1) {
+            actual.write(value);
+        }
+        stream.close();
+
+        /*
+        ASSERT
+         */
+        TestCase.assertEquals("Input stream flavor", text, actual.toString("UTF-8"));
+    }
+
+    /**
+     * Validates that an unsupported flavor is refused.
+     */
+    @Test(expected = UnsupportedFlavorException.class)
+    public void getTransferData_UnsupportedFlavor() throws Exception {
+        /* ARRANGE, ACT & ASSERT */
+        new GeneratorSelection(new TextGeneratorProduct("text"))
+                .getTransferData(DataFlavor.imageFlavor);
+    }
+
+    /**
+     * Text product that counts how often the text is generated.
+     */
+    private static class CountingProduct implements GeneratorProduct {
+        private final String text;
+        private int count = 0;
+
+        CountingProduct(String theText) {
+            this.text = theText;
+        }
+
+        @Override
+        public String generate() {
+            count++;
+            return text;
+        }
+
+        @Override
+        public void generate(Appendable output) throws IOException {
+            count++;
+            output.append(text);
+        }
+    }
+}
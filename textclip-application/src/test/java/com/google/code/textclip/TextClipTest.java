@@ -39,6 +39,13 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
 
 /**
  * GENERAL: Strive to test the public interface of the model, ignoring
@@ -273,7 +280,7 @@ public class TextClipTest {
                         {{"-co", "14", "$"}, {"14", "$2$4$6$8$10$$$", ""}},
                         {{"-co", "15", "$"}, {"15", "$2$4$6$8$10$13$", ""}},
                         {{"--counterstring", "25", "$"}, {"25", "$2$4$6$8$10$13$16$19$22$$", ""}},
-                        {{"--counterstring", "0", "$"}, {"0", "", "The chosen value is out of range (1..254)."}},
+                        {{"--counterstring", "0", "$"}, {"0", "", "The chosen value is out of range; see the message above."}},
                         {{"--counterstring", "-10", "$"}, {"0", "", "Incorrect format e.g. counterstring: -co \"10:a\" or random: -ra \"10:20:30\"."}},
                         {{"--counterstring", "25", "$b"}, {"0", "", "Incorrect format e.g. counterstring: -co \"10:a\" or random: -ra \"10:20:30\"."}}
                 };
@@ -349,4 +356,321 @@ public class TextClipTest {
                     theApp.getStatus().getMessage());
         }
     }
+
+    /**
+     * Validates writing the test string to a file (-o and --out).
+     */
+    @Test
+    public void textToOutput_File() throws IOException {
+        /* ARRANGE */
+        File output = new File(testFolder.getRoot(), "output.txt");
+        final String[][] argumentsArray = {
+                {"-co", "25:*", "-o", output.getAbsolutePath()},
+                {"-co", "25:*", "--out", output.getAbsolutePath()}
+        };
+
+        for (String[] arguments : argumentsArray) {
+            /* ACT */
+            TextClip theApp = new TextClip(arguments);
+            theApp.textToOutput();
+
+            /* ASSERT */
+            TestCase.assertEquals("Status", TextClipError.NO_ERROR, theApp.getStatus());
+            TestCase.assertEquals("Content of " + arguments[2], "*2*4*6*8*10*13*16*19*22**",
+                    new String(Files.readAllBytes(output.toPath())));
+        }
+    }
+
+    /**
+     * Validates writing the test string to the standard output (-o -).
+     */
+    @Test
+    public void textToOutput_StandardOutput() {
+        /* ARRANGE */
+        PrintStream console = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        TextClip theApp = new TextClip(new String[]{"-ch", "65:70", "-o", "-"});
+
+        /* ACT */
+        System.setOut(new PrintStream(captured));
+        try {
+            theApp.textToOutput();
+        } finally {
+            System.setOut(console);
+        }
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", TextClipError.NO_ERROR, theApp.getStatus());
+        TestCase.assertEquals("Standard output", "ABCDEF", captured.toString());
+    }
+
+    /**
+     * Validates the status when the output file cannot be written.
+     */
+    @Test
+    public void textToOutput_UnwritableFile() {
+        /* ARRANGE */
+        File output = new File(new File(testFolder.getRoot(), "missing_directory"), "output.txt");
+        TextClip theApp = new TextClip(new String[]{"-a", "-o", output.getAbsolutePath()});
+
+        /* ACT */
+        theApp.textToOutput();
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", TextClipError.ERROR_WRITING_OUTPUT, theApp.getStatus());
+    }
+
+    /**
+     * Validates that run writes the test string and the message to the
+     * given streams and returns the status code.
+     */
+    @Test
+    public void run_WithStreams() {
+        /* ARRANGE */
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        TextClip theApp = new TextClip(new String[]{"-ch", "65:70", "-o", "-"},
+                new PrintStream(out), new PrintStream(err));
+
+        /* ACT */
+        int status = theApp.run();
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", 0, status);
+        TestCase.assertEquals("Standard output", "ABCDEF", out.toString());
+        TestCase.assertTrue("Standard error", err.toString().startsWith("Test string is written to the standard output."));
+    }
+
+    /**
+     * Validates that a standard output that fails, like a closed pipe,
+     * stops the generation and ends with the status of a write error.
+     */
+    @Test
+    public void run_StandardOutputFails() {
+        /* ARRANGE */
+        final long[] written = {0};
+        OutputStream pipe = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                if (written[0] >= 20) {
+                    throw new IOException("Broken pipe");
+                }
+                written[0] += length;
+            }
+        };
+        TextClip theApp = new TextClip(new String[]{"-co", "1500000000:*", "-o", "-"},
+                new PrintStream(pipe), new PrintStream(new ByteArrayOutputStream()));
+
+        /* ACT */
+        int status = theApp.run();
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", TextClipError.ERROR_WRITING_OUTPUT.toInt(), status);
+        TestCase.assertTrue("Written " + written[0], written[0] < 1024 * 1024);
+    }
+
+    /**
+     * Validates that run reports wrong arguments on the given output stream.
+     */
+    @Test
+    public void run_WrongArguments() {
+        /* ARRANGE */
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TextClip theApp = new TextClip(new String[]{"-unknown"},
+                new PrintStream(out), new PrintStream(new ByteArrayOutputStream()));
+
+        /* ACT */
+        int status = theApp.run();
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", TextClipError.ERROR_PARSING_ARGUMENTS.toInt(), status);
+        TestCase.assertTrue("Message", out.toString().contains(TextClipError.ERROR_PARSING_ARGUMENTS.getMessage()));
+    }
+
+    /**
+     * Validates that numbers out of range for every kind of text are
+     * reported as a mistake in the arguments, with a message that names
+     * the option.
+     */
+    @Test
+    public void run_OptionOutOfRange() {
+        /* ARRANGE */
+        final String[][] testData = {
+                {"-m", "0", "-ra", "65:90:10", "-o", "-"},
+                {"-l", "0", "-ch", "65:70", "-o", "-"},
+                {"-n", "-2", "-tp", "ID", "-o", "-"},
+                {"--offset", "-3", "-ra", "65:90:10", "-s", "1", "-o", "-"},
+                {"--cache-quota", "-1", "-co", "10:*", "--cache", "cache", "-o", "-"}
+        };
+
+        for (String[] arguments : testData) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            TextClip theApp = new TextClip(arguments,
+                    new PrintStream(out), new PrintStream(new ByteArrayOutputStream()));
+
+            /* ACT */
+            int status = theApp.run();
+
+            /* ASSERT */
+            TestCase.assertEquals("Status of " + arguments[0], TextClipError.ERROR_PARSING_ARGUMENTS.toInt(), status);
+            TestCase.assertTrue("Message of " + arguments[0], out.toString().contains(arguments[0] + " "));
+        }
+    }
+
+    /**
+     * Validates that a value out of range of a generator without a status of
+     * its own is reported with the message of the generator.
+     */
+    @Test
+    public void run_ValueOutOfRange() {
+        /* ARRANGE */
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        TextClip theApp = new TextClip(new String[]{"-co", "0:*", "-o", "-"},
+                new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+
+        /* ACT */
+        int status = theApp.run();
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", TextClipError.ERROR_VALUE_OUT_OF_RANGE.toInt(), status);
+        TestCase.assertTrue("Detail", err.toString().contains("length value is smaller than 1"));
+        TestCase.assertTrue("Message", err.toString().contains(TextClipError.ERROR_VALUE_OUT_OF_RANGE.getMessage()));
+    }
+
+    /**
+     * Validates that run processes every job of a batch manifest.
+     */
+    @Test
+    public void run_Batch() throws IOException {
+        /* ARRANGE */
+        File output = new File(testFolder.getRoot(), "batch.txt");
+        File manifest = testFolder.newFile("manifest.txt");
+        Files.write(manifest.toPath(), Arrays.asList("-ch 65:70 --out " + output.getPath()),
+                Charset.defaultCharset());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TextClip theApp = new TextClip(new String[]{"--batch", manifest.getPath()},
+                new PrintStream(out), new PrintStream(new ByteArrayOutputStream()));
+
+        /* ACT */
+        int status = theApp.run();
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", 0, status);
+        TestCase.assertEquals("Output file", 6, output.length());
+        TestCase.assertTrue("Job status", out.toString().startsWith("manifest.txt:1: status 0, "));
+        TestCase.assertTrue("Message", out.toString().contains("All 1 jobs of the batch are processed."));
+    }
+
+    /**
+     * Validates that an unknown encoding is reported with its own status.
+     */
+    @Test
+    public void createTestString_UnknownEncoding() throws IOException {
+        /* ARRANGE */
+        File file = testFolder.newFile("encoded.txt");
+        Files.write(file.toPath(), "content".getBytes(Charset.defaultCharset()));
+        final String[][] testData = {{"-f", file.getPath(), "-e", "NO-SUCH-ENCODING"}, {"-f", file.getPath(), "-e", "bad name!"}};
+
+        for (String[] arguments : testData) {
+            TextClip theApp = new TextClip(arguments);
+
+            /* ACT */
+            theApp.createTestString();
+
+            /* ASSERT */
+            TestCase.assertEquals("Status for " + arguments[3], TextClipError.ERROR_UNKNOWN_ENCODING, theApp.getStatus());
+        }
+    }
+
+    /**
+     * Validates that Unicode limits, or a byte length the range cannot fill,
+     * are reported with their own status.
+     */
+    @Test
+    public void createTestString_UnicodeOutOfRange() {
+        /* ARRANGE */
+        final String[] testData = {"0:127:10", "1:0x110000:10", "U+10000:U+10FFFF:7"};
+
+        for (String unicode : testData) {
+            TextClip theApp = new TextClip(new String[]{"-u", unicode});
+
+            /* ACT */
+            theApp.createTestString();
+
+            /* ASSERT */
+            TestCase.assertEquals("Status for " + unicode, TextClipError.ERROR_UNICODE_OUT_OF_RANGE, theApp.getStatus());
+        }
+    }
+
+    /**
+     * Validates that a table with a surrogate code point ends with the
+     * status of code points out of range.
+     */
+    @Test
+    public void createTestString_WeightedTableOutOfRange() throws IOException {
+        /* ARRANGE */
+        File table = testFolder.newFile("table.txt");
+        Files.write(table.toPath(), "U+0061 1\nU+D800 1\n".getBytes("ISO-8859-1"));
+        TextClip theApp = new TextClip(new String[]{"-w", "10", "--table", table.getAbsolutePath()});
+
+        /* ACT */
+        theApp.createTestString();
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", TextClipError.ERROR_UNICODE_OUT_OF_RANGE, theApp.getStatus());
+    }
+
+    /**
+     * Validates that --stats prints every phase after the message, on the
+     * standard error when the test string goes to the standard output.
+     */
+    @Test
+    public void run_Stats() {
+        /* ARRANGE */
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        TextClip theApp = new TextClip(new String[]{"-co", "1000:*", "-o", "-", "--stats"},
+                new PrintStream(out), new PrintStream(err));
+
+        /* ACT */
+        int status = theApp.run();
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", 0, status);
+        TestCase.assertEquals("Standard output", 1000, out.size());
+        String report = err.toString();
+        TestCase.assertTrue(report, report.contains("\nparse "));
+        TestCase.assertTrue(report, report.contains("\nmake "));
+        TestCase.assertTrue(report, report.contains("\ngenerate ") && report.contains(" 1,000 "));
+        TestCase.assertTrue(report, report.contains("\ntotal "));
+    }
+
+    /**
+     * Validates that TextClip refers to no AWT class itself, so that runs
+     * without the clipboard do not load AWT.
+     */
+    @Test
+    public void classFile_NoAwtReferences() throws IOException {
+        /* ARRANGE */
+        InputStream stream = TextClip.class.getResourceAsStream("TextClip.class");
+        ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+
+        /* ACT */
+        try {
+            byte[] buffer = new byte[4096];
+            for (int read = stream.read(buffer); read != -1; read = stream.read(buffer)) {
+                classFile.write(buffer, 0, read);
+            }
+        } finally {
+            stream.close();
+        }
+
+        /* ASSERT */
+        TestCase.assertFalse("AWT reference", classFile.toString("ISO-8859-1").contains("java/awt"));
+    }
 }
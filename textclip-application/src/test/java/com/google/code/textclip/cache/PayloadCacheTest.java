@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip.cache;
+
+import junit.framework.TestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class PayloadCacheTest {
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void key_SameSpecification_SameKey() {
+        /* ACT */
+        String key = PayloadCache.key("counterstring:25:42");
+
+        /* ASSERT */
+        TestCase.assertEquals("Same key", key, PayloadCache.key("counterstring:25:42"));
+        TestCase.assertFalse("Other key", key.equals(PayloadCache.key("counterstring:26:42")));
+        TestCase.assertTrue("Hex SHA-256: " + key, key.matches("[0-9a-f]{64}"));
+    }
+
+    @Test
+    public void lookup_StoredPayload_Found() throws IOException {
+        /* ARRANGE */
+        PayloadCache cache = new PayloadCache(new File(testFolder.getRoot(), "cache"), PayloadCache.DEFAULT_QUOTA);
+        String key = PayloadCache.key("text:abc");
+        TestCase.assertNull("Not cached yet", cache.lookup(key));
+        File generated = cache.createTemporaryFile();
+        Files.write(generated.toPath(), new byte[]{'a', 'b', 'c'});
+
+        /* ACT */
+        cache.store(key, generated);
+        File payload = cache.lookup(key);
+
+        /* ASSERT */
+        TestCase.assertNotNull("Cached", payload);
+        TestCase.assertFalse("Temporary file moved", generated.exists());
+        TestCase.assertTrue("Content", Arrays.equals(new byte[]{'a', 'b', 'c'}, Files.readAllBytes(payload.toPath())));
+    }
+
+    @Test
+    public void evict_OverQuota_LeastRecentlyUsedDeleted() throws IOException {
+        /* ARRANGE */
+        PayloadCache cache = new PayloadCache(testFolder.getRoot(), 250);
+        File[] payloads = new File[3];
+        for (int i = 0; i < payloads.length; i++) {
+            File generated = cache.createTemporaryFile();
+            Files.write(generated.toPath(), new byte[100]);
+            payloads[i] = cache.store(PayloadCache.key("payload " + i), generated);
+            payloads[i].setLastModified(1000000000000L + i * 10000L);
+        }
+        /* The oldest payload is used again, so the second one is now the least recently used. */
+        TestCase.assertNotNull("Hit", cache.lookup(PayloadCache.key("payload 0")));
+
+        /* ACT */
+        cache.evict();
+
+        /* ASSERT */
+        TestCase.assertTrue("Used again", payloads[0].exists());
+        TestCase.assertFalse("Least recently used", payloads[1].exists());
+        TestCase.assertTrue("Newest", payloads[2].exists());
+    }
+
+    @Test
+    public void evict_PayloadLargerThanQuota_Deleted() throws IOException {
+        /* ARRANGE */
+        PayloadCache cache = new PayloadCache(testFolder.getRoot(), 10);
+        File generated = cache.createTemporaryFile();
+        Files.write(generated.toPath(), new byte[11]);
+        File payload = cache.store(PayloadCache.key("large"), generated);
+
+        /* ACT */
+        cache.evict();
+
+        /* ASSERT */
+        TestCase.assertFalse("Deleted", payload.exists());
+    }
+
+    @Test
+    public void serve_PayloadWrittenToChannel() throws IOException {
+        /* ARRANGE */
+        File payload = testFolder.newFile();
+        byte[] content = new byte[100000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Files.write(payload.toPath(), content);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        /* ACT */
+        PayloadCache.serve(payload, Channels.newChannel(output));
+
+        /* ASSERT */
+        TestCase.assertTrue("Served", Arrays.equals(content, output.toByteArray()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_NegativeQuota_IllegalArgumentException() {
+        new PayloadCache(testFolder.getRoot(), -1);
+    }
+}
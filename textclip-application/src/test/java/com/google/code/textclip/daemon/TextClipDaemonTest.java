@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.daemon;
+
+import com.google.code.textclip.enums.TextClipError;
+import junit.framework.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+
+public class TextClipDaemonTest {
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+    private File stateFile;
+    private TextClipDaemon daemon;
+
+    @Before
+    public void setUp() throws IOException {
+        stateFile = new File(testFolder.getRoot(), "daemon.properties");
+        daemon = new TextClipDaemon(0, stateFile);
+        daemon.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        daemon.close();
+    }
+
+    /**
+     * Validates that a request returns the test string, message and status.
+     */
+    @Test
+    public void run_StandardOutput() throws IOException {
+        /* ARRANGE */
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        /* ACT */
+        int status = TextClipClient.run(new String[]{"-co", "25:*", "-o", "-"}, stateFile, out, err);
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", 0, status);
+        TestCase.assertEquals("Standard output", "*2*4*6*8*10*13*16*19*22**", out.toString());
+        TestCase.assertTrue("Standard error", err.toString().startsWith("Test string is written to the standard output."));
+    }
+
+    /**
+     * Validates that a large test string arrives completely.
+     */
+    @Test
+    public void run_LargeOutput() throws IOException {
+        /* ARRANGE */
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        /* ACT */
+        int status = TextClipClient.run(new String[]{"-ch", "65:90", "-l", "1000000", "-o", "-"}, stateFile, out, err);
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", 0, status);
+        TestCase.assertEquals("Length", 1000000, out.size());
+        TestCase.assertTrue("Content", out.toString().startsWith("ABCDEFGHIJKLMNOPQRSTUVWXYZABC"));
+    }
+
+    /**
+     * Validates that the daemon serves many requests and reports errors.
+     */
+    @Test
+    public void run_RepeatedRequests() throws IOException {
+        for (int i = 1; i <= 50; i++) {
+            /* ARRANGE */
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            File output = new File(testFolder.getRoot(), "output.txt");
+
+            /* ACT */
+            int status = TextClipClient.run(new String[]{"-t", "run " + i, "-o", output.getAbsolutePath()},
+                    stateFile, out, new ByteArrayOutputStream());
+            int wrongStatus = TextClipClient.run(new String[]{"-co", "25"},
+                    stateFile, new ByteArrayOutputStream(), new ByteArrayOutputStream());
+
+            /* ASSERT */
+            TestCase.assertEquals("Status", 0, status);
+            TestCase.assertEquals("Content", "run " + i, new String(Files.readAllBytes(output.toPath())));
+            TestCase.assertEquals("Status of wrong format",
+                    TextClipError.ERROR_PARSING_ARGUMENT_WRONG_FORMAT.toInt(), wrongStatus);
+        }
+    }
+
+    /**
+     * Validates that a request with a wrong token is refused.
+     */
+    @Test(expected = IOException.class)
+    public void run_WrongToken_IOException() throws IOException {
+        /* ARRANGE */
+        DaemonProtocol.writeState(stateFile, daemon.getPort(), "wrong");
+
+        /* ACT & ASSERT */
+        TextClipClient.run(new String[]{"-a", "-o", "-"}, stateFile,
+                new ByteArrayOutputStream(), new ByteArrayOutputStream());
+    }
+
+    /**
+     * Validates that closing the daemon removes its state file.
+     */
+    @Test
+    public void close_RemovesStateFile() throws IOException {
+        /* ARRANGE */
+        TestCase.assertTrue("State file", stateFile.exists());
+
+        /* ACT */
+        daemon.close();
+
+        /* ASSERT */
+        TestCase.assertFalse("State file", stateFile.exists());
+    }
+
+    /**
+     * Validates that the client fails without a daemon.
+     */
+    @Test(expected = IOException.class)
+    public void run_NoDaemon_IOException() throws IOException {
+        /* ARRANGE */
+        daemon.close();
+
+        /* ACT & ASSERT */
+        TextClipClient.run(new String[]{"-a", "-o", "-"}, stateFile,
+                new ByteArrayOutputStream(), new ByteArrayOutputStream());
+    }
+
+    /**
+     * Validates that relative paths, also those of the jobs of a batch, are
+     * relative to the directory of the client, not to that of the daemon.
+     */
+    @Test
+    public void run_RelativePaths_DirectoryOfClient() throws IOException {
+        /* ARRANGE */
+        File directory = testFolder.newFolder("client");
+        Files.write(new File(directory, "in.txt").toPath(), "abc".getBytes("US-ASCII"));
+        Files.write(new File(directory, "jobs.txt").toPath(), "-f in.txt -m 2 --out job.txt\n".getBytes("US-ASCII"));
+
+        /* ACT */
+        int status = TextClipClient.run(new String[]{"-f", "in.txt", "--out=rel.txt"}, directory, stateFile,
+                new ByteArrayOutputStream(), new ByteArrayOutputStream());
+        int batchStatus = TextClipClient.run(new String[]{"-b", "jobs.txt"}, directory, stateFile,
+                new ByteArrayOutputStream(), new ByteArrayOutputStream());
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", 0, status);
+        TestCase.assertEquals("Content", "abc", new String(Files.readAllBytes(new File(directory, "rel.txt").toPath())));
+        TestCase.assertEquals("Batch status", 0, batchStatus);
+        TestCase.assertEquals("Content of the job", "abcabc",
+                new String(Files.readAllBytes(new File(directory, "job.txt").toPath())));
+    }
+
+    /**
+     * Validates that the files of a template are relative to the directory
+     * of the client too.
+     */
+    @Test
+    public void run_TemplateFile_DirectoryOfClient() throws IOException {
+        /* ARRANGE */
+        File directory = testFolder.newFolder("client");
+        Files.write(new File(directory, "head.txt").toPath(), "abc".getBytes("US-ASCII"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        /* ACT */
+        int status = TextClipClient.run(new String[]{"-tp", "{file:head.txt}-{counter}", "-n", "2", "-o", "-"},
+                directory, stateFile, out, new ByteArrayOutputStream());
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", 0, status);
+        TestCase.assertEquals("Standard output", "abc-1\nabc-2\n", out.toString());
+    }
+
+    /**
+     * Validates that the daemon closes the connection when the token is
+     * announced longer than a token, without waiting for its bytes.
+     */
+    @Test
+    public void serve_LongToken_ConnectionClosed() throws IOException {
+        /* ARRANGE */
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort());
+        try {
+            socket.setSoTimeout(5000);
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+
+            /* ACT */
+            output.writeInt(DaemonProtocol.MAX_STRING_LENGTH);
+            output.flush();
+
+            /* ASSERT */
+            TestCase.assertEquals("End of stream", -1, socket.getInputStream().read());
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Validates that an unexpected exception of a run is reported to the
+     * client with a status instead of closing the connection.
+     */
+    @Test
+    public void run_RuntimeException_StatusUnexpected() throws IOException {
+        /* ARRANGE */
+        daemon.close();
+        daemon = new TextClipDaemon(0, stateFile) {
+            @Override
+            int run(String[] arguments, File directory, PrintStream out, PrintStream err) {
+                throw new IllegalArgumentException("Quota is negative.");
+            }
+        };
+        daemon.start();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        /* ACT */
+        int status = TextClipClient.run(new String[]{"-a", "-o", "-"}, stateFile, new ByteArrayOutputStream(), err);
+
+        /* ASSERT */
+        TestCase.assertEquals("Status", TextClipError.ERROR_UNEXPECTED.toInt(), status);
+        TestCase.assertTrue("Standard error", err.toString().contains("Quota is negative."));
+    }
+}
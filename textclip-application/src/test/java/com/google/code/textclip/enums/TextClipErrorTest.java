@@ -69,4 +69,57 @@ public class TextClipErrorTest {
         TestCase.assertSame("ERROR_PARSING_ARGUMENT_FILESIZE", "Chosen file is unreadable, has a filesize of zero or is too large.", status.getMessage());
         TestCase.assertSame("ERROR_PARSING_ARGUMENT_FILESIZE integer", 4, status.toInt());
     }
+
+    @Test
+    public void contructor_ERROR_WRITING_OUTPUT() throws Exception {
+        TextClipError status = TextClipError.ERROR_WRITING_OUTPUT;
+        TestCase.assertSame("ERROR_WRITING_OUTPUT", "The test string could not be written to the chosen output.", status.getMessage());
+        TestCase.assertSame("ERROR_WRITING_OUTPUT integer", 5, status.toInt());
+    }
+
+    @Test
+    public void contructor_ERROR_READING_BATCH() throws Exception {
+        TextClipError status = TextClipError.ERROR_READING_BATCH;
+        TestCase.assertSame("ERROR_READING_BATCH", "The batch manifest is unreadable.", status.getMessage());
+        TestCase.assertSame("ERROR_READING_BATCH integer", 6, status.toInt());
+    }
+
+    @Test
+    public void contructor_ERROR_BATCH_JOB_FAILED() throws Exception {
+        TextClipError status = TextClipError.ERROR_BATCH_JOB_FAILED;
+        TestCase.assertSame("ERROR_BATCH_JOB_FAILED", "One or more jobs of the batch failed; see the status of each job above.", status.getMessage());
+        TestCase.assertSame("ERROR_BATCH_JOB_FAILED integer", 7, status.toInt());
+    }
+
+    @Test
+    public void contructor_ERROR_UNKNOWN_ENCODING() throws Exception {
+        TextClipError status = TextClipError.ERROR_UNKNOWN_ENCODING;
+        TestCase.assertSame("ERROR_UNKNOWN_ENCODING", "The chosen encoding is unknown, e.g. use --encoding UTF-8.", status.getMessage());
+        TestCase.assertSame("ERROR_UNKNOWN_ENCODING integer", 8, status.toInt());
+    }
+
+    @Test
+    public void contructor_ERROR_UNICODE_OUT_OF_RANGE() throws Exception {
+        TextClipError status = TextClipError.ERROR_UNICODE_OUT_OF_RANGE;
+        TestCase.assertSame("ERROR_UNICODE_OUT_OF_RANGE",
+                "The code points are out of range (1..U+10FFFF), or no text of the range has the chosen number of bytes.",
+                status.getMessage());
+        TestCase.assertSame("ERROR_UNICODE_OUT_OF_RANGE integer", 9, status.toInt());
+    }
+
+    @Test
+    public void contructor_ERROR_UNEXPECTED() throws Exception {
+        TextClipError status = TextClipError.ERROR_UNEXPECTED;
+        TestCase.assertSame("ERROR_UNEXPECTED", "An unexpected error occurred; see the message above.",
+                status.getMessage());
+        TestCase.assertSame("ERROR_UNEXPECTED integer", 10, status.toInt());
+    }
+
+    @Test
+    public void contructor_ERROR_VALUE_OUT_OF_RANGE() throws Exception {
+        TextClipError status = TextClipError.ERROR_VALUE_OUT_OF_RANGE;
+        TestCase.assertSame("ERROR_VALUE_OUT_OF_RANGE", "The chosen value is out of range; see the message above.",
+                status.getMessage());
+        TestCase.assertSame("ERROR_VALUE_OUT_OF_RANGE integer", 11, status.toInt());
+    }
 }
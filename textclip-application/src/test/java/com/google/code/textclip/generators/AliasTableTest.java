@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+public class AliasTableTest {
+
+    /**
+     * Validates that every index is drawn about as often as its weight
+     * says, and an index without weight never.
+     */
+    @Test
+    public void sample_FrequenciesFollowWeights() {
+        /* ARRANGE */
+        final double[] weights = {1, 0, 2, 7, 0.5, 9.5};
+        final double sum = 20;
+        final int samples = 2000000;
+        AliasTable table = new AliasTable(weights);
+        SplittableRandom random = new SplittableRandom(11);
+        int[] counts = new int[weights.length];
+
+        /* ACT */
+        for (int i = 0; i < samples; i++) {
+            counts[table.sample(random.nextLong())]++;
+        }
+
+        /* ASSERT */
+        TestCase.assertEquals("Size", weights.length, table.size());
+        TestCase.assertEquals("Weight 0", 0, counts[1]);
+        for (int i = 0; i < weights.length; i++) {
+            double expected = samples * weights[i] / sum;
+            TestCase.assertEquals("Count of " + i, expected, counts[i], 0.01 * samples);
+        }
+    }
+
+    @Test
+    public void sample_OneWeight_AlwaysZero() {
+        /* ARRANGE */
+        AliasTable table = new AliasTable(new double[]{0.25});
+
+        /* ACT & ASSERT */
+        TestCase.assertEquals("Lowest bits", 0, table.sample(0L));
+        TestCase.assertEquals("Highest bits", 0, table.sample(-1L));
+    }
+
+    /**
+     * Validates that the extreme random longs stay within the table.
+     */
+    @Test
+    public void sample_ExtremeBits_InRange() {
+        /* ARRANGE */
+        AliasTable table = new AliasTable(new double[]{1, 1000000, 1});
+
+        /* ACT & ASSERT */
+        for (long bits : new long[]{0L, -1L, Long.MAX_VALUE, Long.MIN_VALUE, 0xFFFFFFFFL}) {
+            int index = table.sample(bits);
+            TestCase.assertTrue("Index of " + Long.toHexString(bits), index >= 0 && index < 3);
+        }
+    }
+}
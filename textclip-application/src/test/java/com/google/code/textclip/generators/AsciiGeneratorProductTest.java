@@ -1,10 +1,13 @@
 package com.google.code.textclip.generators;
 
 import com.google.code.textclip.exceptions.OutOfRangeException;
+import com.google.code.textclip.testhelpers.EncodingHelper;
 import junit.framework.TestCase;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 /*
  * Copyright (c) 2014, Jos Plas
@@ -253,4 +256,93 @@ public class AsciiGeneratorProductTest {
             TestCase.assertEquals(arguments[0], arguments[1], theTestString);
         }
     }
+
+    /**
+     * validates that streaming the range produces the same characters.
+     */
+    @Test
+    public void generateAppendable_SameAsGenerate() throws OutOfRangeException, IOException {
+        GeneratorProduct theProduct = new AsciiGeneratorProduct(65, 90);
+        StringBuilder output = new StringBuilder();
+
+        theProduct.generate(output);
+
+        TestCase.assertEquals("Streamed range", "ABCDEFGHIJKLMNOPQRSTUVWXYZ", output.toString());
+    }
+
+    /**
+     * Validates that a range is repeated until the length is reached.
+     */
+    @Test
+    public void generate_withLength_RepeatsRange() throws OutOfRangeException, IOException {
+        /* ARRANGE */
+        String[][] testData = {{"65", "67", "1", "A"}, {"65", "67", "3", "ABC"},
+                {"65", "67", "7", "ABCABCA"}, {"66", "66", "4", "BBBB"}};
+
+        for (String[] arguments : testData) {
+            GeneratorProduct theProduct = new AsciiGeneratorProduct(Integer.parseInt(arguments[0]),
+                    Integer.parseInt(arguments[1]), Integer.parseInt(arguments[2]));
+
+            /* ACT */
+            String theTestString = theProduct.generate();
+
+            /* ASSERT */
+            TestCase.assertEquals(arguments[2], arguments[3], theTestString);
+        }
+    }
+
+    /**
+     * Validates that a length of zero is refused.
+     */
+    @Test(expected = OutOfRangeException.class)
+    public void constructor_LengthZero_OutOfRangeException() throws OutOfRangeException {
+        new AsciiGeneratorProduct(65, 67, 0);
+    }
+
+    /**
+     * Validates that the streamed and generated long strings are equal and
+     * cyclic, across chunk borders.
+     */
+    @Test
+    public void generateAppendable_withLength_EqualsGenerate() throws OutOfRangeException, IOException {
+        /* ARRANGE */
+        final int length = 5 * GeneratorProduct.CHUNK_SIZE + 123;
+        GeneratorProduct theProduct = new AsciiGeneratorProduct(32, 126, length);
+        StringBuilder output = new StringBuilder();
+
+        /* ACT */
+        String generated = theProduct.generate();
+        theProduct.generate(output);
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated length", length, generated.length());
+        TestCase.assertEquals("Streamed equals generated", generated, output.toString());
+        for (int i = 0; i < length; i++) {
+            TestCase.assertEquals("Character " + i, (char) (32 + i % 95), generated.charAt(i));
+        }
+    }
+
+    /**
+     * Validates that the byte path writes the same bytes as the character
+     * path, also when the text is longer than the output buffer and when the
+     * charset forces the character path.
+     */
+    @Test
+    public void generateChannel_SameAsCharacterPath() throws OutOfRangeException, IOException {
+        final int longLength = GeneratorProduct.OUTPUT_BUFFER_SIZE * 3 + 17;
+        final Object[][] testData = {
+                {65, 90, 26, "UTF-8"}, {65, 90, longLength, "UTF-8"}, {1, 254, longLength, "ISO-8859-1"},
+                {1, 254, longLength, "US-ASCII"}, {1, 254, 1000, "UTF-8"}, {32, 32, longLength, "UTF-16"}
+        };
+
+        for (Object[] arguments : testData) {
+            AsciiGeneratorProduct product = new AsciiGeneratorProduct((Integer) arguments[0],
+                    (Integer) arguments[1], (Integer) arguments[2]);
+            Charset charset = Charset.forName((String) arguments[3]);
+
+            TestCase.assertTrue("Bytes of " + Arrays.toString(arguments),
+                    Arrays.equals(EncodingHelper.characterPath(product, charset),
+                            EncodingHelper.channelPath(product, charset)));
+        }
+    }
 }
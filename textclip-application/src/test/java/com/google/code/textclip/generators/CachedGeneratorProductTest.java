@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.cache.PayloadCache;
+import com.google.code.textclip.testhelpers.EncodingHelper;
+import junit.framework.TestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+public class CachedGeneratorProductTest {
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    /**
+     * Counts how often the channel output is generated.
+     */
+    private static class CountingProduct extends TextGeneratorProduct {
+        private int generated = 0;
+
+        CountingProduct(String text) {
+            super(text);
+        }
+
+        @Override
+        public void generate(WritableByteChannel output, Charset charset) throws IOException {
+            generated++;
+            super.generate(output, charset);
+        }
+    }
+
+    @Test
+    public void generateChannel_SecondRequest_ServedFromCache() throws IOException {
+        /* ARRANGE */
+        File directory = new File(testFolder.getRoot(), "cache");
+        CountingProduct product = new CountingProduct("cached text");
+        CachedGeneratorProduct cached = new CachedGeneratorProduct(product,
+                new PayloadCache(directory, PayloadCache.DEFAULT_QUOTA), "text:cached text");
+        Charset charset = Charset.forName("US-ASCII");
+
+        /* ACT */
+        byte[] first = EncodingHelper.channelPath(cached, charset);
+        byte[] second = EncodingHelper.channelPath(cached, charset);
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated once", 1, product.generated);
+        TestCase.assertEquals("First", "cached text", new String(first, charset));
+        TestCase.assertTrue("Second", Arrays.equals(first, second));
+        TestCase.assertEquals("One payload, no temporary files", 1, directory.list().length);
+    }
+
+    /**
+     * Validates that a payload that is evicted between the lookup and the
+     * serve is generated again.
+     */
+    @Test
+    public void generateChannel_EvictedAfterLookup_GeneratedAgain() throws IOException {
+        /* ARRANGE */
+        File directory = new File(testFolder.getRoot(), "cache");
+        CountingProduct product = new CountingProduct("cached text");
+        Charset charset = Charset.forName("US-ASCII");
+        EncodingHelper.channelPath(new CachedGeneratorProduct(product,
+                new PayloadCache(directory, PayloadCache.DEFAULT_QUOTA), "text:cached text"), charset);
+        PayloadCache evicting = new PayloadCache(directory, PayloadCache.DEFAULT_QUOTA) {
+            @Override
+            public File lookup(String key) {
+                File payload = super.lookup(key);
+                if (payload != null) {
+                    TestCase.assertTrue("Evicted", payload.delete());
+                }
+                return payload;
+            }
+        };
+
+        /* ACT */
+        byte[] served = EncodingHelper.channelPath(new CachedGeneratorProduct(product, evicting,
+                "text:cached text"), charset);
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated twice", 2, product.generated);
+        TestCase.assertEquals("Served", "cached text", new String(served, charset));
+        TestCase.assertEquals("Payload stored again", 1, directory.list().length);
+    }
+
+    @Test
+    public void generateChannel_OtherCharset_GeneratedAgain() throws IOException {
+        /* ARRANGE */
+        CountingProduct product = new CountingProduct("\u00e9t\u00e9");
+        CachedGeneratorProduct cached = new CachedGeneratorProduct(product,
+                new PayloadCache(testFolder.getRoot(), PayloadCache.DEFAULT_QUOTA), "text:\u00e9t\u00e9");
+
+        /* ACT */
+        byte[] latin1 = EncodingHelper.channelPath(cached, Charset.forName("ISO-8859-1"));
+        byte[] utf8 = EncodingHelper.channelPath(cached, Charset.forName("UTF-8"));
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated per charset", 2, product.generated);
+        TestCase.assertEquals("ISO-8859-1", 3, latin1.length);
+        TestCase.assertEquals("UTF-8", 5, utf8.length);
+    }
+
+    @Test
+    public void generate_String_NotCached() throws IOException {
+        /* ARRANGE */
+        File directory = new File(testFolder.getRoot(), "cache");
+        CachedGeneratorProduct cached = new CachedGeneratorProduct(new TextGeneratorProduct("text"),
+                new PayloadCache(directory, PayloadCache.DEFAULT_QUOTA), "text:text");
+
+        /* ACT & ASSERT */
+        TestCase.assertEquals("Generated", "text", cached.generate());
+        TestCase.assertFalse("No cache directory", directory.exists());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.OutOfRangeException;
+import com.google.code.textclip.testhelpers.EncodingHelper;
+import junit.framework.TestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class CounterStringFileWriterTest {
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    /**
+     * Validates that the parallel file output is byte-identical to the
+     * encoded characters, for single byte and multi byte encodings.
+     */
+    @Test
+    public void generate_FileChannel_SameAsSequential() throws OutOfRangeException, IOException {
+        /* ARRANGE */
+        final int length = 9 * CounterStringFileWriter.BLOCK_SIZE + 12345;
+        final Object[][] testData = {
+                {'*', "US-ASCII"}, {'*', "UTF-8"}, {'x', "ISO-8859-1"},
+                {'é', "ISO-8859-1"}, {'é', "UTF-8"}, {'*', "UTF-16"}
+        };
+
+        for (Object[] arguments : testData) {
+            CounterStringGeneratorProduct product =
+                    new CounterStringGeneratorProduct((Character) arguments[0], length);
+            Charset charset = Charset.forName((String) arguments[1]);
+            byte[] expected = EncodingHelper.characterPath(product, charset);
+            File file = testFolder.newFile();
+
+            /* ACT */
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+            try {
+                product.generate(channel, charset);
+            } finally {
+                channel.close();
+            }
+
+            /* ASSERT */
+            TestCase.assertTrue("Content with " + arguments[0] + " in " + arguments[1],
+                    Arrays.equals(expected, Files.readAllBytes(file.toPath())));
+        }
+    }
+
+    /**
+     * Validates that the counterstring is written at the position of the
+     * channel, and that the position is moved to its end.
+     */
+    @Test
+    public void generate_FileChannelWithPosition_AppendsAtPosition() throws OutOfRangeException, IOException {
+        /* ARRANGE */
+        final int length = 5 * CounterStringFileWriter.BLOCK_SIZE;
+        CounterStringGeneratorProduct product = new CounterStringGeneratorProduct('*', length);
+        File file = testFolder.newFile();
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+
+        /* ACT */
+        try {
+            channel.write(ByteBuffer.wrap("head".getBytes("US-ASCII")));
+            product.generate(channel, Charset.forName("US-ASCII"));
+            channel.write(ByteBuffer.wrap("tail".getBytes("US-ASCII")));
+        } finally {
+            channel.close();
+        }
+
+        /* ASSERT */
+        String content = new String(Files.readAllBytes(file.toPath()), "US-ASCII");
+        TestCase.assertEquals("Length", length + 8, content.length());
+        TestCase.assertEquals("Content", "head" + product.generate() + "tail", content);
+    }
+
+    /**
+     * Validates that charsets with multi byte digits are refused.
+     */
+    @Test
+    public void create_MultiByteDigits_Null() throws OutOfRangeException {
+        /* ARRANGE */
+        CounterStringSequence sequence = new CounterStringSequence('*', 100);
+
+        /* ACT & ASSERT */
+        TestCase.assertNull("UTF-16", CounterStringFileWriter.create(sequence, '*', Charset.forName("UTF-16")));
+        TestCase.assertNull("Two byte character",
+                CounterStringFileWriter.create(sequence, 'é', Charset.forName("UTF-8")));
+        TestCase.assertNotNull("ASCII", CounterStringFileWriter.create(sequence, '*', Charset.forName("US-ASCII")));
+    }
+}
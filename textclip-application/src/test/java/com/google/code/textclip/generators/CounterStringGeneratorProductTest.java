@@ -25,10 +25,15 @@
 package com.google.code.textclip.generators;
 
 import com.google.code.textclip.exceptions.OutOfRangeException;
+import com.google.code.textclip.testhelpers.EncodingHelper;
 import junit.framework.TestCase;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 public class CounterStringGeneratorProductTest {
     /**
@@ -89,4 +94,117 @@ public class CounterStringGeneratorProductTest {
 
 
     }
+
+    /**
+     * Validates that the generated counter string is identical to the one
+     * produced by the original (string concatenating) algorithm.
+     */
+    @Test
+    public void generate_SameAsReferenceImplementation() throws OutOfRangeException {
+        for (int length = 1; length <= 1200; length++) {
+            TestCase.assertEquals("Length " + length,
+                    referenceCounterString('*', length),
+                    new CounterStringGeneratorProduct('*', length).generate());
+        }
+    }
+
+    /**
+     * Validates that every number in a large counter string is located at
+     * the position it refers to.
+     */
+    @Test
+    public void generate_LargeCounterString() throws OutOfRangeException {
+        final int length = 5000000;
+        String counterString = new CounterStringGeneratorProduct('*', length).generate();
+
+        TestCase.assertEquals("Length", length, counterString.length());
+        int position = 1;
+        while (position < length) {
+            int marker = counterString.indexOf('*', position);
+            if (marker == position) {
+                position++;
+                continue;
+            }
+            TestCase.assertEquals("Number at position " + (position + 1),
+                    Integer.toString(position + 1),
+                    counterString.substring(position, marker));
+            position = marker + 1;
+        }
+    }
+
+    /**
+     * The original counter string algorithm; used as a reference only.
+     */
+    private String referenceCounterString(char character, int length) {
+        String result = Character.toString(character);
+        int position = 0;
+        while (position <= length) {
+            position = result.length() + 1;
+            String position_in_text = Integer.toString(position);
+            if ((position + position_in_text.length()) <= length) {
+                result += position_in_text;
+            }
+            position = result.length() + 1;
+            if (position <= length) {
+                result += Character.toString(character);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Validates that streaming the counter string in chunks produces the
+     * same string as generating it at once, also across chunk borders.
+     */
+    @Test
+    public void generateAppendable_SameAsGenerate() throws OutOfRangeException, IOException {
+        final int[] lengths = {1, 2, 25, GeneratorProduct.CHUNK_SIZE - 1,
+                GeneratorProduct.CHUNK_SIZE, GeneratorProduct.CHUNK_SIZE + 1, 250000};
+
+        for (int length : lengths) {
+            CounterStringGeneratorProduct product = new CounterStringGeneratorProduct('*', length);
+            StringBuilder output = new StringBuilder();
+
+            product.generate(output);
+
+            TestCase.assertEquals("Length " + length, product.generate(), output.toString());
+        }
+    }
+
+    /**
+     * Validates that the counter string can be streamed into a byte channel.
+     */
+    @Test
+    public void generateChannel_EncodedCounterString() throws OutOfRangeException, IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        new CounterStringGeneratorProduct('d', 25).generate(Channels.newChannel(bytes),
+                Charset.forName("US-ASCII"));
+
+        TestCase.assertEquals("Streamed counter string", "d2d4d6d8d10d13d16d19d22dd",
+                bytes.toString("US-ASCII"));
+    }
+
+    /**
+     * Validates that the byte path writes the same bytes as the character
+     * path, for counter strings shorter and longer than the output buffer.
+     */
+    @Test
+    public void generateChannel_SameAsCharacterPath() throws OutOfRangeException, IOException {
+        final int longLength = GeneratorProduct.OUTPUT_BUFFER_SIZE * 5 + 3;
+        final Object[][] testData = {
+                {'*', 25, "US-ASCII"}, {'*', longLength, "UTF-8"}, {'\u00e9', longLength, "ISO-8859-1"},
+                {'\u00e9', longLength, "US-ASCII"}, {'\u00e9', 1000, "UTF-8"}, {'*', 1000, "UTF-16"}
+        };
+
+        for (Object[] arguments : testData) {
+            CounterStringGeneratorProduct product = new CounterStringGeneratorProduct((Character) arguments[0],
+                    (Integer) arguments[1]);
+            Charset charset = Charset.forName((String) arguments[2]);
+
+            TestCase.assertTrue("Bytes of " + Arrays.toString(arguments),
+                    Arrays.equals(EncodingHelper.characterPath(product, charset),
+                            EncodingHelper.channelPath(product, charset)));
+        }
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.OutOfRangeException;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class CounterStringSequenceTest {
+
+    /**
+     * Validates that a length of zero is refused.
+     */
+    @Test(expected = OutOfRangeException.class)
+    public void constructor_ZeroLength_OutOfRangeException() throws OutOfRangeException {
+        new CounterStringSequence('*', 0);
+    }
+
+    /**
+     * Validates every character against the generated counterstring, for all
+     * lengths that cross the one, two and three digit segments.
+     */
+    @Test
+    public void charAt_EqualsGenerate() throws OutOfRangeException {
+        for (int length = 1; length <= 1200; length++) {
+            /* ARRANGE */
+            String expected = new CounterStringGeneratorProduct('*', length).generate();
+
+            /* ACT */
+            CounterStringSequence sequence = new CounterStringSequence('*', length);
+
+            /* ASSERT */
+            TestCase.assertEquals("Length", length, sequence.length());
+            for (int i = 0; i < length; i++) {
+                TestCase.assertEquals("Length " + length + ", index " + i, expected.charAt(i), sequence.charAt(i));
+            }
+            TestCase.assertEquals("Length " + length, expected, sequence.toString());
+        }
+    }
+
+    /**
+     * Validates random windows of a long counterstring, through subSequence,
+     * nested subSequence, toString and charAt.
+     */
+    @Test
+    public void subSequence_EqualsGenerate() throws OutOfRangeException {
+        /* ARRANGE */
+        final int length = 5000000;
+        String expected = new CounterStringGeneratorProduct('x', length).generate();
+        CounterStringSequence sequence = new CounterStringGeneratorProduct('x', length).asCharSequence();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 500; i++) {
+            int start = random.nextInt(length);
+            int end = start + random.nextInt(Math.min(200, length - start) + 1);
+
+            /* ACT */
+            CharSequence window = sequence.subSequence(start, end);
+
+            /* ASSERT */
+            TestCase.assertEquals("Window " + start + ".." + end, expected.substring(start, end), window.toString());
+            if (window.length() > 2) {
+                TestCase.assertEquals("Nested window " + start + ".." + end,
+                        expected.substring(start + 1, end - 1), window.subSequence(1, window.length() - 1).toString());
+                TestCase.assertEquals("Character " + (start + 1), expected.charAt(start + 1), window.charAt(1));
+            }
+        }
+        TestCase.assertEquals("Whole sequence", expected, sequence.toString());
+    }
+
+    /**
+     * Validates the end of a counterstring of two billion characters: every
+     * number equals the position at which it starts, followed by the
+     * character, and the string ends with the character only.
+     */
+    @Test
+    public void subSequence_EndOfHugeCounterString() throws OutOfRangeException {
+        /* ARRANGE */
+        final int length = Integer.MAX_VALUE;
+        final int window = 100000;
+        CounterStringSequence sequence = new CounterStringSequence('*', length);
+
+        /* ACT */
+        String tail = sequence.subSequence(length - window, length).toString();
+
+        /* ASSERT */
+        TestCase.assertEquals("Window length", window, tail.length());
+        int index = tail.indexOf('*') + 1;
+        int checked = 0;
+        while (index < tail.length() && tail.charAt(index) != '*') {
+            int next = tail.indexOf('*', index);
+            long position = (long) length - window + index + 1;
+            TestCase.assertEquals("Number at " + position, Long.toString(position), tail.substring(index, next));
+            index = next + 1;
+            checked++;
+        }
+        TestCase.assertTrue("Numbers checked", checked > 9000);
+        for (int i = index; i < tail.length(); i++) {
+            TestCase.assertEquals("Tail", '*', tail.charAt(i));
+        }
+        TestCase.assertEquals("Last character", '*', sequence.charAt(length - 1));
+    }
+
+    /**
+     * Validates the bounds of charAt.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void charAt_OutOfBounds_IndexOutOfBoundsException() throws OutOfRangeException {
+        new CounterStringSequence('*', 25).subSequence(5, 10).charAt(5);
+    }
+
+    /**
+     * Validates the bounds of subSequence.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void subSequence_OutOfBounds_IndexOutOfBoundsException() throws OutOfRangeException {
+        new CounterStringSequence('*', 25).subSequence(5, 26);
+    }
+}
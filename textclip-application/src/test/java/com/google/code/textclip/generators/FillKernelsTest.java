@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class FillKernelsTest {
+
+    /**
+     * Validates that without a kernel on the class path the scalar kernel
+     * is used.
+     */
+    @Test
+    public void get_NoKernelOnClassPath_ScalarFillKernel() {
+        TestCase.assertTrue("Kernel", FillKernels.get() instanceof ScalarFillKernel);
+    }
+
+    /**
+     * Validates that the scalar kernel fills the characters of the seeded
+     * text at the counter, within the range only.
+     */
+    @Test
+    public void scalarRandom_CharactersAtCounter() throws Exception {
+        /* ARRANGE */
+        RandomGeneratorProduct product = new RandomGeneratorProduct(65, 90, 1, 42L);
+        byte[] bytes = new byte[12];
+        char[] chars = new char[12];
+
+        /* ACT */
+        new ScalarFillKernel().random(bytes, 2, 10, CounterRandom.key(42L), 1000, 65, 26);
+        new ScalarFillKernel().random(chars, 2, 10, CounterRandom.key(42L), 1000, 65, 26);
+
+        /* ASSERT */
+        for (int i = 0; i < bytes.length; i++) {
+            char expected = i >= 2 && i < 10 ? product.charAt(1000 + i - 2) : 0;
+            TestCase.assertEquals("Byte " + i, (byte) expected, bytes[i]);
+            TestCase.assertEquals("Char " + i, expected, chars[i]);
+        }
+    }
+}
@@ -25,12 +25,16 @@
 package com.google.code.textclip.generators;
 
 import com.google.code.textclip.exceptions.FileSizeException;
+import com.google.code.textclip.testhelpers.EncodingHelper;
 import junit.framework.TestCase;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
 
 public class FromFileGeneratorProductTest {
     @Rule
@@ -133,6 +137,35 @@ public class FromFileGeneratorProductTest {
         theProduct.generate();
     }
 
+    /**
+     * Validates that characters which are split over two mapped windows are
+     * decoded correctly.
+     */
+    @Test
+    public void generateAppendable_CharactersSplitOverWindows()
+            throws IOException, FileSizeException {
+        /*
+        ARRANGE
+         */
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            expected.append("line ").append(i).append(": \u00eb\u20ac\n");
+        }
+        File theTestFile = createFile(expected.toString());
+        String decoded = new String(expected.toString().getBytes()); /* platform charset */
+        StringBuilder output = new StringBuilder();
+
+        /*
+        ACT
+         */
+        new FromFileGeneratorProduct(theTestFile, Long.MAX_VALUE, 7).generate(output);
+
+        /*
+        ASSERT
+         */
+        TestCase.assertEquals("Streamed file content", decoded, output.toString());
+    }
+
     private File createFile(String testContent) throws IOException {
         final String fileName = "file.txt";
         File theTestFile = testFolder.newFile(fileName);
@@ -144,4 +177,123 @@ public class FromFileGeneratorProductTest {
         }
         return theTestFile;
     }
+
+    /**
+     * Validates whether the content of a file can be streamed.
+     */
+    @Test
+    public void generateAppendable_FileContent()
+            throws IOException, FileSizeException {
+        /*
+        ARRANGE
+         */
+        StringBuilder expected = new StringBuilder();
+        while (expected.length() < 3 * GeneratorProduct.CHUNK_SIZE) {
+            expected.append(content);
+        }
+        File theTestFile = createFile(expected.toString());
+        GeneratorProduct theProduct = new FromFileGeneratorProduct(theTestFile);
+        StringBuilder output = new StringBuilder();
+
+        /*
+        ACT
+         */
+        theProduct.generate(output);
+
+        /*
+        ASSERT
+         */
+        TestCase.assertEquals("Streamed file content", expected.toString(), output.toString());
+    }
+
+    /**
+     * Validates that a file read and written as ISO-8859-1 is copied byte
+     * for byte, whatever the bytes are.
+     */
+    @Test
+    public void generateChannel_ISO_8859_1_CopiesBytes() throws IOException, FileSizeException {
+        /* ARRANGE */
+        byte[] content = new byte[3 * 256 + 7];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        File file = testFolder.newFile();
+        Files.write(file.toPath(), content);
+        Charset latin1 = Charset.forName("ISO-8859-1");
+        FromFileGeneratorProduct product = new FromFileGeneratorProduct(file, Long.MAX_VALUE,
+                FromFileGeneratorProduct.CONST_WINDOW_SIZE, latin1);
+
+        /* ACT */
+        byte[] copied = EncodingHelper.channelPath(product, latin1);
+
+        /* ASSERT */
+        TestCase.assertTrue("Copied bytes", Arrays.equals(content, copied));
+        TestCase.assertTrue("Character path",
+                Arrays.equals(EncodingHelper.characterPath(product, latin1), copied));
+    }
+
+    /**
+     * Validates that other charsets are still decoded and encoded.
+     */
+    @Test
+    public void generateChannel_OtherCharset_Decoded() throws IOException, FileSizeException {
+        /* ARRANGE */
+        File file = testFolder.newFile();
+        Files.write(file.toPath(), new byte[]{'a', (byte) 0xE9, 'b'});
+        FromFileGeneratorProduct product = new FromFileGeneratorProduct(file, Long.MAX_VALUE,
+                FromFileGeneratorProduct.CONST_WINDOW_SIZE, Charset.forName("ISO-8859-1"));
+
+        /* ACT */
+        byte[] encoded = EncodingHelper.channelPath(product, Charset.forName("UTF-8"));
+
+        /* ASSERT */
+        TestCase.assertTrue("Encoded bytes",
+                Arrays.equals(new byte[]{'a', (byte) 0xC3, (byte) 0xA9, 'b'}, encoded));
+    }
+
+    /**
+     * Validates that UTF-16 and UTF-8 files decode correctly, also when
+     * windows split code units and surrogate pairs.
+     */
+    @Test
+    public void generateAppendable_Encodings_SmallWindows() throws IOException, FileSizeException {
+        /* ARRANGE */
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("log ").append(i).append(": \u00eb\u20ac\uD83D\uDE00\n");
+        }
+        final String[] encodings = {"UTF-16", "UTF-16LE", "UTF-8"};
+
+        for (String encoding : encodings) {
+            Charset charset = Charset.forName(encoding);
+            File file = testFolder.newFile();
+            Files.write(file.toPath(), text.toString().getBytes(charset));
+            StringBuilder output = new StringBuilder();
+
+            /* ACT */
+            new FromFileGeneratorProduct(file, Long.MAX_VALUE, 7, charset).generate(output);
+
+            /* ASSERT */
+            TestCase.assertEquals("Decoded " + encoding, text.toString(), output.toString());
+        }
+    }
+
+    /**
+     * Validates that the reused decoder starts afresh on every call.
+     */
+    @Test
+    public void generate_Repeated_SameText() throws IOException, FileSizeException {
+        /* ARRANGE */
+        String text = "\uD83D\uDE00 twice";
+        File file = testFolder.newFile();
+        Files.write(file.toPath(), text.getBytes("UTF-16"));
+        FromFileGeneratorProduct product = new FromFileGeneratorProduct(file, Charset.forName("UTF-16"));
+
+        /* ACT & ASSERT */
+        TestCase.assertEquals("First call", text, product.generate());
+        TestCase.assertEquals("Second call", text, product.generate());
+        StringBuilder output = new StringBuilder();
+        product.generate(output);
+        TestCase.assertEquals("Streamed", text, output.toString());
+    }
 }
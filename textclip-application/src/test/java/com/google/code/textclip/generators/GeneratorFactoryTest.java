@@ -41,6 +41,10 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
+import java.util.Arrays;
 
 
 public class GeneratorFactoryTest {
@@ -201,6 +205,147 @@ public class GeneratorFactoryTest {
     }
 
 
+    /**
+     * Validates whether option text creates the correct product.
+     */
+    @Test
+    public void make_withOptionText()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+
+        /*
+        ARRANGE
+         */
+        String[] testData = {"-t", "Some text"};
+        parser.parseArgument(testData);
+
+        /*
+        ACT
+         */
+        GeneratorProduct product = new GeneratorFactory().make(options);
+        String generatedString = product.generate();
+
+        /*
+        ASSERT
+        */
+        TestCase.assertEquals("Generated text", "Some text", generatedString);
+    }
+
+    /**
+     * Validates whether option multiply repeats the product.
+     */
+    @Test
+    public void make_withOptionMultiply()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+
+        /*
+        ARRANGE
+         */
+        String[] testData = {"-co", "5:*", "-m", "3"};
+        parser.parseArgument(testData);
+
+        /*
+        ACT
+         */
+        GeneratorProduct product = new GeneratorFactory().make(options);
+        String generatedString = product.generate();
+
+        /*
+        ASSERT
+        */
+        TestCase.assertEquals("Multiplied counter string", "*2*4**2*4**2*4*", generatedString);
+    }
+
+    /**
+     * Validates whether a multiply factor of zero is refused.
+     */
+    @Test(expected = OutOfRangeException.class)
+    public void make_withOptionMultiplyZero_OutOfRangeException()
+            throws FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException, IOException {
+        /*
+        ARRANGE
+         */
+        String[] testData = {"-a", "-m", "0"};
+        parser.parseArgument(testData);
+
+        /*
+        ACT and ASSERT (should throw an exception).
+         */
+        new GeneratorFactory().make(options);
+    }
+
+    /**
+     * Validates whether option length repeats an ASCII range.
+     */
+    @Test
+    public void make_withOptionLength()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /*
+        ARRANGE
+         */
+        String[] testData = {"-ch", "65:67", "-l", "7"};
+        parser.parseArgument(testData);
+
+        /*
+        ACT
+         */
+        String generatedString = new GeneratorFactory().make(options).generate();
+
+        /*
+        ASSERT
+        */
+        TestCase.assertEquals("Repeated ASCII range", "ABCABCA", generatedString);
+    }
+
+    /**
+     * Validates whether option length repeats all characters.
+     */
+    @Test
+    public void make_withOptionAllCharactersAndLength()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /*
+        ARRANGE
+         */
+        String[] testData = {"-a", "-l", "300"};
+        parser.parseArgument(testData);
+
+        /*
+        ACT
+         */
+        String generatedString = new GeneratorFactory().make(options).generate();
+
+        /*
+        ASSERT
+        */
+        TestCase.assertEquals("Repeated all characters length", 300, generatedString.length());
+        TestCase.assertEquals("Repeated all characters", '\u0001', generatedString.charAt(254));
+    }
+
+    /**
+     * Validates whether option seed makes the random product reproducible.
+     */
+    @Test
+    public void make_withOptionSeed()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /*
+        ARRANGE
+         */
+        String[] testData = {"-ra", "65:90:1000", "--seed", "42"};
+        parser.parseArgument(testData);
+
+        /*
+        ACT
+         */
+        String first = new GeneratorFactory().make(options).generate();
+        String second = new GeneratorFactory().make(options).generate();
+
+        /*
+        ASSERT
+        */
+        TestCase.assertEquals("Seeded random string", first, second);
+        TestCase.assertEquals("Seeded random string",
+                new RandomGeneratorProduct(65, 90, 1000, 42).generate(), first);
+    }
+
     /**
      * Validates whether invalid option throws the correct Exception.
      */
@@ -269,4 +414,275 @@ public class GeneratorFactoryTest {
         TestCase.assertTrue("Generated random string 1 length", expVal1.length() == 9999);
         TestCase.assertTrue("Generated random string 2 length", expVal2.length() == 9999);
     }
+
+    /**
+     * Validates that the file is decoded with the encoding of --encoding.
+     */
+    @Test
+    public void make_withOptionFromFileAndEncoding()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /* ARRANGE */
+        final String content = "UTF-16 content \u20ac";
+        File theFile = testFolder.newFile("utf16.txt");
+        Files.write(theFile.toPath(), content.getBytes(Charset.forName("UTF-16")));
+        parser.parseArgument("-f", theFile.getAbsolutePath(), "--encoding", "UTF-16");
+
+        /* ACT */
+        GeneratorProduct product = new GeneratorFactory().make(options);
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated String from file", content, product.generate());
+    }
+
+    @Test(expected = UnsupportedCharsetException.class)
+    public void make_withUnknownEncoding_UnsupportedCharsetException()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        File theFile = createFile("content");
+        parser.parseArgument("-f", theFile.getAbsolutePath(), "-e", "NO-SUCH-ENCODING");
+
+        new GeneratorFactory().make(options);
+    }
+
+    /**
+     * Validates that options that give the same text give the same cache
+     * specification, and that options that do not determine the text are
+     * not cached.
+     */
+    @Test
+    public void cacheSpecification_NormalForm() throws CmdLineException, FormatException, IOException {
+        /* ARRANGE */
+        File theFile = createFile("content");
+        final String[][] same = {{"-a"}, {"-ch", "1:254"}, {"-ch", "1:254", "-l", "254"}};
+        final String[][] uncached = {{"-ra", "65:70:10"}, {"-f", theFile.getAbsolutePath()},
+                {"-tp", "{random:65:70:4}"}, {"-tp", "{file:" + theFile.getAbsolutePath() + "}"},
+                {"-u", "U+0080:U+10FFFF:10"}, {"-w", "10", "-f", theFile.getAbsolutePath(), "-s", "7"},
+                {"-mk", "10", "-f", theFile.getAbsolutePath(), "-s", "7"}};
+        GeneratorFactory factory = new GeneratorFactory();
+
+        /* ACT & ASSERT */
+        String expected = null;
+        for (String[] arguments : same) {
+            ArgumentParser theOptions = new ArgumentParser();
+            new CmdLineParser(theOptions).parseArgument(arguments);
+            String specification = factory.cacheSpecification(theOptions);
+            if (expected == null) {
+                expected = specification;
+            }
+            TestCase.assertEquals("Specification of " + Arrays.toString(arguments), expected, specification);
+        }
+        for (String[] arguments : uncached) {
+            ArgumentParser theOptions = new ArgumentParser();
+            new CmdLineParser(theOptions).parseArgument(arguments);
+            TestCase.assertNull("Not cached: " + Arrays.toString(arguments), factory.cacheSpecification(theOptions));
+        }
+        parser.parseArgument("-ra", "65:70:10", "-s", "7", "-m", "3");
+        TestCase.assertEquals("Seeded random", "format:" + GeneratorFactory.CACHE_FORMAT + "|random:65:70:10:7:0|multiply:3",
+                factory.cacheSpecification(options));
+        ArgumentParser templateOptions = new ArgumentParser();
+        new CmdLineParser(templateOptions).parseArgument("-tp", "{counter}:{random:65:70:4}", "-n", "5", "-s", "7");
+        TestCase.assertEquals("Seeded template",
+                "format:" + GeneratorFactory.CACHE_FORMAT + "|template:5:7:{counter}:{random:65:70:4}|multiply:1",
+                factory.cacheSpecification(templateOptions));
+    }
+
+    /**
+     * Validates that --cache wraps the product.
+     */
+    @Test
+    public void make_withOptionCache()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /* ARRANGE */
+        parser.parseArgument("-co", "25:*", "--cache", testFolder.getRoot().getPath());
+
+        /* ACT */
+        GeneratorProduct product = new GeneratorFactory().make(options);
+
+        /* ASSERT */
+        TestCase.assertTrue("Cached product", product instanceof CachedGeneratorProduct);
+        TestCase.assertEquals("Generated", "*2*4*6*8*10*13*16*19*22**", product.generate());
+    }
+
+    /**
+     * Validates that --template produces the records.
+     */
+    @Test
+    public void make_withOptionTemplate()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /* ARRANGE */
+        parser.parseArgument("-tp", "R{counter:2}", "-n", "3");
+
+        /* ACT */
+        GeneratorProduct product = new GeneratorFactory().make(options);
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated", "R01\nR02\nR03\n", product.generate());
+    }
+
+    /**
+     * Validates that --unicode produces the exact number of UTF-8 bytes.
+     */
+    @Test
+    public void make_withOptionUnicode()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /* ARRANGE */
+        parser.parseArgument("-u", "U+0391:U+03A9:100", "-s", "5");
+
+        /* ACT */
+        GeneratorProduct product = new GeneratorFactory().make(options);
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated", new UnicodeGeneratorProduct(0x391, 0x3A9, 100, 5L).generate(),
+                product.generate());
+        TestCase.assertEquals("Bytes", 100, product.generate().getBytes("UTF-8").length);
+    }
+
+    /**
+     * Validates that -w draws the characters of the --table, as the product
+     * with the same table does.
+     */
+    @Test
+    public void make_withOptionWeightedTable()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /* ARRANGE */
+        File table = createFile("# vowels\nU+0061 3\n0x65 1\n105 0\n");
+        parser.parseArgument("-w", "1000", "--table", table.getAbsolutePath(), "-s", "5");
+
+        /* ACT */
+        GeneratorProduct product = new GeneratorFactory().make(options);
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated", new WeightedRandomGeneratorProduct(new int[]{'a', 'e'},
+                new double[]{3, 1}, 1000, 5L).generate(), product.generate());
+    }
+
+    /**
+     * Validates that -w with -f counts the characters of the sample.
+     */
+    @Test
+    public void make_withOptionWeightedSample()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /* ARRANGE */
+        File sample = createFile("abba");
+        parser.parseArgument("-w", "1000", "-f", sample.getAbsolutePath(), "-s", "5");
+
+        /* ACT */
+        GeneratorProduct product = new GeneratorFactory().make(options);
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated", new WeightedRandomGeneratorProduct(new int[]{'a', 'b'},
+                new double[]{2, 2}, 1000, 5L).generate(), product.generate());
+    }
+
+    @Test(expected = FormatException.class)
+    public void make_withOptionWeightedWithoutTable_FormatException()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        parser.parseArgument("-w", "1000");
+
+        new GeneratorFactory().make(options);
+    }
+
+    /**
+     * Validates that -mk trains on the corpus of -f and saves the model with
+     * --save-model, and that --model gives the same text again.
+     */
+    @Test
+    public void make_withOptionMarkov()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /* ARRANGE */
+        File corpus = createFile("the cat sat on the mat");
+        File model = new File(testFolder.getRoot(), "corpus.model");
+        parser.parseArgument("-mk", "1000", "-f", corpus.getAbsolutePath(), "-k", "2", "--save-model",
+                model.getAbsolutePath(), "-s", "5");
+        ArgumentParser modelOptions = new ArgumentParser();
+        new CmdLineParser(modelOptions).parseArgument("-mk", "1000", "--model", model.getAbsolutePath(), "-s", "5");
+
+        /* ACT */
+        GeneratorProduct trained = new GeneratorFactory().make(options);
+        GeneratorProduct loaded = new GeneratorFactory().make(modelOptions);
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated", new MarkovGeneratorProduct(MarkovModel.train(
+                new TextGeneratorProduct("the cat sat on the mat"), 2), 1000, 5L).generate(), trained.generate());
+        TestCase.assertEquals("Loaded", trained.generate(), loaded.generate());
+    }
+
+    @Test(expected = FormatException.class)
+    public void make_withOptionMarkovWithoutCorpus_FormatException()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        parser.parseArgument("-mk", "1000");
+
+        new GeneratorFactory().make(options);
+    }
+
+    /**
+     * Validates that --offset gives that range of the seeded random text.
+     */
+    @Test
+    public void make_withOptionRandomOffset()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /* ARRANGE */
+        parser.parseArgument("-ra", "65:90:10", "-s", "42", "--offset", "995");
+
+        /* ACT */
+        GeneratorProduct product = new GeneratorFactory().make(options);
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated", new RandomGeneratorProduct(65, 90, 1005, 42L).generate().substring(995),
+                product.generate());
+    }
+
+    /**
+     * Validates that a fallback seed makes random products without --seed
+     * render the same text on every call, while --seed still wins.
+     */
+    @Test
+    public void make_withFallbackSeed_SameText()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        final String[][] testData = {{"-ra", "65:90:100"}, {"-u", "1:0x10FFFF:100"}, {"-tp", "{random:65:90:20}"},
+                {"-ra", "65:90:100", "-s", "7"}};
+
+        for (String[] arguments : testData) {
+            ArgumentParser theOptions = new ArgumentParser();
+            new CmdLineParser(theOptions).parseArgument(arguments);
+
+            GeneratorProduct product = new GeneratorFactory().make(theOptions, 42L);
+
+            TestCase.assertEquals("Same text of " + arguments[0], product.generate(), product.generate());
+        }
+        parser.parseArgument("-ra", "65:90:100", "-s", "7");
+        TestCase.assertEquals("Seed wins", new GeneratorFactory().make(options).generate(),
+                new GeneratorFactory().make(options, 42L).generate());
+    }
+
+    /**
+     * validates that the repetitions of -m are the same for a random text
+     * without a seed, also beyond the replay limit.
+     */
+    @Test
+    public void make_withOptionMultiplyWithoutSeed_SameRepetitions()
+            throws IOException, FileSizeException, OutOfRangeException, FormatException, CmdLineException, InvalidGeneratorProductException {
+        /*
+        ARRANGE
+         */
+        final int length = RepeatedGeneratorProduct.REPLAY_LIMIT + 1;
+        parser.parseArgument("-ra", "65:90:" + length, "-m", "2");
+        StringBuilder output = new StringBuilder(2 * length);
+
+        /*
+        ACT
+         */
+        new GeneratorFactory().make(options).generate(output);
+
+        /*
+        ASSERT
+         */
+        TestCase.assertEquals("Length", 2 * length, output.length());
+        int mismatch = -1;
+        for (int i = 0; i < length && mismatch < 0; i++) {
+            if (output.charAt(i) != output.charAt(length + i)) {
+                mismatch = i;
+            }
+        }
+        TestCase.assertEquals("First differing character", -1, mismatch);
+    }
 }
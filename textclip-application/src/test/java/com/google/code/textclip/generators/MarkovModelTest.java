@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.FormatException;
+import com.google.code.textclip.exceptions.OutOfRangeException;
+import com.google.code.textclip.testhelpers.EncodingHelper;
+import junit.framework.TestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class MarkovModelTest {
+    private static final String CORPUS = "the cat sat on the mat and the rat ate the hat. ";
+
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    /**
+     * Validates that the text only takes transitions of the corpus: in
+     * "abcabc" every character has one successor, so the text cycles through
+     * "abc". The chains of a block start at random contexts, so a few
+     * characters where one chain ends and the next begins may break the
+     * cycle.
+     */
+    @Test
+    public void generate_FollowsTransitions() throws Exception {
+        /* ARRANGE */
+        final int length = 100000;
+        MarkovModel model = MarkovModel.train(new TextGeneratorProduct("abcabc"), 1);
+
+        /* ACT */
+        String generated = new MarkovGeneratorProduct(model, length, 3L).generate();
+
+        /* ASSERT */
+        TestCase.assertEquals("Contexts", 3, model.getContexts());
+        TestCase.assertEquals("Length", length, generated.length());
+        int breaks = 0;
+        for (int i = 1; i < generated.length(); i++) {
+            char previous = generated.charAt(i - 1);
+            TestCase.assertTrue("Character of the corpus", "abc".indexOf(generated.charAt(i)) >= 0);
+            if (generated.charAt(i) != "abc".charAt(("abc".indexOf(previous) + 1) % 3)) {
+                breaks++;
+            }
+        }
+        TestCase.assertTrue("Transitions of the corpus", breaks < length / 100);
+    }
+
+    /**
+     * Validates that the order counts the characters of a context and that
+     * the start of the corpus follows its end.
+     */
+    @Test
+    public void train_Order_Contexts() throws Exception {
+        /* ARRANGE */
+        GeneratorProduct corpus = new TextGeneratorProduct("abcd");
+
+        /* ACT */
+        MarkovModel first = MarkovModel.train(corpus, 1);
+        MarkovModel third = MarkovModel.train(corpus, 3);
+
+        /* ASSERT */
+        TestCase.assertEquals("Order", 3, third.getOrder());
+        TestCase.assertEquals("Contexts of order 1", 4, first.getContexts());
+        TestCase.assertEquals("Contexts of order 3", 4, third.getContexts());
+        TestCase.assertTrue("Alphabet", Arrays.equals(new int[]{'a', 'b', 'c', 'd'}, first.getAlphabet()));
+    }
+
+    /**
+     * Validates that a saved model, mapped again, gives the same text.
+     */
+    @Test
+    public void load_SavedModel_SameText() throws Exception {
+        /* ARRANGE */
+        File file = new File(testFolder.getRoot(), "corpus.model");
+        MarkovModel trained = MarkovModel.train(new TextGeneratorProduct(CORPUS), 2);
+
+        /* ACT */
+        trained.save(file);
+        MarkovModel loaded = MarkovModel.load(file);
+
+        /* ASSERT */
+        TestCase.assertEquals("Order", 2, loaded.getOrder());
+        TestCase.assertEquals("Contexts", trained.getContexts(), loaded.getContexts());
+        TestCase.assertEquals("Same text", new MarkovGeneratorProduct(trained, 5000, 7L).generate(),
+                new MarkovGeneratorProduct(loaded, 5000, 7L).generate());
+    }
+
+    /**
+     * Validates that the characters, the string and the bytes are the same
+     * text, on the single byte path, the UTF-8 path and for a charset that
+     * is encoded from the characters.
+     */
+    @Test
+    public void generate_AllPathsSameText() throws Exception {
+        /* ARRANGE */
+        MarkovGeneratorProduct latin = new MarkovGeneratorProduct(
+                MarkovModel.train(new TextGeneratorProduct(CORPUS), 2), 300001, 42L);
+        MarkovGeneratorProduct unicode = new MarkovGeneratorProduct(
+                MarkovModel.train(new TextGeneratorProduct("a\u00e9 \u20ac\ud83d\ude00 a\u20ac "), 1), 300001, 42L);
+        Charset latin1 = StandardCharsets.ISO_8859_1;
+        Charset utf8 = StandardCharsets.UTF_8;
+        Charset utf16 = Charset.forName("UTF-16BE");
+
+        /* ACT */
+        String latinText = latin.generate();
+        String unicodeText = unicode.generate();
+
+        /* ASSERT */
+        TestCase.assertTrue("Single bytes", Arrays.equals(latinText.getBytes(latin1),
+                EncodingHelper.channelPath(latin, latin1)));
+        TestCase.assertTrue("Single byte characters", Arrays.equals(latinText.getBytes(latin1),
+                EncodingHelper.characterPath(latin, latin1)));
+        TestCase.assertEquals("Code points", 300001, unicodeText.codePointCount(0, unicodeText.length()));
+        TestCase.assertTrue("UTF-8", Arrays.equals(unicodeText.getBytes(utf8),
+                EncodingHelper.channelPath(unicode, utf8)));
+        TestCase.assertTrue("UTF-8 characters", Arrays.equals(unicodeText.getBytes(utf8),
+                EncodingHelper.characterPath(unicode, utf8)));
+        TestCase.assertTrue("UTF-16", Arrays.equals(unicodeText.getBytes(utf16),
+                EncodingHelper.channelPath(unicode, utf16)));
+    }
+
+    @Test(expected = FormatException.class)
+    public void load_NoModel_FormatException() throws Exception {
+        File file = new File(testFolder.getRoot(), "corpus.txt");
+        Files.write(file.toPath(), CORPUS.getBytes(StandardCharsets.US_ASCII));
+
+        MarkovModel.load(file);
+    }
+
+    /**
+     * Validates that a saved model with a damaged transition count, alias,
+     * symbol or next record is refused when it is loaded.
+     */
+    @Test
+    public void load_DamagedRecord_FormatException() throws Exception {
+        /* ARRANGE */
+        File file = new File(testFolder.getRoot(), "corpus.model");
+        MarkovModel.train(new TextGeneratorProduct(CORPUS), 2).save(file);
+        byte[] model = Files.readAllBytes(file.toPath());
+        ByteBuffer header = ByteBuffer.wrap(model).order(ByteOrder.LITTLE_ENDIAN);
+        int record = 32 + 4 * header.getInt(12) + 4 * header.getInt(16);
+        final int[][] damages = {{0, 0}, {0, 1 << 30}, {8, -1}, {8, 1 << 30}, {12, -1}, {12, 1 << 30},
+                {16, 3}, {16, -1}};
+
+        for (int[] damage : damages) {
+            ByteBuffer damaged = ByteBuffer.wrap(model.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            damaged.putInt(record + damage[0], damage[1]);
+            File bad = new File(testFolder.getRoot(), "bad.model");
+            Files.write(bad.toPath(), damaged.array());
+
+            /* ACT & ASSERT */
+            try {
+                MarkovModel.load(bad);
+                TestCase.fail("Damage " + Arrays.toString(damage) + " is accepted");
+            } catch (FormatException e) {
+                TestCase.assertEquals("Message", "The Markov model is damaged", e.getMessage());
+            }
+        }
+    }
+
+    @Test(expected = OutOfRangeException.class)
+    public void train_OrderZero_OutOfRangeException() throws Exception {
+        MarkovModel.train(new TextGeneratorProduct(CORPUS), 0);
+    }
+
+    @Test(expected = OutOfRangeException.class)
+    public void train_CorpusShorterThanOrder_OutOfRangeException() throws Exception {
+        MarkovModel.train(new TextGeneratorProduct("abc"), 4);
+    }
+
+    @Test(expected = OutOfRangeException.class)
+    public void constructor_LengthZero_OutOfRangeException() throws Exception {
+        new MarkovGeneratorProduct(MarkovModel.train(new TextGeneratorProduct(CORPUS), 1), 0, null);
+    }
+}
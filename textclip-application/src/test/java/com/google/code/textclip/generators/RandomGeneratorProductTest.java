@@ -1,10 +1,13 @@
 package com.google.code.textclip.generators;
 
 import com.google.code.textclip.exceptions.OutOfRangeException;
+import com.google.code.textclip.testhelpers.EncodingHelper;
 import junit.framework.TestCase;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 /*
  * Copyright (c) 2014, Jos Plas
@@ -224,4 +227,144 @@ public class RandomGeneratorProductTest {
                     expValue.charAt(i) <= upper_limit);
         }
     }
+
+    /**
+     * validates the length and limits of a streamed random string.
+     */
+    @Test
+    public void generateAppendable_happyFlow3Arg()
+            throws OutOfRangeException, IOException {
+        /* ARRANGE*/
+        final int lower_limit = 65;
+        final int upper_limit = 70;
+        final int length = 3 * GeneratorProduct.CHUNK_SIZE + 5;
+        RandomGeneratorProduct product = new RandomGeneratorProduct
+                (lower_limit, upper_limit, length);
+        StringBuilder output = new StringBuilder();
+
+        /* ACT */
+        product.generate(output);
+
+        /* ASSERT */
+        TestCase.assertEquals("Streamed string length", length, output.length());
+        doesContentMeetLimitSettings(upper_limit, lower_limit, output.toString());
+    }
+
+    /**
+     * validates that a seeded product produces the same string every time,
+     * for both generate methods and across block and batch borders.
+     */
+    @Test
+    public void generate_withSeed_Reproducible()
+            throws OutOfRangeException, IOException {
+        /* ARRANGE*/
+        final int lower_limit = 32;
+        final int upper_limit = 126;
+        final int length = 3 * RandomFillTask.BLOCK_SIZE + 17;
+        RandomGeneratorProduct product = new RandomGeneratorProduct
+                (lower_limit, upper_limit, length, 42L);
+        StringBuilder output = new StringBuilder();
+
+        /* ACT */
+        String expValue1 = product.generate();
+        String expValue2 = new RandomGeneratorProduct
+                (lower_limit, upper_limit, length, 42L).generate();
+        product.generate(output);
+
+        /* ASSERT */
+        TestCase.assertEquals("Same seed, same string", expValue1, expValue2);
+        TestCase.assertEquals("Streamed string equals generated string",
+                expValue1, output.toString());
+        doesContentMeetLimitSettings(upper_limit, lower_limit, expValue1);
+    }
+
+    /**
+     * validates that different seeds produce different strings.
+     */
+    @Test
+    public void generate_withDifferentSeeds_Different()
+            throws OutOfRangeException, IOException {
+        /* ARRANGE*/
+        RandomGeneratorProduct product1 = new RandomGeneratorProduct(32, 126, 1000, 1L);
+        RandomGeneratorProduct product2 = new RandomGeneratorProduct(32, 126, 1000, 2L);
+
+        /* ACT & ASSERT */
+        TestCase.assertFalse("Different seeds",
+                product1.generate().contentEquals(product2.generate()));
+    }
+
+    /**
+     * validates that every block of a long string is filled.
+     */
+    @Test
+    public void generate_manyBlocks_AllFilled()
+            throws OutOfRangeException, IOException {
+        /* ARRANGE*/
+        final int length = 40 * RandomFillTask.BLOCK_SIZE - 1;
+        RandomGeneratorProduct product = new RandomGeneratorProduct(65, 66, length);
+
+        /* ACT */
+        String expValue = product.generate();
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated string length", length, expValue.length());
+        doesContentMeetLimitSettings(66, 65, expValue);
+    }
+
+    /**
+     * Validates that with a seed the byte path writes the same bytes as the
+     * character path, for lengths of one and of several batches.
+     */
+    @Test
+    public void generateChannel_Seeded_SameAsCharacterPath() throws OutOfRangeException, IOException {
+        final int longLength = 9 * RandomFillTask.BLOCK_SIZE + 5;
+        final Object[][] testData = {
+                {65, 90, 100, "UTF-8"}, {65, 90, longLength, "UTF-8"}, {1, 254, longLength, "ISO-8859-1"},
+                {100, 200, longLength, "US-ASCII"}, {1, 254, 1000, "UTF-8"}
+        };
+
+        for (Object[] arguments : testData) {
+            RandomGeneratorProduct product = new RandomGeneratorProduct((Integer) arguments[0],
+                    (Integer) arguments[1], (Integer) arguments[2], 42L);
+            Charset charset = Charset.forName((String) arguments[3]);
+
+            TestCase.assertTrue("Bytes of " + Arrays.toString(arguments),
+                    Arrays.equals(EncodingHelper.characterPath(product, charset),
+                            EncodingHelper.channelPath(product, charset)));
+        }
+    }
+
+    /**
+     * Validates that a seeded range, generated on its own, is that part of
+     * the whole text, on every path and across block and batch borders, and
+     * that charAt gives the character at any position.
+     */
+    @Test
+    public void generate_Offset_RangeOfSeededText() throws OutOfRangeException, IOException {
+        /* ARRANGE */
+        final int length = 9 * RandomFillTask.BLOCK_SIZE + 5;
+        final int offset = 2 * RandomFillTask.BLOCK_SIZE - 3;
+        final int rangeLength = 5 * RandomFillTask.BLOCK_SIZE + 11;
+        RandomGeneratorProduct whole = new RandomGeneratorProduct(65, 90, length, 42L);
+        RandomGeneratorProduct range = new RandomGeneratorProduct(65, 90, rangeLength, 42L, offset);
+        StringBuilder streamed = new StringBuilder();
+
+        /* ACT */
+        String expected = whole.generate().substring(offset, offset + rangeLength);
+        range.generate(streamed);
+
+        /* ASSERT */
+        TestCase.assertEquals("Generated range", expected, range.generate());
+        TestCase.assertEquals("Streamed range", expected, streamed.toString());
+        TestCase.assertTrue("Bytes of the range", Arrays.equals(expected.getBytes("US-ASCII"),
+                EncodingHelper.channelPath(range, Charset.forName("US-ASCII"))));
+        TestCase.assertEquals("First character", expected.charAt(0), whole.charAt(offset));
+        TestCase.assertEquals("Character far away", new RandomGeneratorProduct(65, 90, 1, 42L, 1L << 40).generate(),
+                String.valueOf(whole.charAt(1L << 40)));
+    }
+
+    @Test(expected = OutOfRangeException.class)
+    public void constructor_NegativeOffset_OutOfRangeException() throws OutOfRangeException {
+        new RandomGeneratorProduct(65, 90, 10, 42L, -1);
+    }
 }
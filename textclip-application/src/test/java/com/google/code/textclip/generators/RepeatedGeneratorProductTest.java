@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.OutOfRangeException;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class RepeatedGeneratorProductTest {
+
+    /**
+     * validates a zero multiply factor.
+     */
+    @Test(expected = OutOfRangeException.class)
+    public void constructor_ZeroTimes_OutOfRangeException() throws OutOfRangeException {
+        /* ARRANGE, ACT & ASSERT */
+        new RepeatedGeneratorProduct(new TextGeneratorProduct("AB"), 0);
+    }
+
+    /**
+     * validates a negative multiply factor.
+     */
+    @Test(expected = OutOfRangeException.class)
+    public void constructor_NegativeTimes_OutOfRangeException() throws OutOfRangeException {
+        /* ARRANGE, ACT & ASSERT */
+        new RepeatedGeneratorProduct(new TextGeneratorProduct("AB"), -10);
+    }
+
+    /**
+     * validates the happy flow of the repetition.
+     */
+    @Test
+    public void generate_HappyFlow() throws OutOfRangeException, IOException {
+        /*
+        ARRANGE
+         */
+        final String[][] testData = {
+                {"A", "1", "A"},
+                {"AB", "3", "ABABAB"},
+                {"xyz", "7", "xyzxyzxyzxyzxyzxyzxyz"}
+        };
+
+        for (String[] arguments : testData) {
+            /*
+            ACT
+             */
+            GeneratorProduct theProduct = new RepeatedGeneratorProduct(
+                    new TextGeneratorProduct(arguments[0]), Long.parseLong(arguments[1]));
+            StringBuilder output = new StringBuilder();
+            theProduct.generate(output);
+
+            /*
+            ASSERT
+             */
+            TestCase.assertEquals("Repeated string", arguments[2], theProduct.generate());
+            TestCase.assertEquals("Repeated stream", arguments[2], output.toString());
+        }
+    }
+
+    /**
+     * validates that a repetition too large for a string is refused.
+     */
+    @Test(expected = IOException.class)
+    public void generate_TooLargeForString_IOException() throws OutOfRangeException, IOException {
+        /* ARRANGE, ACT & ASSERT */
+        new RepeatedGeneratorProduct(new TextGeneratorProduct("0123456789"), 1000000000L).generate();
+    }
+
+    /**
+     * validates that a multiply factor whose product with the length
+     * overflows a long is refused instead of wrapping around.
+     */
+    @Test(expected = IOException.class)
+    public void generate_OverflowingTimes_IOException() throws OutOfRangeException, IOException {
+        /* ARRANGE, ACT & ASSERT */
+        new RepeatedGeneratorProduct(new TextGeneratorProduct("AB"), Long.MAX_VALUE).generate();
+    }
+
+    /**
+     * validates that the repeated product is generated only once when its
+     * text is kept for replay.
+     */
+    @Test
+    public void generateAppendable_SmallText_GeneratedOnce() throws OutOfRangeException, IOException {
+        /*
+        ARRANGE
+         */
+        final int[] calls = {0};
+        GeneratorProduct counted = new TextGeneratorProduct("xyz") {
+            @Override
+            public void generate(Appendable output) throws IOException {
+                calls[0]++;
+                super.generate(output);
+            }
+        };
+        StringBuilder output = new StringBuilder();
+
+        /*
+        ACT
+         */
+        new RepeatedGeneratorProduct(counted, 4).generate(output);
+
+        /*
+        ASSERT
+         */
+        TestCase.assertEquals("Repeated stream", "xyzxyzxyzxyz", output.toString());
+        TestCase.assertEquals("Generations", 1, calls[0]);
+    }
+
+    /**
+     * validates that a text longer than the replay limit is generated again
+     * for every repetition.
+     */
+    @Test
+    public void generateAppendable_TextBeyondReplayLimit() throws OutOfRangeException, IOException {
+        /*
+        ARRANGE
+         */
+        final int length = RepeatedGeneratorProduct.REPLAY_LIMIT + 1;
+        GeneratorProduct theProduct = new RepeatedGeneratorProduct(
+                new CounterStringGeneratorProduct('*', length), 3);
+        CountingAppendable output = new CountingAppendable();
+
+        /*
+        ACT
+         */
+        theProduct.generate(output);
+
+        /*
+        ASSERT
+         */
+        TestCase.assertEquals("Streamed characters", 3L * length, output.count);
+    }
+
+    /**
+     * validates that a repetition too large for a string can be streamed.
+     */
+    @Test
+    public void generateAppendable_LargerThanString() throws OutOfRangeException, IOException {
+        /*
+        ARRANGE
+         */
+        final long times = 300;
+        GeneratorProduct theProduct = new RepeatedGeneratorProduct(
+                new CounterStringGeneratorProduct('*', 10000000), times);
+        CountingAppendable output = new CountingAppendable();
+
+        /*
+        ACT
+         */
+        theProduct.generate(output);
+
+        /*
+        ASSERT
+         */
+        TestCase.assertEquals("Streamed characters", times * 10000000, output.count);
+    }
+
+    /**
+     * Counts the appended characters without storing them.
+     */
+    private static class CountingAppendable implements Appendable {
+        private long count = 0;
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            count += csq.length();
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            count += end - start;
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            count++;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip.generators;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+
+public class SingleByteEncodingTest {
+
+    @Test
+    public void table_ISO_8859_1_EveryCharacterIsItsByte() {
+        /* ACT */
+        byte[] table = SingleByteEncoding.table(Charset.forName("ISO-8859-1"), 1, 254);
+
+        /* ASSERT */
+        TestCase.assertEquals("Length", 254, table.length);
+        for (int i = 0; i < table.length; i++) {
+            TestCase.assertEquals("Byte of " + (i + 1), (byte) (i + 1), table[i]);
+        }
+    }
+
+    @Test
+    public void table_UTF8_AsciiRangeOnly() {
+        /* ARRANGE */
+        Charset utf8 = Charset.forName("UTF-8");
+
+        /* ACT & ASSERT */
+        TestCase.assertEquals("A to Z", "ABCDEFGHIJKLMNOPQRSTUVWXYZ",
+                new String(SingleByteEncoding.table(utf8, 'A', 'Z'), utf8));
+        TestCase.assertNull("Two byte characters", SingleByteEncoding.table(utf8, 1, 254));
+    }
+
+    @Test
+    public void table_UnmappableCharacter_Replaced() {
+        /* ACT */
+        byte[] table = SingleByteEncoding.table(Charset.forName("US-ASCII"), 126, 200);
+
+        /* ASSERT */
+        TestCase.assertEquals("Mappable", '~', table[0]);
+        TestCase.assertEquals("Replaced", '?', table[200 - 126]);
+    }
+
+    @Test
+    public void table_MultiByteCharset_Null() {
+        TestCase.assertNull("UTF-16", SingleByteEncoding.table(Charset.forName("UTF-16"), 'A', 'A'));
+    }
+
+    @Test
+    public void table_CodePoints_InOrder() {
+        /* ARRANGE */
+        Charset utf8 = Charset.forName("UTF-8");
+
+        /* ACT & ASSERT */
+        TestCase.assertEquals("Code points", "zaZ",
+                new String(SingleByteEncoding.table(utf8, new int[]{'z', 'a', 'Z'}), utf8));
+        TestCase.assertNull("Two byte character", SingleByteEncoding.table(utf8, new int[]{'a', 0xE9}));
+        TestCase.assertNull("Supplementary character", SingleByteEncoding.table(utf8, new int[]{0x1F600}));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.OutOfRangeException;
+import com.google.code.textclip.testhelpers.EncodingHelper;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+public class TemplateGeneratorProductTest {
+
+    /**
+     * Validates that every record is written on its own line.
+     */
+    @Test
+    public void generate_Records() throws Exception {
+        /* ARRANGE */
+        TemplateGeneratorProduct product = new TemplateGeneratorProduct("ID-{counter:3}", 3, null);
+
+        /* ACT */
+        String generated = product.generate();
+
+        /* ASSERT */
+        TestCase.assertEquals("Records", "ID-001\nID-002\nID-003\n", generated);
+    }
+
+    /**
+     * Validates that the same seed gives the same records, and that the
+     * streaming path gives the same text as the string path when the
+     * buffer is handed over many times.
+     */
+    @Test
+    public void generate_Seed_Reproducible() throws Exception {
+        /* ARRANGE */
+        TemplateGeneratorProduct product = new TemplateGeneratorProduct("{counter}:{random:65:90:7}", 50000, 42L);
+
+        /* ACT */
+        String first = product.generate();
+        StringBuilder streamed = new StringBuilder();
+        product.generate(streamed);
+
+        /* ASSERT */
+        TestCase.assertEquals("Streamed", first, streamed.toString());
+        TestCase.assertEquals("Same seed", first,
+                new TemplateGeneratorProduct("{counter}:{random:65:90:7}", 50000, 42L).generate());
+        String[] records = first.split("\n");
+        TestCase.assertEquals("Records", 50000, records.length);
+        TestCase.assertTrue("Last record", records[records.length - 1].matches("50000:[A-Z]{7}"));
+    }
+
+    /**
+     * Validates that a record longer than a chunk is written whole.
+     */
+    @Test
+    public void generate_RecordLongerThanChunk() throws Exception {
+        /* ARRANGE */
+        char[] text = new char[GeneratorProduct.CHUNK_SIZE + 10];
+        Arrays.fill(text, 'x');
+        TemplateGeneratorProduct product = new TemplateGeneratorProduct(new String(text) + "{counter}", 2, null);
+
+        /* ACT */
+        String generated = product.generate();
+
+        /* ASSERT */
+        TestCase.assertEquals("Records", new String(text) + "1\n" + new String(text) + "2\n", generated);
+    }
+
+    /**
+     * Validates that the records written to a channel are the encoded text.
+     */
+    @Test
+    public void generate_Channel_SameAsCharacters() throws Exception {
+        /* ARRANGE */
+        TemplateGeneratorProduct product = new TemplateGeneratorProduct("\u00e9-{counter:2}-{random:200:254:3}", 100, 5L);
+        Charset charset = Charset.forName("UTF-8");
+
+        /* ACT & ASSERT */
+        TestCase.assertTrue("Channel",
+                Arrays.equals(EncodingHelper.characterPath(product, charset), EncodingHelper.channelPath(product, charset)));
+    }
+
+    /**
+     * Validates that at least one record is requested.
+     */
+    @Test(expected = OutOfRangeException.class)
+    public void constructor_NoRecords_OutOfRangeException() throws Exception {
+        /* ARRANGE, ACT & ASSERT */
+        new TemplateGeneratorProduct("{counter}", 0, null);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.FileSizeException;
+import com.google.code.textclip.exceptions.FormatException;
+import com.google.code.textclip.exceptions.OutOfRangeException;
+import junit.framework.TestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+
+public class TemplateProgramTest {
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    /**
+     * Validates that text, escaped braces and counters are written.
+     */
+    @Test
+    public void execute_LiteralAndCounter() throws Exception {
+        /* ARRANGE */
+        TemplateProgram program = TemplateProgram.compile("{{id}}={counter:4},{counter}");
+        char[] buffer = new char[program.maxRecordLength(12345)];
+
+        /* ACT */
+        int end = program.execute(12345, new SplittableRandom(1), buffer, 0);
+
+        /* ASSERT */
+        TestCase.assertEquals("Record", "{id}=12345,12345\n", new String(buffer, 0, end));
+    }
+
+    /**
+     * Validates that random characters stay between the limits.
+     */
+    @Test
+    public void execute_Random() throws Exception {
+        /* ARRANGE */
+        TemplateProgram program = TemplateProgram.compile("{random:65:66:100}");
+        char[] buffer = new char[program.maxRecordLength(1)];
+
+        /* ACT */
+        int end = program.execute(1, new SplittableRandom(1), buffer, 0);
+
+        /* ASSERT */
+        TestCase.assertEquals("Length", 101, end);
+        TestCase.assertTrue("Characters", new String(buffer, 0, 100).matches("[AB]{100}"));
+    }
+
+    /**
+     * Validates that the content of a file is inlined.
+     */
+    @Test
+    public void execute_File() throws Exception {
+        /* ARRANGE */
+        File file = testFolder.newFile("header.txt");
+        Files.write(file.toPath(), "head".getBytes(Charset.defaultCharset()));
+        TemplateProgram program = TemplateProgram.compile("<{file:" + file.getAbsolutePath() + "}>");
+        char[] buffer = new char[program.maxRecordLength(1)];
+
+        /* ACT */
+        int end = program.execute(1, new SplittableRandom(1), buffer, 0);
+
+        /* ASSERT */
+        TestCase.assertEquals("Record", "<head>\n", new String(buffer, 0, end));
+    }
+
+    /**
+     * Validates that the longest record determines the maximum length.
+     */
+    @Test
+    public void maxRecordLength_CounterWiderThanWidth() throws Exception {
+        /* ARRANGE */
+        TemplateProgram program = TemplateProgram.compile("ab{counter:3}{counter:3}{random:65:90:5}");
+
+        /* ACT & ASSERT */
+        TestCase.assertEquals("Up to record 999", 2 + 3 + 3 + 5 + 1, program.maxRecordLength(999));
+        TestCase.assertEquals("Up to record 10000", 2 + 5 + 5 + 5 + 1, program.maxRecordLength(10000));
+    }
+
+    /**
+     * Validates that templates with unclosed or unescaped braces, or unknown
+     * placeholders, are rejected.
+     */
+    @Test
+    public void compile_WrongFormat_FormatException() throws Exception {
+        /* ARRANGE */
+        final String[] templates = {"a{counter", "a}b", "{unknown}", "{random:65:90}", "{counter:x}"};
+
+        for (String template : templates) {
+            /* ACT & ASSERT */
+            try {
+                TemplateProgram.compile(template);
+                TestCase.fail("No FormatException for " + template);
+            } catch (FormatException e) {
+                /* expected */
+            }
+        }
+    }
+
+    /**
+     * Validates the limits of the random characters.
+     */
+    @Test(expected = OutOfRangeException.class)
+    public void compile_RandomOutOfRange_OutOfRangeException() throws Exception {
+        /* ARRANGE, ACT & ASSERT */
+        TemplateProgram.compile("{random:0:300:4}");
+    }
+
+    /**
+     * Validates that a missing file is reported.
+     */
+    @Test(expected = FileNotFoundException.class)
+    public void compile_MissingFile_FileNotFoundException() throws Exception {
+        /* ARRANGE, ACT & ASSERT */
+        TemplateProgram.compile("{file:" + new File(testFolder.getRoot(), "missing.txt").getAbsolutePath() + "}");
+    }
+
+    /**
+     * Validates that an empty file is reported.
+     */
+    @Test(expected = FileSizeException.class)
+    public void compile_EmptyFile_FileSizeException() throws Exception {
+        /* ARRANGE, ACT & ASSERT */
+        TemplateProgram.compile("{file:" + testFolder.newFile("empty.txt").getAbsolutePath() + "}");
+    }
+
+    /**
+     * Validates that a template whose records do not fit in one array is
+     * refused when it is compiled, also when the lengths overflow an int.
+     */
+    @Test
+    public void compile_RecordTooLong_OutOfRangeException() throws Exception {
+        final String[] templates = {
+                "{random:65:90:999999999}{random:65:90:999999999}{random:65:90:999999999}",
+                "{random:65:90:999999999}{random:65:90:999999999}{random:65:90:999999999}"
+                        + "{random:65:90:999999999}{random:65:90:999999999}"
+        };
+
+        for (String template : templates) {
+            try {
+                TemplateProgram.compile(template);
+                TestCase.fail("Template " + template + " is accepted");
+            } catch (OutOfRangeException e) {
+                TestCase.assertTrue(e.getMessage(), e.getMessage().contains("record"));
+            }
+        }
+    }
+}
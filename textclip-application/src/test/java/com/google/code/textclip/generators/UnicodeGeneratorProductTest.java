@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.OutOfRangeException;
+import com.google.code.textclip.testhelpers.EncodingHelper;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class UnicodeGeneratorProductTest {
+    private static final Charset UTF_8 = StandardCharsets.UTF_8;
+
+    /**
+     * Validates that the UTF-8 text is exactly as long as requested, also
+     * when the range restricts which lengths can be made.
+     */
+    @Test
+    public void generate_ExactByteLength() throws Exception {
+        /* ARRANGE */
+        final int[][] ranges = {{1, 0x10FFFF}, {0x80, 0x7FF}, {0x800, 0xFFFF}, {0x10000, 0x10FFFF},
+                {0x7F, 0x80}, {0x7FF, 0x10000}};
+        final long[] lengths = {1, 2, 3, 4, 5, 6, 7, 8, 12, 15, 16, 17, 100003, 200000};
+
+        for (int[] range : ranges) {
+            for (long length : lengths) {
+                UnicodeGeneratorProduct product;
+                try {
+                    product = new UnicodeGeneratorProduct(range[0], range[1], length, 7L);
+                } catch (OutOfRangeException e) {
+                    continue;
+                }
+
+                /* ACT */
+                byte[] bytes = EncodingHelper.channelPath(product, UTF_8);
+
+                /* ASSERT */
+                String name = Integer.toHexString(range[0]) + ":" + Integer.toHexString(range[1]) + ":" + length;
+                TestCase.assertEquals("Length of " + name, length, bytes.length);
+                assertInRange(name, decode(bytes), range[0], range[1]);
+            }
+        }
+    }
+
+    /**
+     * Validates the lengths that a range can and cannot make exactly.
+     */
+    @Test
+    public void constructor_Lengths() throws Exception {
+        /* ARRANGE, ACT & ASSERT */
+        TestCase.assertTrue("3 bytes of 3 byte characters", canMake(0x800, 0xFFFF, 3));
+        TestCase.assertFalse("4 bytes of 3 byte characters", canMake(0x800, 0xFFFF, 4));
+        TestCase.assertFalse("1000 bytes of 3 byte characters", canMake(0x800, 0xFFFF, 1000));
+        TestCase.assertTrue("5 bytes of 2 and 3 byte characters", canMake(0x7FF, 0x800, 5));
+        TestCase.assertFalse("1 byte of 2 and 3 byte characters", canMake(0x7FF, 0x800, 1));
+        TestCase.assertFalse("7 bytes of 4 byte characters", canMake(0x10000, 0x10FFFF, 7));
+        TestCase.assertFalse("5 bytes of 3 and 4 byte characters", canMake(0xFFFF, 0x10000, 5));
+        TestCase.assertTrue("6 bytes of 3 and 4 byte characters", canMake(0xFFFF, 0x10000, 6));
+        TestCase.assertTrue("100001 bytes of 3 and 4 byte characters", canMake(0xFFFF, 0x10000, 100001));
+    }
+
+    /**
+     * Validates that the characters, the string and the bytes are the same
+     * text, for UTF-8 and for a charset that is encoded from the
+     * characters.
+     */
+    @Test
+    public void generate_AllPathsSameText() throws Exception {
+        /* ARRANGE */
+        UnicodeGeneratorProduct product = new UnicodeGeneratorProduct(1, 0x10FFFF, 300001, 42L);
+
+        /* ACT */
+        String generated = product.generate();
+
+        /* ASSERT */
+        TestCase.assertEquals("Bytes", generated, decode(EncodingHelper.channelPath(product, UTF_8)));
+        TestCase.assertTrue("Characters", Arrays.equals(generated.getBytes(UTF_8),
+                EncodingHelper.characterPath(product, UTF_8)));
+        Charset utf16 = Charset.forName("UTF-16BE");
+        TestCase.assertTrue("UTF-16", Arrays.equals(generated.getBytes(utf16),
+                EncodingHelper.channelPath(product, utf16)));
+    }
+
+    /**
+     * Validates that no chunk ends in the middle of a surrogate pair.
+     */
+    @Test
+    public void generate_ChunksKeepSurrogatePairs() throws Exception {
+        /* ARRANGE */
+        UnicodeGeneratorProduct product = new UnicodeGeneratorProduct(0x10000, 0x10FFFF, 400000, 1L);
+        final StringBuilder errors = new StringBuilder();
+        Writer output = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int count) {
+                if (count > 0 && (Character.isLowSurrogate(buffer[offset])
+                        || Character.isHighSurrogate(buffer[offset + count - 1]))) {
+                    errors.append("split pair at a chunk boundary; ");
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        /* ACT */
+        product.generate(output);
+
+        /* ASSERT */
+        TestCase.assertEquals("Errors", "", errors.toString());
+    }
+
+    /**
+     * Validates that a seed gives the same text and no seed another one.
+     */
+    @Test
+    public void generate_Seed() throws Exception {
+        /* ARRANGE, ACT & ASSERT */
+        TestCase.assertEquals("Same seed", new UnicodeGeneratorProduct(0x80, 0x10FFFF, 1000, 3L).generate(),
+                new UnicodeGeneratorProduct(0x80, 0x10FFFF, 1000, 3L).generate());
+        UnicodeGeneratorProduct unseeded = new UnicodeGeneratorProduct(0x80, 0x10FFFF, 1000, null);
+        TestCase.assertFalse("No seed", unseeded.generate().equals(unseeded.generate()));
+    }
+
+    /**
+     * Validates the limits of the range.
+     */
+    @Test
+    public void constructor_OutOfRange_OutOfRangeException() {
+        /* ARRANGE */
+        final long[][] arguments = {{0, 100, 10}, {1, 0x110000, 10}, {200, 100, 10}, {0xD800, 0xDFFF, 30},
+                {1, 100, 0}};
+
+        for (long[] argument : arguments) {
+            /* ACT & ASSERT */
+            try {
+                new UnicodeGeneratorProduct((int) argument[0], (int) argument[1], argument[2], null);
+                TestCase.fail("No OutOfRangeException for " + Arrays.toString(argument));
+            } catch (OutOfRangeException e) {
+                /* expected */
+            }
+        }
+    }
+
+    private static boolean canMake(int lower, int upper, long length) {
+        try {
+            new UnicodeGeneratorProduct(lower, upper, length, null);
+            return true;
+        } catch (OutOfRangeException e) {
+            return false;
+        }
+    }
+
+    private static String decode(byte[] bytes) throws CharacterCodingException {
+        return UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+    }
+
+    private static void assertInRange(String name, String text, int lower, int upper) {
+        for (int index = 0; index < text.length(); ) {
+            int codePoint = text.codePointAt(index);
+            TestCase.assertTrue("Code point " + Integer.toHexString(codePoint) + " of " + name,
+                    codePoint >= lower && codePoint <= upper
+                            && (codePoint < Character.MIN_SURROGATE || codePoint > Character.MAX_SURROGATE));
+            index += Character.charCount(codePoint);
+        }
+    }
+}
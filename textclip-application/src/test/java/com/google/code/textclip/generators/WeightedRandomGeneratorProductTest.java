@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.generators;
+
+import com.google.code.textclip.exceptions.OutOfRangeException;
+import com.google.code.textclip.testhelpers.EncodingHelper;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class WeightedRandomGeneratorProductTest {
+    private static final int[] LETTERS = {'e', 't', ' ', 'q'};
+    private static final double[] LETTER_WEIGHTS = {12, 9, 18, 1};
+
+    /**
+     * Validates the length, that only characters of the table occur and
+     * that they occur about as often as their weight says.
+     */
+    @Test
+    public void generate_FrequenciesFollowTable() throws Exception {
+        /* ARRANGE */
+        final int length = 400000;
+        WeightedRandomGeneratorProduct product = new WeightedRandomGeneratorProduct(LETTERS, LETTER_WEIGHTS,
+                length, 3L);
+
+        /* ACT */
+        String generated = product.generate();
+
+        /* ASSERT */
+        TestCase.assertEquals("Length", length, generated.length());
+        int[] counts = new int[LETTERS.length];
+        for (int i = 0; i < generated.length(); i++) {
+            int index = Arrays.binarySearch(new int[]{' ', 'e', 'q', 't'}, generated.charAt(i));
+            TestCase.assertTrue("Character of the table", index >= 0);
+            counts[index]++;
+        }
+        TestCase.assertEquals("Spaces", length * 18 / 40.0, counts[0], 0.01 * length);
+        TestCase.assertEquals("e", length * 12 / 40.0, counts[1], 0.01 * length);
+        TestCase.assertEquals("q", length * 1 / 40.0, counts[2], 0.01 * length);
+        TestCase.assertEquals("t", length * 9 / 40.0, counts[3], 0.01 * length);
+    }
+
+    /**
+     * Validates that the characters, the string and the bytes are the same
+     * text, on the single byte path, the UTF-8 path and for a charset that
+     * is encoded from the characters.
+     */
+    @Test
+    public void generate_AllPathsSameText() throws Exception {
+        /* ARRANGE */
+        final int[] codePoints = {'a', 0xE9, 0x20AC, 0x1F600};
+        WeightedRandomGeneratorProduct ascii = new WeightedRandomGeneratorProduct(LETTERS, LETTER_WEIGHTS,
+                300001, 42L);
+        WeightedRandomGeneratorProduct unicode = new WeightedRandomGeneratorProduct(codePoints,
+                new double[]{5, 3, 2, 1}, 300001, 42L);
+        Charset latin1 = StandardCharsets.ISO_8859_1;
+        Charset utf8 = StandardCharsets.UTF_8;
+        Charset utf16 = Charset.forName("UTF-16BE");
+
+        /* ACT */
+        String asciiText = ascii.generate();
+        String unicodeText = unicode.generate();
+
+        /* ASSERT */
+        TestCase.assertTrue("Single bytes", Arrays.equals(asciiText.getBytes(latin1),
+                EncodingHelper.channelPath(ascii, latin1)));
+        TestCase.assertTrue("Single byte characters", Arrays.equals(asciiText.getBytes(latin1),
+                EncodingHelper.characterPath(ascii, latin1)));
+        TestCase.assertEquals("Code points", 300001, unicodeText.codePointCount(0, unicodeText.length()));
+        TestCase.assertTrue("UTF-8", Arrays.equals(unicodeText.getBytes(utf8),
+                EncodingHelper.channelPath(unicode, utf8)));
+        TestCase.assertTrue("UTF-8 characters", Arrays.equals(unicodeText.getBytes(utf8),
+                EncodingHelper.characterPath(unicode, utf8)));
+        TestCase.assertTrue("UTF-16", Arrays.equals(unicodeText.getBytes(utf16),
+                EncodingHelper.channelPath(unicode, utf16)));
+    }
+
+    @Test
+    public void generate_Seed_SameText() throws Exception {
+        /* ARRANGE */
+        WeightedRandomGeneratorProduct first = new WeightedRandomGeneratorProduct(LETTERS, LETTER_WEIGHTS, 1000, 9L);
+        WeightedRandomGeneratorProduct second = new WeightedRandomGeneratorProduct(LETTERS, LETTER_WEIGHTS, 1000, 9L);
+
+        /* ACT & ASSERT */
+        TestCase.assertEquals("Same seed", first.generate(), second.generate());
+        TestCase.assertFalse("Other seed", first.generate().equals(
+                new WeightedRandomGeneratorProduct(LETTERS, LETTER_WEIGHTS, 1000, 10L).generate()));
+    }
+
+    @Test(expected = OutOfRangeException.class)
+    public void constructor_Surrogate_OutOfRangeException() throws OutOfRangeException {
+        new WeightedRandomGeneratorProduct(new int[]{'a', 0xD800}, new double[]{1, 1}, 10, null);
+    }
+
+    @Test(expected = OutOfRangeException.class)
+    public void constructor_NoWeight_OutOfRangeException() throws OutOfRangeException {
+        new WeightedRandomGeneratorProduct(new int[]{'a', 'b'}, new double[]{0, 0}, 10, null);
+    }
+
+    @Test(expected = OutOfRangeException.class)
+    public void constructor_EmptyTable_OutOfRangeException() throws OutOfRangeException {
+        new WeightedRandomGeneratorProduct(new int[0], new double[0], 10, null);
+    }
+
+    @Test(expected = OutOfRangeException.class)
+    public void constructor_LengthZero_OutOfRangeException() throws OutOfRangeException {
+        new WeightedRandomGeneratorProduct(LETTERS, LETTER_WEIGHTS, 0, null);
+    }
+
+    /**
+     * Validates that a sample is counted per code point, with surrogate
+     * pairs as one character and lone surrogates left out.
+     */
+    @Test
+    public void codePointCounter_CountsCodePoints() {
+        /* ARRANGE */
+        CodePointCounter counter = new CodePointCounter();
+
+        /* ACT */
+        counter.append("b\ud83d").append("\ude00ab").append('\ud800').append("b");
+
+        /* ASSERT */
+        TestCase.assertTrue("Code points", Arrays.equals(new int[]{'a', 'b', 0x1F600}, counter.getCodePoints()));
+        TestCase.assertTrue("Weights", Arrays.equals(new double[]{1, 3, 1}, counter.getWeights()));
+    }
+}
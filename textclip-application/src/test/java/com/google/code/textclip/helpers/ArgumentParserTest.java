@@ -369,5 +369,298 @@ public class ArgumentParserTest {
             TestCase.assertSame("Random with option: " + arg[0], arg[1], options.getRandom());
         }
     }
-}
 
+    /**
+     * ************************************************************************
+     * OUTPUT
+     * ************************************************************************
+     */
+    @Test
+    public void getOut_validArguments() throws CmdLineException {
+        final String[][] args = {{"-a", "-o", "out.txt"}, {"-a", "--out", "-"}};
+
+        for (String[] arg : args) {
+            parser.parseArgument(arg);
+            TestCase.assertTrue("Output with option: " + arg[1], options.isOut());
+            TestCase.assertSame("Output with option: " + arg[1], arg[2], options.getOut());
+        }
+    }
+
+    @Test
+    public void isOut_NotProvided() throws CmdLineException {
+        parser.parseArgument("-a");
+        TestCase.assertFalse("No output", options.isOut());
+    }
+
+    @Test
+    public void getSeed_validArguments() throws CmdLineException {
+        final String[][] args = {{"-ra", "65:70:5", "-s", "42"}, {"-ra", "65:70:5", "--seed", "-7"}};
+
+        for (String[] arg : args) {
+            parser.parseArgument(arg);
+            TestCase.assertTrue("Seed with option: " + arg[2], options.isSeed());
+            TestCase.assertEquals("Seed with option: " + arg[2], Long.parseLong(arg[3]), options.getSeed());
+        }
+    }
+
+    @Test
+    public void isSeed_NotProvided() throws CmdLineException {
+        parser.parseArgument("-ra", "65:70:5");
+        TestCase.assertFalse("No seed", options.isSeed());
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void seed_withoutRandom_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-co", "10:*", "--seed", "42");
+    }
+
+    @Test
+    public void getLength_validArguments() throws CmdLineException {
+        final String[][] args = {{"-ch", "65:67", "-l", "7"}, {"-a", "--length", "1000"}};
+
+        for (String[] arg : args) {
+            parser.parseArgument(arg);
+            TestCase.assertTrue("Length with option: " + arg[arg.length - 2], options.isLength());
+            TestCase.assertEquals("Length with option: " + arg[arg.length - 2],
+                    Integer.parseInt(arg[arg.length - 1]), options.getLength());
+        }
+    }
+
+    @Test
+    public void isLength_NotProvided() throws CmdLineException {
+        parser.parseArgument("-a");
+        TestCase.assertFalse("No length", options.isLength());
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void length_withCounterString_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-co", "10:*", "-l", "42");
+    }
+
+    @Test
+    public void getBatch_validArguments() throws CmdLineException {
+        final String[][] args = {{"-b", "jobs.txt"}, {"--batch", "jobs.txt"}};
+
+        for (String[] arg : args) {
+            parser.parseArgument(arg);
+            TestCase.assertTrue("Batch with option: " + arg[0], options.isBatch());
+            TestCase.assertEquals("Batch with option: " + arg[0], "jobs.txt", options.getBatch().getName());
+        }
+    }
+
+    @Test
+    public void isBatch_NotProvided() throws CmdLineException {
+        parser.parseArgument("-a");
+        TestCase.assertFalse("No batch", options.isBatch());
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void batch_withOut_CmdLineException() throws CmdLineException {
+        parser.parseArgument("--batch", "jobs.txt", "--out", "a.txt");
+    }
+
+    @Test
+    public void getEncoding_validArguments() throws CmdLineException {
+        final String[][] args = {{"-f", "file.txt", "-e", "UTF-16"}, {"-f", "file.txt", "--encoding", "UTF-16"}};
+
+        for (String[] arg : args) {
+            parser.parseArgument(arg);
+            TestCase.assertTrue("Encoding with option: " + arg[2], options.isEncoding());
+            TestCase.assertEquals("Encoding with option: " + arg[2], "UTF-16", options.getEncoding());
+        }
+    }
+
+    @Test
+    public void isEncoding_NotProvided() throws CmdLineException {
+        parser.parseArgument("-f", "file.txt");
+        TestCase.assertFalse("No encoding", options.isEncoding());
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void encoding_withoutFile_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-t", "text", "--encoding", "UTF-8");
+    }
+
+    @Test
+    public void isStats() throws CmdLineException {
+        parser.parseArgument("-a", "--stats");
+        TestCase.assertTrue("Stats", options.isStats());
+    }
+
+    @Test
+    public void isStats_NotProvided() throws CmdLineException {
+        parser.parseArgument("-a");
+        TestCase.assertFalse("No stats", options.isStats());
+    }
+
+    @Test
+    public void getCache_validArguments() throws CmdLineException {
+        parser.parseArgument("-a", "--cache", "cachedir", "--cache-quota", "10");
+        TestCase.assertTrue("Cache", options.isCache());
+        TestCase.assertEquals("Directory", "cachedir", options.getCache().getName());
+        TestCase.assertEquals("Quota", 10, options.getCacheQuota());
+    }
+
+    @Test
+    public void getCacheQuota_NotProvided_Standard() throws CmdLineException {
+        parser.parseArgument("-a", "--cache", "cachedir");
+        TestCase.assertEquals("Quota", 1024, options.getCacheQuota());
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void cacheQuota_withoutCache_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-a", "--cache-quota", "10");
+    }
+
+    /**
+     * Validates that a negative quota, or one whose bytes do not fit in a
+     * long, is out of range, and that the largest quota is accepted.
+     */
+    @Test
+    public void validate_CacheQuotaOutOfRange_CmdLineException() throws CmdLineException {
+        final String[] quotas = {"-1", Long.toString(ArgumentParser.MAX_CACHE_QUOTA + 1), "9223372036854775807"};
+
+        for (String quota : quotas) {
+            ArgumentParser theOptions = new ArgumentParser();
+            CmdLineParser theParser = new CmdLineParser(theOptions);
+            theParser.parseArgument("-a", "--cache", "cachedir", "--cache-quota", quota);
+            try {
+                theOptions.validate(theParser);
+                TestCase.fail("Quota " + quota + " is accepted");
+            } catch (CmdLineException e) {
+                TestCase.assertTrue("Message of " + quota, e.getMessage().contains("--cache-quota"));
+            }
+        }
+        parser.parseArgument("-a", "--cache", "cachedir", "--cache-quota",
+                Long.toString(ArgumentParser.MAX_CACHE_QUOTA));
+        options.validate(parser);
+    }
+
+    @Test
+    public void getTemplate_validArguments() throws CmdLineException {
+        final String[][] args = {{"-tp", "ID-{counter:8}", "-n", "10"}, {"--template", "ID-{counter:8}", "--records", "10"}};
+
+        for (String[] arg : args) {
+            parser.parseArgument(arg);
+            TestCase.assertTrue("Template with option: " + arg[0], options.isTemplate());
+            TestCase.assertEquals("Template with option: " + arg[0], "ID-{counter:8}", options.getTemplate());
+            TestCase.assertEquals("Records with option: " + arg[2], 10, options.getRecords());
+        }
+    }
+
+    @Test
+    public void getRecords_NotProvided_Standard() throws CmdLineException {
+        parser.parseArgument("-tp", "{counter}");
+        TestCase.assertEquals("Records", 1, options.getRecords());
+    }
+
+    @Test
+    public void seed_withTemplate() throws CmdLineException {
+        parser.parseArgument("-tp", "{random:65:90:4}", "-s", "42");
+        TestCase.assertEquals("Seed", 42, options.getSeed());
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void records_withoutTemplate_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-a", "-n", "10");
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void template_withCounterString_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-tp", "{counter}", "-co", "10:*");
+    }
+
+    @Test
+    public void getUnicode_validArguments() throws CmdLineException {
+        final String[][] args = {{"-u", "U+0080:U+10FFFF:1000"}, {"--unicode", "U+0080:U+10FFFF:1000", "-s", "3"}};
+
+        for (String[] arg : args) {
+            parser.parseArgument(arg);
+            TestCase.assertTrue("Unicode with option: " + arg[0], options.isUnicode());
+            TestCase.assertEquals("Unicode with option: " + arg[0], "U+0080:U+10FFFF:1000", options.getUnicode());
+        }
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void unicode_withRandom_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-u", "U+0080:U+10FFFF:1000", "-ra", "65:70:5");
+    }
+
+    @Test
+    public void getWeighted_validArguments() throws CmdLineException {
+        final String[][] args = {{"-w", "1000", "--table", "table.txt"}, {"--weighted", "1000", "-f", "sample.txt",
+                "-e", "UTF-8", "-s", "3"}};
+
+        for (String[] arg : args) {
+            ArgumentParser theOptions = new ArgumentParser();
+            new CmdLineParser(theOptions).parseArgument(arg);
+            TestCase.assertTrue("Weighted with option: " + arg[0], theOptions.isWeighted());
+            TestCase.assertEquals("Weighted with option: " + arg[0], 1000, theOptions.getWeighted());
+            TestCase.assertEquals("Table with option: " + arg[2], "--table".equals(arg[2]), theOptions.isTable());
+        }
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void table_withoutWeighted_CmdLineException() throws CmdLineException {
+        parser.parseArgument("--table", "table.txt");
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void table_withFile_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-w", "10", "--table", "table.txt", "-f", "sample.txt");
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void weighted_withRandom_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-w", "10", "-f", "sample.txt", "-ra", "65:70:5");
+    }
+
+    @Test
+    public void getMarkov_validArguments() throws CmdLineException {
+        final String[][] args = {{"-mk", "1000", "-f", "corpus.txt", "-k", "6", "--save-model", "corpus.model"},
+                {"--markov", "1000", "--model", "corpus.model", "-s", "3"}};
+
+        for (String[] arg : args) {
+            ArgumentParser theOptions = new ArgumentParser();
+            new CmdLineParser(theOptions).parseArgument(arg);
+            TestCase.assertTrue("Markov with option: " + arg[0], theOptions.isMarkov());
+            TestCase.assertEquals("Markov with option: " + arg[0], 1000, theOptions.getMarkov());
+            TestCase.assertEquals("Model with option: " + arg[2], "--model".equals(arg[2]), theOptions.isModel());
+        }
+        ArgumentParser theOptions = new ArgumentParser();
+        new CmdLineParser(theOptions).parseArgument(args[0]);
+        TestCase.assertEquals("Order", 6, theOptions.getOrder());
+        TestCase.assertEquals("Save model", "corpus.model", theOptions.getSaveModel().getName());
+        theOptions = new ArgumentParser();
+        new CmdLineParser(theOptions).parseArgument(args[1]);
+        TestCase.assertEquals("Standard order", 4, theOptions.getOrder());
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void model_withFile_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-mk", "10", "--model", "corpus.model", "-f", "corpus.txt");
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void saveModel_withoutFile_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-mk", "10", "--model", "corpus.model", "--save-model", "other.model");
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void markov_withWeighted_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-mk", "10", "-f", "corpus.txt", "-w", "10");
+    }
+
+    @Test
+    public void getOffset_validArguments() throws CmdLineException {
+        parser.parseArgument("-ra", "65:90:10", "-s", "42", "--offset", "5000");
+
+        TestCase.assertEquals("Offset", 5000, options.getOffset());
+        TestCase.assertEquals("Standard offset", 0, new ArgumentParser().getOffset());
+    }
+
+    @Test(expected = CmdLineException.class)
+    public void offset_withoutSeed_CmdLineException() throws CmdLineException {
+        parser.parseArgument("-ra", "65:90:10", "--offset", "5000");
+    }
+}
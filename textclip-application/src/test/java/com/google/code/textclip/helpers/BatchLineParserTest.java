@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip.helpers;
+
+import com.google.code.textclip.exceptions.FormatException;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class BatchLineParserTest {
+
+    @Test
+    public void getArguments_plainLine_splitOnWhiteSpace() throws FormatException {
+        /* ARRANGE */
+        BatchLineParser line = new BatchLineParser("  -co 5000:*\t--out a.txt ");
+
+        /* ACT */
+        String[] arguments = line.getArguments();
+
+        /* ASSERT */
+        TestCase.assertEquals("Arguments", Arrays.asList("-co", "5000:*", "--out", "a.txt"),
+                Arrays.asList(arguments));
+    }
+
+    @Test
+    public void getArguments_quotedArguments_keepWhiteSpace() throws FormatException {
+        /* ARRANGE */
+        BatchLineParser line = new BatchLineParser("-t \"two words\" -o 'my file.txt'");
+
+        /* ACT */
+        String[] arguments = line.getArguments();
+
+        /* ASSERT */
+        TestCase.assertEquals("Arguments", Arrays.asList("-t", "two words", "-o", "my file.txt"),
+                Arrays.asList(arguments));
+    }
+
+    @Test
+    public void getArguments_escapes_literalCharacters() throws FormatException {
+        /* ARRANGE */
+        BatchLineParser line = new BatchLineParser("-t a\\ \\\"b\\\" -o 'c\\d' \"\"");
+
+        /* ACT */
+        String[] arguments = line.getArguments();
+
+        /* ASSERT */
+        TestCase.assertEquals("Arguments", Arrays.asList("-t", "a \"b\"", "-o", "c\\d", ""),
+                Arrays.asList(arguments));
+    }
+
+    @Test
+    public void getArguments_emptyLine_noArguments() throws FormatException {
+        TestCase.assertEquals("Arguments", 0, new BatchLineParser("   ").getArguments().length);
+    }
+
+    @Test(expected = FormatException.class)
+    public void constructor_unclosedQuote_FormatException() throws FormatException {
+        new BatchLineParser("-t \"unclosed");
+    }
+
+    @Test(expected = FormatException.class)
+    public void constructor_trailingEscape_FormatException() throws FormatException {
+        new BatchLineParser("-t text\\");
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.helpers;
+
+import com.google.code.textclip.exceptions.FileSizeException;
+import com.google.code.textclip.exceptions.FormatException;
+import junit.framework.TestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class FrequencyTableParserTest {
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    /**
+     * Validates the code point notations, comments, blank lines, repeated
+     * characters and characters without weight.
+     */
+    @Test
+    public void constructor_Table() throws Exception {
+        /* ARRANGE */
+        File table = createTable("# letters\n\nU+0065 12.5\n  0x74\t9\n32 18\n101 0.5\nu+0071 0\n");
+
+        /* ACT */
+        FrequencyTableParser parser = new FrequencyTableParser(table);
+
+        /* ASSERT */
+        TestCase.assertTrue("Code points", Arrays.equals(new int[]{'e', 't', ' '}, parser.getCodePoints()));
+        TestCase.assertTrue("Weights", Arrays.equals(new double[]{13, 9, 18}, parser.getWeights()));
+    }
+
+    @Test
+    public void constructor_WrongFormat_FormatException() throws IOException, FileSizeException {
+        /* ARRANGE */
+        File table = createTable("U+0065 12\ne 3\n");
+
+        /* ACT & ASSERT */
+        try {
+            new FrequencyTableParser(table);
+            TestCase.fail("No FormatException");
+        } catch (FormatException e) {
+            TestCase.assertEquals("Message", "Line 2 does not meet requirements, e.g. U+0065 12.7", e.getMessage());
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void constructor_MissingFile_FileNotFoundException() throws Exception {
+        new FrequencyTableParser(new File(testFolder.getRoot(), "missing.txt"));
+    }
+
+    @Test(expected = FileSizeException.class)
+    public void constructor_EmptyFile_FileSizeException() throws Exception {
+        new FrequencyTableParser(testFolder.newFile("empty.txt"));
+    }
+
+    private File createTable(String content) throws IOException {
+        File table = testFolder.newFile("table.txt");
+        Files.write(table.toPath(), content.getBytes(StandardCharsets.ISO_8859_1));
+        return table;
+    }
+}
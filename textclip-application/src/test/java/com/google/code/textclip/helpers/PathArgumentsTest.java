@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.helpers;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+public class PathArgumentsTest {
+    private static final File DIRECTORY = new File("/home/user/work");
+
+    /**
+     * Validates that the values of the path options become absolute, in
+     * both forms, and that "-o -" and absolute paths are kept.
+     */
+    @Test
+    public void resolve_PathOptions_Absolute() {
+        /* ARRANGE */
+        String[] arguments = {"-mk", "10", "-f", "in.txt", "--save-model=m.model", "-o", "-", "--cache",
+                "/var/cache"};
+
+        /* ACT */
+        String[] resolved = PathArguments.resolve(arguments, DIRECTORY);
+
+        /* ASSERT */
+        TestCase.assertEquals("Arguments", Arrays.asList("-mk", "10", "-f",
+                new File(DIRECTORY, "in.txt").getPath(), "--save-model=" + new File(DIRECTORY, "m.model").getPath(),
+                "-o", "-", "--cache", "/var/cache"), Arrays.asList(resolved));
+        TestCase.assertEquals("Original", "in.txt", arguments[3]);
+    }
+
+    /**
+     * Validates that the value of another option is kept, also when it
+     * looks like a path option.
+     */
+    @Test
+    public void resolve_OtherValues_Unchanged() {
+        /* ARRANGE */
+        String[] arguments = {"-a", "-t", "-f", "--stats", "-m", "2"};
+
+        /* ACT */
+        String[] resolved = PathArguments.resolve(arguments, DIRECTORY);
+
+        /* ASSERT */
+        TestCase.assertEquals("Arguments", Arrays.asList(arguments), Arrays.asList(resolved));
+    }
+
+    /**
+     * Validates that the files of a template become absolute, in both
+     * forms, and that escaped braces, other placeholders and absolute files
+     * are kept.
+     */
+    @Test
+    public void resolve_TemplateFiles_Absolute() {
+        /* ARRANGE */
+        String[] arguments = {"-tp", "{{file:x}} {file:head.txt}{counter:3}{file:/etc/hosts}", "-n", "2",
+                "--template={file:a.txt}"};
+
+        /* ACT */
+        String[] resolved = PathArguments.resolve(arguments, DIRECTORY);
+
+        /* ASSERT */
+        TestCase.assertEquals("Arguments", Arrays.asList("-tp",
+                "{{file:x}} {file:" + new File(DIRECTORY, "head.txt").getPath() + "}{counter:3}{file:/etc/hosts}",
+                "-n", "2", "--template={file:" + new File(DIRECTORY, "a.txt").getPath() + "}"),
+                Arrays.asList(resolved));
+    }
+
+    /**
+     * Validates that a file name is kept when the absolute name would end
+     * the placeholder early, and that an unclosed placeholder is kept.
+     */
+    @Test
+    public void resolve_TemplateFilesInBraceDirectory_Unchanged() {
+        /* ARRANGE */
+        String[] arguments = {"-tp", "{file:head.txt}{file:tail"};
+
+        /* ACT */
+        String[] resolved = PathArguments.resolve(arguments, new File("/home/user/}work"));
+
+        /* ASSERT */
+        TestCase.assertEquals("Arguments", Arrays.asList(arguments), Arrays.asList(resolved));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.helpers;
+
+import com.google.code.textclip.exceptions.FormatException;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+public class UnicodeArgumentParserTest {
+
+    @Test
+    public void constructor_Decimal() throws FormatException {
+        /* ARRANGE & ACT */
+        UnicodeArgumentParser parser = new UnicodeArgumentParser("128:1114111:5000000000");
+
+        /* ASSERT */
+        TestCase.assertEquals("Lower limit", 128, parser.getLowerLimit());
+        TestCase.assertEquals("Upper limit", 1114111, parser.getUpperLimit());
+        TestCase.assertEquals("Length", 5000000000L, parser.getLength());
+    }
+
+    @Test
+    public void constructor_Hexadecimal() throws FormatException {
+        /* ARRANGE */
+        final String[] values = {"U+0080:U+10FFFF:10", "0x80:0x10ffff:10", "u+80:0X10FFFF:10"};
+
+        for (String value : values) {
+            /* ACT */
+            UnicodeArgumentParser parser = new UnicodeArgumentParser(value);
+
+            /* ASSERT */
+            TestCase.assertEquals("Lower limit of " + value, 0x80, parser.getLowerLimit());
+            TestCase.assertEquals("Upper limit of " + value, 0x10FFFF, parser.getUpperLimit());
+            TestCase.assertEquals("Length of " + value, 10, parser.getLength());
+        }
+    }
+
+    @Test
+    public void constructor_WrongFormat_FormatException() {
+        /* ARRANGE */
+        final String[] values = {"", "128", "128:255", "-1:255:10", "U+:255:10", "0x1234567:255:10", "128:255:0x10"};
+
+        for (String value : values) {
+            /* ACT & ASSERT */
+            try {
+                new UnicodeArgumentParser(value);
+                TestCase.fail("No FormatException for " + value);
+            } catch (FormatException e) {
+                TestCase.assertEquals("Message", "String does not meet requirements, e.g. U+0080:U+10FFFF:1000",
+                        e.getMessage());
+            }
+        }
+    }
+}
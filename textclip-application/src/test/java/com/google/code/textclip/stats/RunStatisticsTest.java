@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip.stats;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+public class RunStatisticsTest {
+    @Rule
+    public TemporaryFolder testFolder = new TemporaryFolder();
+
+    @Test
+    public void end_PhasesRecordedInOrder() {
+        /* ARRANGE */
+        RunStatistics statistics = new RunStatistics(true);
+
+        /* ACT */
+        statistics.begin("parse").end(-1);
+        RunStatistics.Phase generate = statistics.begin("generate");
+        byte[] allocated = new byte[1024 * 1024];
+        generate.end(allocated.length);
+
+        /* ASSERT */
+        List<RunStatistics.Phase> phases = statistics.getPhases();
+        TestCase.assertEquals("Phases", 2, phases.size());
+        TestCase.assertEquals("First phase", "parse", phases.get(0).getName());
+        TestCase.assertEquals("No bytes", -1, phases.get(0).getBytes());
+        TestCase.assertEquals("Second phase", "generate", phases.get(1).getName());
+        TestCase.assertEquals("Bytes", 1024 * 1024, phases.get(1).getBytes());
+        TestCase.assertTrue("Time", phases.get(1).getNanos() > 0);
+        TestCase.assertTrue("Throughput", phases.get(1).getThroughput() > 0);
+        TestCase.assertTrue("Allocated", phases.get(1).getAllocatedBytes() >= allocated.length);
+    }
+
+    @Test
+    public void end_WithoutAllocations_NotMeasured() {
+        /* ARRANGE */
+        RunStatistics statistics = new RunStatistics(false);
+
+        /* ACT */
+        statistics.begin("make").end(-1);
+
+        /* ASSERT */
+        TestCase.assertEquals("Allocated", -1, statistics.getPhases().get(0).getAllocatedBytes());
+    }
+
+    @Test
+    public void print_OneLinePerPhaseAndTotal() {
+        /* ARRANGE */
+        RunStatistics statistics = new RunStatistics(false);
+        statistics.begin("make").end(-1);
+        statistics.begin("generate").end(1234567);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        /* ACT */
+        statistics.print(new PrintStream(output, true));
+
+        /* ASSERT */
+        String[] lines = output.toString().split("\\r?\\n");
+        TestCase.assertEquals("Lines", 4, lines.length);
+        TestCase.assertTrue(lines[0], lines[0].startsWith("phase "));
+        TestCase.assertTrue(lines[1], lines[1].startsWith("make ") && lines[1].endsWith(" -"));
+        TestCase.assertTrue(lines[2], lines[2].startsWith("generate ") && lines[2].contains(" 1,234,567 "));
+        TestCase.assertTrue(lines[3], lines[3].startsWith("total "));
+    }
+
+    /**
+     * Validates that the phases are committed to a running Flight Recorder.
+     */
+    @Test
+    public void end_FlightRecorderRunning_EventCommitted() throws IOException {
+        /* ARRANGE */
+        File dump = testFolder.newFile("run.jfr");
+        Recording recording = new Recording();
+        recording.enable("com.google.code.textclip.Phase");
+        recording.start();
+
+        /* ACT */
+        try {
+            new RunStatistics(false).begin("generate").end(42);
+        } finally {
+            recording.stop();
+            recording.dump(dump.toPath());
+            recording.close();
+        }
+
+        /* ASSERT */
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump.toPath());
+        boolean found = false;
+        for (RecordedEvent event : events) {
+            if ("com.google.code.textclip.Phase".equals(event.getEventType().getName())) {
+                TestCase.assertEquals("Phase", "generate", event.getString("phase"));
+                TestCase.assertEquals("Bytes", 42, event.getLong("bytes"));
+                found = true;
+            }
+        }
+        TestCase.assertTrue("Phase event recorded", found);
+    }
+}
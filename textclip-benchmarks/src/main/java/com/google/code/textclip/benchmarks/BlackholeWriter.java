@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.benchmarks;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.Writer;
+
+/**
+ * A {@link Writer} that hands every chunk to a JMH {@link Blackhole}. The
+ * generators recognise a Writer and write their chunk buffers without
+ * wrapping them, so the sink itself does not allocate and does not distort
+ * the allocation rate reported by the gc profiler.
+ */
+final class BlackholeWriter extends Writer {
+    private final Blackhole blackhole;
+    private long count;
+
+    BlackholeWriter(final Blackhole theBlackhole) {
+        blackhole = theBlackhole;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+        blackhole.consume(buffer);
+        count += length;
+    }
+
+    @Override
+    public void write(String text, int offset, int length) {
+        blackhole.consume(text);
+        count += length;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * @return the number of characters written so far
+     */
+    long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.benchmarks;
+
+import com.google.code.textclip.generators.FillKernel;
+import com.google.code.textclip.generators.FillKernels;
+import com.google.code.textclip.generators.ScalarFillKernel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the FillKernel that fills a 64K block of -ra, on one
+ * thread. "scalar" is ScalarFillKernel; "loaded" is the kernel that
+ * FillKernels found, the Vector API kernel when the benchmarks are built
+ * on JDK 17 or later (BenchmarkRunner then adds jdk.incubator.vector to
+ * the forks); otherwise both are the scalar kernel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FillKernelBenchmark {
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    @Param({"scalar", "loaded"})
+    public String kernel;
+
+    private FillKernel fillKernel;
+    private final byte[] bytes = new byte[BLOCK_SIZE];
+    private final char[] chars = new char[BLOCK_SIZE];
+    private long counter;
+
+    @Setup
+    public void setUp() {
+        fillKernel = "scalar".equals(kernel) ? new ScalarFillKernel() : FillKernels.get();
+    }
+
+    @Benchmark
+    public byte[] randomBytes() {
+        fillKernel.random(bytes, 0, bytes.length, 42L, counter, 32, 95);
+        counter += bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public char[] randomChars() {
+        fillKernel.random(chars, 0, chars.length, 42L, counter, 32, 95);
+        counter += chars.length;
+        return chars;
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.benchmarks;
+
+import com.google.code.textclip.generators.GeneratorFactory;
+import com.google.code.textclip.generators.GeneratorProduct;
+import com.google.code.textclip.helpers.ArgumentParser;
+import org.kohsuke.args4j.CmdLineParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a command line into a {@link GeneratorProduct}: parsing the
+ * options with args4j and {@link GeneratorFactory#make(ArgumentParser)}. The
+ * products are lazy, so the sizes in the command lines do not influence the
+ * figures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorFactoryBenchmark {
+    @Param({"-a", "-ch 32:126", "-t 0123456789", "-co 1073741824:*", "-ra 32:126:1073741824",
+            "-co 1024:* -m 1048576"})
+    public String commandLine;
+
+    private final GeneratorFactory factory = new GeneratorFactory();
+    private String[] arguments;
+    private ArgumentParser options;
+
+    @Setup
+    public void setUp() throws Exception {
+        arguments = commandLine.split(" ");
+        options = parse(arguments);
+    }
+
+    @Benchmark
+    public ArgumentParser parseArguments() throws Exception {
+        return parse(arguments);
+    }
+
+    @Benchmark
+    public GeneratorProduct make() throws Exception {
+        return factory.make(options);
+    }
+
+    private static ArgumentParser parse(String[] arguments) throws Exception {
+        ArgumentParser options = new ArgumentParser();
+        new CmdLineParser(options).parseArgument(arguments);
+        return options;
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.benchmarks;
+
+import com.google.code.textclip.generators.AsciiGeneratorProduct;
+import com.google.code.textclip.generators.CounterStringGeneratorProduct;
+import com.google.code.textclip.generators.FromFileGeneratorProduct;
+import com.google.code.textclip.generators.GeneratorProduct;
+import com.google.code.textclip.generators.MarkovGeneratorProduct;
+import com.google.code.textclip.generators.MarkovModel;
+import com.google.code.textclip.generators.RandomGeneratorProduct;
+import com.google.code.textclip.generators.RepeatedGeneratorProduct;
+import com.google.code.textclip.generators.TemplateGeneratorProduct;
+import com.google.code.textclip.generators.TextGeneratorProduct;
+import com.google.code.textclip.generators.UnicodeGeneratorProduct;
+import com.google.code.textclip.generators.WeightedRandomGeneratorProduct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the streaming {@link GeneratorProduct#generate(Appendable)}
+ * path, which is what {@code --out} and the clipboard streams use, for
+ * payloads from 1 KB up to 1 GB. The output is thrown into a JMH blackhole,
+ * so the figures are the cost of generating the characters and nothing else.
+ * <p>
+ * The all characters product is scaled to the payload size with a multiply
+ * factor the same way {@code -a -m <n>} would on the command line; the
+ * ASCII cyclic product uses {@code -ch 32:126 -l <size>}. The template
+ * product writes 17 character records, as
+ * {@code -tp "ID-{counter:8}-{random:65:90:4}"}, up to the payload size.
+ * The weighted product draws with the character frequencies of the
+ * repeated text, as {@code -w <size> -f} with that text as the sample, and
+ * the Markov product follows an order 4 model of that text, as
+ * {@code -mk <size> -f}. That model fits in the cache; models of large
+ * corpora wait for memory on every character and are several times slower.
+ * <p>
+ * Every generator has a state of its own, so a benchmark only sets up the
+ * product it measures; the file of 1 GB and the Markov model are only made
+ * for the benchmarks that read them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamingGenerationBenchmark {
+    private static final int ALL_CHARACTERS = 254;
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog. ";
+    private static final String TEMPLATE = "ID-{counter:8}-{random:65:90:4}";
+    private static final int TEMPLATE_RECORD_LENGTH = 17;
+
+    /**
+     * The product of one generator for the payload size.
+     */
+    @State(Scope.Benchmark)
+    public abstract static class Payload {
+        @Param({"1024", "1048576", "67108864", "1073741824"})
+        public int size;
+
+        GeneratorProduct product;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            product = create(size);
+        }
+
+        abstract GeneratorProduct create(int size) throws Exception;
+    }
+
+    @State(Scope.Benchmark)
+    public static class CounterString extends Payload {
+        @Override
+        GeneratorProduct create(int size) throws Exception {
+            return new CounterStringGeneratorProduct('*', size);
+        }
+    }
+
+    /**
+     * The counterstring and the file it is written to.
+     */
+    @State(Scope.Benchmark)
+    public static class CounterStringFile extends CounterString {
+        File outputFile;
+
+        @Setup(Level.Trial)
+        public void createOutputFile() throws IOException {
+            outputFile = File.createTempFile("textclip-benchmark", ".out");
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteOutputFile() {
+            delete(outputFile);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Random extends Payload {
+        @Override
+        GeneratorProduct create(int size) throws Exception {
+            return new RandomGeneratorProduct(32, 126, size);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FromFile extends Payload {
+        File file;
+
+        @Override
+        GeneratorProduct create(int size) throws Exception {
+            file = createFile(size);
+            return new FromFileGeneratorProduct(file);
+        }
+
+        @TearDown(Level.Trial)
+        public void deleteFile() {
+            delete(file);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AllCharacters extends Payload {
+        @Override
+        GeneratorProduct create(int size) throws Exception {
+            return new RepeatedGeneratorProduct(new AsciiGeneratorProduct(), Math.max(1, size / ALL_CHARACTERS));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AsciiCyclic extends Payload {
+        @Override
+        GeneratorProduct create(int size) throws Exception {
+            return new AsciiGeneratorProduct(32, 126, size);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RepeatedText extends Payload {
+        @Override
+        GeneratorProduct create(int size) throws Exception {
+            return new RepeatedGeneratorProduct(new TextGeneratorProduct(TEXT), Math.max(1, size / TEXT.length()));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Template extends Payload {
+        @Override
+        GeneratorProduct create(int size) throws Exception {
+            return new TemplateGeneratorProduct(TEMPLATE, Math.max(1, size / TEMPLATE_RECORD_LENGTH), 42L);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Unicode extends Payload {
+        @Override
+        GeneratorProduct create(int size) throws Exception {
+            return new UnicodeGeneratorProduct(0x80, UnicodeGeneratorProduct.MAX_CODE_POINT, size, 42L);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Weighted extends Payload {
+        @Override
+        GeneratorProduct create(int size) throws Exception {
+            return createWeighted(TEXT, size);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Markov extends Payload {
+        @Override
+        GeneratorProduct create(int size) throws Exception {
+            return new MarkovGeneratorProduct(MarkovModel.train(new TextGeneratorProduct(TEXT), 4), size, 42L);
+        }
+    }
+
+    @Benchmark
+    public long counterString(CounterString state, Blackhole blackhole) throws IOException {
+        return stream(state.product, blackhole);
+    }
+
+    @Benchmark
+    public long random(Random state, Blackhole blackhole) throws IOException {
+        return stream(state.product, blackhole);
+    }
+
+    @Benchmark
+    public long fromFile(FromFile state, Blackhole blackhole) throws IOException {
+        return stream(state.product, blackhole);
+    }
+
+    @Benchmark
+    public long allCharacters(AllCharacters state, Blackhole blackhole) throws IOException {
+        return stream(state.product, blackhole);
+    }
+
+    @Benchmark
+    public long asciiCyclic(AsciiCyclic state, Blackhole blackhole) throws IOException {
+        return stream(state.product, blackhole);
+    }
+
+    @Benchmark
+    public long repeatedText(RepeatedText state, Blackhole blackhole) throws IOException {
+        return stream(state.product, blackhole);
+    }
+
+    @Benchmark
+    public long template(Template state, Blackhole blackhole) throws IOException {
+        return stream(state.product, blackhole);
+    }
+
+    /**
+     * The counterstring encoded to bytes, as written by {@code --out}.
+     */
+    @Benchmark
+    public void counterStringToChannel(CounterString state, Blackhole blackhole) throws IOException {
+        state.product.generate(new BlackholeChannel(blackhole), Charset.forName("US-ASCII"));
+    }
+
+    /**
+     * Random characters written as bytes, without encoding characters.
+     */
+    @Benchmark
+    public void randomToChannel(Random state, Blackhole blackhole) throws IOException {
+        state.product.generate(new BlackholeChannel(blackhole), Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Weighted random characters written as bytes, to compare with the
+     * uniform ones of {@link #randomToChannel(Random, Blackhole)}.
+     */
+    @Benchmark
+    public void weightedToChannel(Weighted state, Blackhole blackhole) throws IOException {
+        state.product.generate(new BlackholeChannel(blackhole), Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Markov text written as bytes, to compare with the independent
+     * characters of {@link #weightedToChannel(Weighted, Blackhole)}.
+     */
+    @Benchmark
+    public void markovToChannel(Markov state, Blackhole blackhole) throws IOException {
+        state.product.generate(new BlackholeChannel(blackhole), Charset.forName("UTF-8"));
+    }
+
+    /**
+     * The cyclic ASCII range written as bytes, without encoding characters.
+     */
+    @Benchmark
+    public void asciiCyclicToChannel(AsciiCyclic state, Blackhole blackhole) throws IOException {
+        state.product.generate(new BlackholeChannel(blackhole), Charset.forName("UTF-8"));
+    }
+
+    /**
+     * Random code points from U+0080 up, encoded straight to UTF-8 bytes.
+     */
+    @Benchmark
+    public void unicodeToChannel(Unicode state, Blackhole blackhole) throws IOException {
+        state.product.generate(new BlackholeChannel(blackhole), Charset.forName("UTF-8"));
+    }
+
+    /**
+     * The counterstring written to a file, as --out does; long strings are
+     * written in parallel at their offsets in the file.
+     */
+    @Benchmark
+    public void counterStringToFile(CounterStringFile state) throws IOException {
+        FileChannel channel = FileChannel.open(state.outputFile.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            state.product.generate(channel, Charset.forName("US-ASCII"));
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static void delete(File file) {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private static long stream(GeneratorProduct product, Blackhole blackhole) throws IOException {
+        BlackholeWriter writer = new BlackholeWriter(blackhole);
+        product.generate(writer);
+        return writer.getCount();
+    }
+
+    /**
+     * @return weighted random characters with the frequencies of the
+     * characters of the sample.
+     */
+    private static GeneratorProduct createWeighted(String sample, int size) throws Exception {
+        double[] counts = new double[128];
+        for (int i = 0; i < sample.length(); i++) {
+            counts[sample.charAt(i)]++;
+        }
+        int[] codePoints = new int[counts.length];
+        double[] weights = new double[counts.length];
+        int count = 0;
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > 0) {
+                codePoints[count] = c;
+                weights[count++] = counts[c];
+            }
+        }
+        return new WeightedRandomGeneratorProduct(Arrays.copyOf(codePoints, count), Arrays.copyOf(weights, count),
+                size, 42L);
+    }
+
+    static File createFile(int size) throws IOException {
+        File file = File.createTempFile("textclip-benchmark", ".txt");
+        byte[] line = new byte[GeneratorProduct.CHUNK_SIZE];
+        Arrays.fill(line, (byte) 'x');
+        for (int index = 63; index < line.length; index += 64) {
+            line[index] = '\n';
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        try {
+            long remaining = size;
+            while (remaining > 0) {
+                ByteBuffer buffer = ByteBuffer.wrap(line, 0, (int) Math.min(line.length, remaining));
+                remaining -= channel.write(buffer);
+            }
+        } finally {
+            channel.close();
+        }
+        return file;
+    }
+}
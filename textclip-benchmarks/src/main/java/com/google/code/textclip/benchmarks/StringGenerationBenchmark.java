@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.benchmarks;
+
+import com.google.code.textclip.generators.CounterStringGeneratorProduct;
+import com.google.code.textclip.generators.FromFileGeneratorProduct;
+import com.google.code.textclip.generators.GeneratorProduct;
+import com.google.code.textclip.generators.RandomGeneratorProduct;
+import com.google.code.textclip.generators.RepeatedGeneratorProduct;
+import com.google.code.textclip.generators.TextGeneratorProduct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link GeneratorProduct#generate()}, the call behind the
+ * clipboard string flavor and {@code TextClip.createTestString()}. Every
+ * operation materialises the whole payload as one String, so the largest
+ * size stops at 64 MB; the 1 GB case is covered by
+ * {@link StreamingGenerationBenchmark}. The all characters product has a
+ * fixed size and is measured by {@link FixedSizeGenerationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StringGenerationBenchmark {
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog. ";
+
+    @Param({"1024", "1048576", "67108864"})
+    public int size;
+
+    private File file;
+    private GeneratorProduct counterString;
+    private GeneratorProduct random;
+    private GeneratorProduct fromFile;
+    private GeneratorProduct repeatedText;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        file = StreamingGenerationBenchmark.createFile(size);
+        counterString = new CounterStringGeneratorProduct('*', size);
+        random = new RandomGeneratorProduct(32, 126, size);
+        fromFile = new FromFileGeneratorProduct(file);
+        repeatedText = new RepeatedGeneratorProduct(new TextGeneratorProduct(TEXT),
+                Math.max(1, size / TEXT.length()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public String counterString() throws IOException {
+        return counterString.generate();
+    }
+
+    @Benchmark
+    public String random() throws IOException {
+        return random.generate();
+    }
+
+    @Benchmark
+    public String fromFile() throws IOException {
+        return fromFile.generate();
+    }
+
+    @Benchmark
+    public String repeatedText() throws IOException {
+        return repeatedText.generate();
+    }
+}
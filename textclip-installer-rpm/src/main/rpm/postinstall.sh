@@ -0,0 +1,11 @@
+# Makes the class data sharing archive with the installed java and the class
+# path of the textclip command, by recording a short run. Before JDK 13 the
+# run fails and the command starts without an archive.
+LIB=/usr/share/textclip/lib
+ARCHIVE=/usr/share/textclip/textclip.jsa
+rm -f "$ARCHIVE"
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -Xlog:cds*=off \
+    -cp "$LIB/textclip-application.jar:$LIB/args4j.jar" \
+    com.google.code.textclip.TextClip -co 1000:* -o /dev/null >/dev/null 2>&1 \
+    || rm -f "$ARCHIVE"
+exit 0
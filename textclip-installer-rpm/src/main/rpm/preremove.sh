@@ -0,0 +1,5 @@
+# The archive is not a file of the package; remove it on erase, not upgrade.
+if [ "$1" = 0 ]; then
+    rm -f /usr/share/textclip/textclip.jsa
+fi
+exit 0
@@ -0,0 +1,70 @@
+#!/bin/bash
+# Compares the native executable with the JVM build for every generator: the
+# start time of a small run, and the throughput of a large run to a file.
+# Build both first with "mvn -P native install" from the parent directory.
+#
+# usage: compare.sh [size in bytes, standard 100000000] [runs, standard 10]
+cd "$(dirname "$0")"
+SIZE=${1:-100000000}
+RUNS=${2:-10}
+REPOSITORY=${REPOSITORY:-$HOME/.m2/repository}
+JVM="java -cp ../textclip-application/target/textclip-application-0.1.0-SNAPSHOT.jar:$REPOSITORY/args4j/args4j/2.0.28/args4j-2.0.28.jar com.google.code.textclip.TextClip"
+NATIVE=target/textclip
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+head -c 1000 /dev/zero | tr '\0' 'x' > "$WORK/sample.txt"
+printf 'U+0020 18.0\nU+0061 8.2\nU+0065 12.7\nU+006E 6.7\nU+0074 9.1\n' > "$WORK/table.txt"
+for ((line = 0; line < 200; line++)); do
+    echo "the quick brown fox $line jumps over the lazy dog and runs back to the den"
+done > "$WORK/corpus.txt"
+
+# generator, options of the small run, options of the large run
+GENERATORS=(
+    "allchars|-a|-a -m $((SIZE / 254))"
+    "char|-ch 32:126 -l 1000|-ch 32:126 -l $SIZE"
+    "counterstring|-co 1000:*|-co $SIZE:*"
+    "text|-t hello -m 200|-t hello -m $((SIZE / 5))"
+    "file|-f $WORK/sample.txt|-f $WORK/sample.txt -m $((SIZE / 1000))"
+    "random|-ra 32:126:1000 -s 1|-ra 32:126:$SIZE -s 1"
+    "unicode|-u U+0080:U+10FFFF:1000 -s 1|-u U+0080:U+10FFFF:$SIZE -s 1"
+    "weighted|-w 1000 --table $WORK/table.txt -s 1|-w $SIZE --table $WORK/table.txt -s 1"
+    "markov|-mk 1000 -f $WORK/corpus.txt -s 1|-mk $SIZE -f $WORK/corpus.txt -s 1"
+    "template|-tp {counter:10}:{random:65:90:20} -n 30|-tp {counter:10}:{random:65:90:20} -n $((SIZE / 32))"
+)
+
+# prints the average milliseconds of a run of: command options
+milliseconds() {
+    local start end
+    start=$(date +%s%N)
+    for ((run = 0; run < $3; run++)); do
+        $1 $2 -o "$WORK/out.txt" > /dev/null 2>&1 || { echo "failed"; return; }
+    done
+    end=$(date +%s%N)
+    echo $(((end - start) / 1000000 / $3))
+}
+
+# prints the MB/s of a large run of: command options
+throughput() {
+    local ms
+    ms=$(milliseconds "$1" "$2" 1)
+    if [ "$ms" = "failed" ]; then
+        echo "failed"
+    else
+        awk -v bytes="$(stat -c %s "$WORK/out.txt")" -v ms="$ms" \
+            'BEGIN { printf "%.0f", bytes / 1000000 / ((ms > 0 ? ms : 1) / 1000) }'
+    fi
+}
+
+printf "%-14s %14s %14s %14s %14s\n" generator "jvm start ms" "native start" "jvm MB/s" "native MB/s"
+for generator in "${GENERATORS[@]}"; do
+    IFS='|' read -r name small large <<< "$generator"
+    jvmStart=$(milliseconds "$JVM" "$small" "$RUNS")
+    jvmThroughput=$(throughput "$JVM" "$large")
+    nativeStart="-"
+    nativeThroughput="-"
+    if [ -x "$NATIVE" ]; then
+        nativeStart=$(milliseconds "$NATIVE" "$small" "$RUNS")
+        nativeThroughput=$(throughput "$NATIVE" "$large")
+    fi
+    printf "%-14s %14s %14s %14s %14s\n" "$name" "$jvmStart" "$nativeStart" "$jvmThroughput" "$nativeThroughput"
+done
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.google.code.textclip.nativeimage;
+
+import com.google.code.textclip.TextClip;
+import com.google.code.textclip.helpers.ArgumentParser;
+import org.kohsuke.args4j.CmdLineException;
+import org.kohsuke.args4j.CmdLineParser;
+
+import java.util.Arrays;
+
+/**
+ * The main class of the native executable. The executable runs headless: the
+ * AWT toolkit is not part of the image, so there is no clipboard. Without
+ * --out, --batch or --help the test string is written to the standard
+ * output, as with "--out -".
+ */
+public final class TextClipNative {
+
+    private TextClipNative() {
+    }
+
+    /**
+     * @param args the same arguments as {@link TextClip#main(String[])}.
+     */
+    public static void main(String[] args) {
+        System.exit(new TextClip(headlessArguments(args)).run());
+    }
+
+    /**
+     * @return the arguments, with "--out -" added when they would place the
+     * test string on the clipboard. Invalid arguments are returned as they
+     * are, so that TextClip reports them.
+     */
+    static String[] headlessArguments(String[] args) {
+        ArgumentParser options = new ArgumentParser();
+        try {
+            new CmdLineParser(options).parseArgument(args);
+        } catch (CmdLineException e) {
+            return args;
+        }
+        if (options.isOut() || options.isBatch() || options.isHelp()) {
+            return args;
+        }
+        String[] result = Arrays.copyOf(args, args.length + 2);
+        result[args.length] = "--out";
+        result[args.length + 1] = "-";
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.nativeimage;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TextClipNativeTest {
+
+    /**
+     * Validates that a run for the clipboard writes to the standard output.
+     */
+    @Test
+    public void headlessArguments_NoOut_StandardOutput() {
+        /* ARRANGE */
+        String[] args = {"-co", "10:*"};
+
+        /* ACT */
+        String[] result = TextClipNative.headlessArguments(args);
+
+        /* ASSERT */
+        TestCase.assertEquals("Arguments", Arrays.asList("-co", "10:*", "--out", "-"), Arrays.asList(result));
+    }
+
+    /**
+     * Validates that arguments with an output, a batch or help are kept.
+     */
+    @Test
+    public void headlessArguments_OutBatchOrHelp_Unchanged() {
+        /* ARRANGE */
+        String[][] argumentLists = {{"-co", "10:*", "-o", "out.txt"}, {"-b", "jobs.txt"}, {"--help"}};
+
+        for (String[] args : argumentLists) {
+            /* ACT */
+            String[] result = TextClipNative.headlessArguments(args);
+
+            /* ASSERT */
+            TestCase.assertSame(Arrays.toString(args), args, result);
+        }
+    }
+
+    /**
+     * Validates that invalid arguments are kept, so TextClip reports them.
+     */
+    @Test
+    public void headlessArguments_Invalid_Unchanged() {
+        /* ARRANGE */
+        String[] args = {"--unknown"};
+
+        /* ACT */
+        String[] result = TextClipNative.headlessArguments(args);
+
+        /* ASSERT */
+        TestCase.assertSame("Arguments", args, result);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.vector;
+
+import com.google.code.textclip.generators.FillKernel;
+import com.google.code.textclip.generators.ScalarFillKernel;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The FillKernel on the Vector API: the counters, the SplitMix64 mix and
+ * the range reduction of as many characters as the preferred long vector
+ * has lanes (8 with AVX-512, 4 with AVX2, up to 32 with SVE) are computed
+ * at once, narrowed to bytes or chars and stored with one store. The
+ * characters are those of ScalarFillKernel, which fills the tail of a
+ * range. The system property textclip.vector.bits makes the vectors
+ * smaller.
+ * <p/>
+ * A store writes at least 8 lanes of which the first lanes.length() are
+ * valid; the rest is overwritten by the next store or the tail, and no
+ * store passes the end of the range, so ranges of one buffer can be filled
+ * in parallel.
+ */
+public final class VectorFillKernel implements FillKernel {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long MIX_1 = 0xBF58476D1CE4E5B9L;
+    private static final long MIX_2 = 0x94D049BB133111EBL;
+    /**
+     * System property with the largest vector size in bits, e.g. 256 to stay
+     * off AVX-512; the preferred size is used when it is not given or not
+     * a smaller size of 64 bits or more.
+     */
+    static final String BITS_PROPERTY = "textclip.vector.bits";
+    private static final VectorSpecies<Long> LONGS = longs(Integer.getInteger(BITS_PROPERTY, 0));
+    private static final VectorSpecies<Byte> BYTES = narrow(byte.class, LONGS.length());
+    private static final VectorSpecies<Short> SHORTS = narrow(short.class, LONGS.length());
+    private static final LongVector LANE_GAMMAS = LongVector.zero(LONGS).addIndex(1).mul(GOLDEN_GAMMA);
+    private static final ScalarFillKernel SCALAR = new ScalarFillKernel();
+
+    @Override
+    public void random(final byte[] bytes, final int from, final int to, final long key, final long counter,
+                       final int lower, final int range) {
+        LongVector values = LANE_GAMMAS.add(key + counter * GOLDEN_GAMMA);
+        long step = GOLDEN_GAMMA * LONGS.length();
+        int i = from;
+        for (; i + BYTES.length() <= to; i += LONGS.length()) {
+            ((ByteVector) characters(values, lower, range).convertShape(VectorOperators.L2B, BYTES, 0))
+                    .intoArray(bytes, i);
+            values = values.add(step);
+        }
+        SCALAR.random(bytes, i, to, key, counter + (i - from), lower, range);
+    }
+
+    @Override
+    public void random(final char[] chars, final int from, final int to, final long key, final long counter,
+                       final int lower, final int range) {
+        LongVector values = LANE_GAMMAS.add(key + counter * GOLDEN_GAMMA);
+        long step = GOLDEN_GAMMA * LONGS.length();
+        int i = from;
+        for (; i + SHORTS.length() <= to; i += LONGS.length()) {
+            ((ShortVector) characters(values, lower, range).convertShape(VectorOperators.L2S, SHORTS, 0))
+                    .intoCharArray(chars, i);
+            values = values.add(step);
+        }
+        SCALAR.random(chars, i, to, key, counter + (i - from), lower, range);
+    }
+
+    /**
+     * @return the long species of the vector size, or the preferred one.
+     */
+    static VectorSpecies<Long> longs(final int bits) {
+        VectorSpecies<Long> preferred = LongVector.SPECIES_PREFERRED;
+        if (bits < 64 || bits >= preferred.vectorBitSize() || Integer.bitCount(bits) != 1) {
+            return preferred;
+        }
+        return VectorSpecies.of(long.class, VectorShape.forBitSize(bits));
+    }
+
+    /**
+     * @return the species of the element type with one lane for every long
+     * lane, and at least 8 lanes, so that the characters of all long lanes
+     * are stored at once (16 or 32 of them on wide SVE vectors).
+     */
+    static <E> VectorSpecies<E> narrow(final Class<E> elementType, final int lanes) {
+        int elementBits = VectorSpecies.of(elementType, VectorShape.S_64_BIT).elementSize();
+        return VectorSpecies.of(elementType, VectorShape.forBitSize(Math.max(8, lanes) * elementBits));
+    }
+
+    /**
+     * @return lower plus the reduced SplitMix64 mix of every lane.
+     */
+    private static LongVector characters(final LongVector values, final int lower, final int range) {
+        LongVector z = values;
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 30)).mul(MIX_1);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 27)).mul(MIX_2);
+        z = z.lanewise(VectorOperators.XOR, z.lanewise(VectorOperators.LSHR, 31));
+        return z.lanewise(VectorOperators.LSHR, 32).mul(range).lanewise(VectorOperators.LSHR, 32).add(lower);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2014, Jos Plas
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.google.code.textclip.vector;
+
+import com.google.code.textclip.generators.FillKernel;
+import com.google.code.textclip.generators.FillKernels;
+import com.google.code.textclip.generators.ScalarFillKernel;
+import jdk.incubator.vector.LongVector;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+public class VectorFillKernelTest {
+    private static final int[][] RANGES = {{0, 1000}, {3, 8}, {5, 6}, {7, 7}, {1, 12}, {0, 65536}, {17, 65535}};
+
+    /**
+     * Validates that the bytes are those of the scalar kernel, for ranges
+     * shorter and longer than a vector and with a tail, and that nothing
+     * outside the range is written.
+     */
+    @Test
+    public void randomBytes_SameAsScalar() {
+        /* ARRANGE */
+        FillKernel vector = new VectorFillKernel();
+        FillKernel scalar = new ScalarFillKernel();
+
+        for (int[] range : RANGES) {
+            byte[] expected = new byte[range[1] + 9];
+            byte[] actual = new byte[range[1] + 9];
+            Arrays.fill(expected, (byte) '#');
+            Arrays.fill(actual, (byte) '#');
+
+            /* ACT */
+            scalar.random(expected, range[0], range[1], 42L, 1L << 40, 32, 95);
+            vector.random(actual, range[0], range[1], 42L, 1L << 40, 32, 95);
+
+            /* ASSERT */
+            TestCase.assertTrue("Bytes of " + Arrays.toString(range), Arrays.equals(expected, actual));
+        }
+    }
+
+    /**
+     * Validates that the chars are those of the scalar kernel, also for the
+     * characters 1 .. 254 of -a, which do not fit in a signed byte.
+     */
+    @Test
+    public void randomChars_SameAsScalar() {
+        /* ARRANGE */
+        FillKernel vector = new VectorFillKernel();
+        FillKernel scalar = new ScalarFillKernel();
+
+        for (int[] range : RANGES) {
+            char[] expected = new char[range[1] + 9];
+            char[] actual = new char[range[1] + 9];
+
+            /* ACT */
+            scalar.random(expected, range[0], range[1], -7L, 3L, 1, 254);
+            vector.random(actual, range[0], range[1], -7L, 3L, 1, 254);
+
+            /* ASSERT */
+            TestCase.assertTrue("Chars of " + Arrays.toString(range), Arrays.equals(expected, actual));
+        }
+    }
+
+    /**
+     * Validates that every lane is stored at every vector size: the kernel
+     * is loaded again with textclip.vector.bits for each size up to the
+     * preferred one and compared with the scalar kernel.
+     */
+    @Test
+    public void random_EveryVectorSize_SameAsScalar() throws ReflectiveOperationException {
+        FillKernel scalar = new ScalarFillKernel();
+
+        for (int bits = 64; bits <= LongVector.SPECIES_PREFERRED.vectorBitSize(); bits *= 2) {
+            /* ARRANGE */
+            FillKernel vector = loadWithBits(bits);
+
+            for (int[] range : RANGES) {
+                byte[] expectedBytes = new byte[range[1] + 9];
+                byte[] actualBytes = new byte[range[1] + 9];
+                char[] expectedChars = new char[range[1] + 9];
+                char[] actualChars = new char[range[1] + 9];
+
+                /* ACT */
+                scalar.random(expectedBytes, range[0], range[1], 42L, 1L << 40, 32, 95);
+                vector.random(actualBytes, range[0], range[1], 42L, 1L << 40, 32, 95);
+                scalar.random(expectedChars, range[0], range[1], -7L, 3L, 1, 254);
+                vector.random(actualChars, range[0], range[1], -7L, 3L, 1, 254);
+
+                /* ASSERT */
+                String name = bits + " bits, " + Arrays.toString(range);
+                TestCase.assertTrue("Bytes of " + name, Arrays.equals(expectedBytes, actualBytes));
+                TestCase.assertTrue("Chars of " + name, Arrays.equals(expectedChars, actualChars));
+            }
+        }
+    }
+
+    /**
+     * Validates that the narrowed species have a lane for every long lane,
+     * also for the 16 and 32 lanes of SVE vectors of 1024 and 2048 bits.
+     */
+    @Test
+    public void narrow_EveryLaneCount_LaneForEveryLong() {
+        for (int lanes = 1; lanes <= 32; lanes *= 2) {
+            TestCase.assertTrue("Bytes of " + lanes + " lanes",
+                    VectorFillKernel.narrow(byte.class, lanes).length() >= lanes);
+            TestCase.assertTrue("Shorts of " + lanes + " lanes",
+                    VectorFillKernel.narrow(short.class, lanes).length() >= lanes);
+        }
+    }
+
+    /**
+     * Validates that textclip.vector.bits only makes the vectors smaller.
+     */
+    @Test
+    public void longs_Bits_Species() {
+        int preferred = LongVector.SPECIES_PREFERRED.vectorBitSize();
+
+        TestCase.assertEquals("64 bits", 1, VectorFillKernel.longs(64).length());
+        TestCase.assertEquals("Not given", preferred, VectorFillKernel.longs(0).vectorBitSize());
+        TestCase.assertEquals("Not a size", preferred, VectorFillKernel.longs(100).vectorBitSize());
+        TestCase.assertEquals("Larger", preferred, VectorFillKernel.longs(2 * preferred).vectorBitSize());
+    }
+
+    /**
+     * Validates that ServiceLoader finds the kernel when the module is on
+     * the class path and jdk.incubator.vector is added.
+     */
+    @Test
+    public void fillKernels_Get_VectorFillKernel() {
+        TestCase.assertTrue("Loaded kernel", FillKernels.get() instanceof VectorFillKernel);
+    }
+
+    /**
+     * @return a VectorFillKernel of a class loaded again, so that it reads
+     * the vector size of the system property.
+     */
+    private static FillKernel loadWithBits(final int bits) throws ReflectiveOperationException {
+        String old = System.getProperty(VectorFillKernel.BITS_PROPERTY);
+        System.setProperty(VectorFillKernel.BITS_PROPERTY, String.valueOf(bits));
+        try {
+            return (FillKernel) new KernelClassLoader().loadClass(VectorFillKernel.class.getName())
+                    .getDeclaredConstructor().newInstance();
+        } finally {
+            if (old == null) {
+                System.clearProperty(VectorFillKernel.BITS_PROPERTY);
+            } else {
+                System.setProperty(VectorFillKernel.BITS_PROPERTY, old);
+            }
+        }
+    }
+
+    /**
+     * Defines VectorFillKernel itself and leaves the other classes to the
+     * class loader of the test.
+     */
+    private static final class KernelClassLoader extends ClassLoader {
+        KernelClassLoader() {
+            super(VectorFillKernelTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(VectorFillKernel.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                        byte[] bytes = in.readAllBytes();
+                        loaded = defineClass(name, bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                return loaded;
+            }
+        }
+    }
+}